@@ -5,14 +5,25 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
+import dev.markodojkic.legalcontractdigitizer.model.ExternalDependency;
+import dev.markodojkic.legalcontractdigitizer.util.DependencyGuard;
+import dev.markodojkic.legalcontractdigitizer.util.InteractionRecorder;
+import dev.markodojkic.legalcontractdigitizer.util.RecordReplayClientHttpConnector;
+import io.netty.channel.ChannelOption;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.Duration;
+import java.util.regex.Pattern;
 
 import static com.google.auth.oauth2.GoogleCredentials.fromStream;
 
@@ -24,7 +35,7 @@ import static com.google.auth.oauth2.GoogleCredentials.fromStream;
  * <p>This configuration ensures:
  * <ul>
  *   <li>Firebase is initialized with credentials loaded from the service account JSON file.</li>
- *   <li>A WebClient bean configured with OpenAI API key and headers.</li>
+ *   <li>A WebClient bean configured with OpenAI API key and headers, backed by a dedicated, instrumented connection pool.</li>
  *   <li>An ObjectMapper bean customized to ignore unknown and ignored properties during deserialization
  *       and to pretty-print JSON output.</li>
  * </ul>
@@ -33,6 +44,8 @@ import static com.google.auth.oauth2.GoogleCredentials.fromStream;
 @Slf4j
 public class MiscellaneousConfig {
 
+	private static final Pattern OPENAI_RESOURCE_ID_PATTERN = Pattern.compile("/(?:file|batch)[-_][^/?]+");
+
 	public MiscellaneousConfig() {
 		try {
 			// Load Firebase credentials from the service account file
@@ -52,16 +65,70 @@ public class MiscellaneousConfig {
 		}
 	}
 
+	/**
+	 * Creates a dedicated Reactor Netty connection pool for OpenAI API calls. Pending acquires are bounded, so bursts fail
+	 * fast instead of queueing without limit, and idle connections are evicted before the server closes them.
+	 * Pool metrics are exported as {@code reactor.netty.connection.provider.*} (active, idle, pending connections
+	 * and pending acquire time).
+	 *
+	 * @param maxConnections              maximum number of pooled connections
+	 * @param pendingAcquireMaxCount      maximum number of requests waiting for a connection
+	 * @param pendingAcquireTimeoutMillis maximum time a request waits for a connection
+	 * @param maxIdleTimeMillis           idle time after which a connection is closed
+	 * @param maxLifeTimeMillis           lifetime after which a connection is closed
+	 * @param evictInBackgroundMillis     interval of background eviction of idle and expired connections
+	 * @return connection provider for the OpenAI WebClient
+	 */
+	@Bean(destroyMethod = "dispose")
+	public ConnectionProvider openAiConnectionProvider(@Value("${openai.http.maxConnections:32}") int maxConnections,
+	                                                   @Value("${openai.http.pendingAcquireMaxCount:256}") int pendingAcquireMaxCount,
+	                                                   @Value("${openai.http.pendingAcquireTimeoutMillis:45000}") long pendingAcquireTimeoutMillis,
+	                                                   @Value("${openai.http.maxIdleTimeMillis:30000}") long maxIdleTimeMillis,
+	                                                   @Value("${openai.http.maxLifeTimeMillis:300000}") long maxLifeTimeMillis,
+	                                                   @Value("${openai.http.evictInBackgroundMillis:15000}") long evictInBackgroundMillis) {
+		return ConnectionProvider.builder("openai")
+				.maxConnections(maxConnections)
+				.pendingAcquireMaxCount(pendingAcquireMaxCount)
+				.pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMillis))
+				.maxIdleTime(Duration.ofMillis(maxIdleTimeMillis))
+				.maxLifeTime(Duration.ofMillis(maxLifeTimeMillis))
+				.evictInBackground(Duration.ofMillis(evictInBackgroundMillis))
+				.metrics(true)
+				.build();
+	}
+
 	/**
 	 * Creates a WebClient bean configured to communicate with the OpenAI API,
 	 * using the API key provided via application properties.
 	 *
-	 * @param apiKey the OpenAI API key injected from application configuration
+	 * @param apiKey                   the OpenAI API key injected from application configuration
+	 * @param baseUrl                  OpenAI compatible base URL, HTTP/2 is only negotiated over TLS
+	 * @param http2                    whether to offer HTTP/2
+	 * @param connectTimeoutMillis     TCP connect timeout
+	 * @param responseTimeoutMillis    maximum time between sending the request and receiving the response
+	 * @param openAiConnectionProvider connection pool for OpenAI calls
+	 * @param interactionRecorder      records or replays OpenAI exchanges if enabled
+	 * @param dependencyGuard          circuit breaker and bulkhead isolating OpenAI calls
 	 * @return configured WebClient instance
 	 */
 	@Bean
-	public WebClient openAiWebClient(@Value("${spring.ai.openai.api-key}") String apiKey) {
+	public WebClient openAiWebClient(@Value("${spring.ai.openai.api-key}") String apiKey,
+	                                 @Value("${openai.baseUrl:https://api.openai.com/v1}") String baseUrl,
+	                                 @Value("${openai.http.http2:true}") boolean http2,
+	                                 @Value("${openai.http.connectTimeoutMillis:5000}") int connectTimeoutMillis,
+	                                 @Value("${openai.http.responseTimeoutMillis:180000}") long responseTimeoutMillis,
+	                                 ConnectionProvider openAiConnectionProvider, InteractionRecorder interactionRecorder, DependencyGuard dependencyGuard) {
+		HttpClient httpClient = HttpClient.create(openAiConnectionProvider)
+				.protocol(http2 && baseUrl.startsWith("https") ? new HttpProtocol[]{HttpProtocol.H2, HttpProtocol.HTTP11} : new HttpProtocol[]{HttpProtocol.HTTP11})
+				.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMillis)
+				.option(ChannelOption.SO_KEEPALIVE, true)
+				.keepAlive(true)
+				.responseTimeout(Duration.ofMillis(responseTimeoutMillis))
+				.metrics(true, uri -> OPENAI_RESOURCE_ID_PATTERN.matcher(uri).replaceAll("/{id}")); // Bounded URI tag cardinality
+
 		return WebClient.builder()
+				.clientConnector(new RecordReplayClientHttpConnector(new ReactorClientHttpConnector(httpClient), interactionRecorder, "openai"))
+				.filter(dependencyGuard.webClientFilter(ExternalDependency.OPENAI))
 				.defaultHeader("Authorization", "Bearer " + apiKey)
 				.defaultHeader("Content-Type", "application/json")
 				.build();
@@ -27,7 +27,8 @@ import java.util.List;
  *   <li>Registers a JWT authentication filter to validate tokens before username/password authentication.</li>
  *   <li>Configures endpoint access rules:
  *     <ul>
- *       <li>Allows unauthenticated access to Swagger UI and related API documentation resources.</li>
+ *       <li>Allows unauthenticated access to Swagger UI, related API documentation resources and the health endpoint.</li>
+ *       <li>Requires authentication for other actuator endpoints (e.g. metrics).</li>
  *       <li>Requires authentication for API endpoints under "/api/**".</li>
  *       <li>Denies access to all other requests.</li>
  *     </ul>
@@ -84,8 +85,10 @@ public class SecurityConfig {
                                 "/v3/api-docs/**",
                                 "/swagger-resources/**",
                                 "/swagger-ui.html",
-                                "/webjars/**"
+                                "/webjars/**",
+                                "/actuator/health"
                         ).permitAll()
+                        .requestMatchers("/actuator/**").authenticated()
                         .requestMatchers("/api/**").authenticated()
                         .anyRequest().denyAll()
                 )
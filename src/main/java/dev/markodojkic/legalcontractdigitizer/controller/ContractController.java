@@ -1,12 +1,23 @@
 package dev.markodojkic.legalcontractdigitizer.controller;
 
+import dev.markodojkic.legalcontractdigitizer.exception.ClausesExtractionException;
 import dev.markodojkic.legalcontractdigitizer.exception.CompilationException;
+import dev.markodojkic.legalcontractdigitizer.exception.CompilerUnavailableException;
 import dev.markodojkic.legalcontractdigitizer.exception.ContractAlreadyConfirmedException;
 import dev.markodojkic.legalcontractdigitizer.exception.ContractNotFoundException;
 import dev.markodojkic.legalcontractdigitizer.exception.UnauthorizedAccessException;
+import dev.markodojkic.legalcontractdigitizer.model.BatchJobType;
+import dev.markodojkic.legalcontractdigitizer.model.CompilerDiagnostic;
 import dev.markodojkic.legalcontractdigitizer.model.DigitalizedContract;
+import dev.markodojkic.legalcontractdigitizer.model.NearDuplicateMatch;
+import dev.markodojkic.legalcontractdigitizer.model.SolidityRevision;
+import dev.markodojkic.legalcontractdigitizer.model.UploadedContract;
+import dev.markodojkic.legalcontractdigitizer.model.SolidityStructure;
+import dev.markodojkic.legalcontractdigitizer.service.IBatchService;
 import dev.markodojkic.legalcontractdigitizer.service.IContractService;
+import dev.markodojkic.legalcontractdigitizer.service.ISolidityCompilerService;
 import dev.markodojkic.legalcontractdigitizer.util.Either;
+import dev.markodojkic.legalcontractdigitizer.util.SolidityPrecheck;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -29,12 +40,18 @@ public class ContractController {
 
 	private final Tika tika = new Tika();
 	private final IContractService contractService;
+	private final IBatchService batchService;
+	private final ISolidityCompilerService solidityCompilerService;
 
 	@Operation(summary = "Upload a contract file", description = "Uploads a legal contract file and returns its generated ID.", responses = {@ApiResponse(responseCode = "200", description = "Contract uploaded successfully"), @ApiResponse(responseCode = "500", description = "Internal server error during upload")})
 	@PostMapping("/upload")
 	public ResponseEntity<String> uploadContract(@Parameter(description = "Contract file to upload", required = true) @RequestParam("file") MultipartFile file) {
 		try {
-			return ResponseEntity.ok("Contract uploaded successfully. ID: " + contractService.saveUploadedContract(tika.parseToString(file.getInputStream())));
+			UploadedContract uploadedContract = contractService.saveUploadedContract(tika.parseToString(file.getInputStream()));
+			NearDuplicateMatch nearDuplicate = uploadedContract.nearDuplicate();
+
+			return ResponseEntity.ok("Contract uploaded successfully. ID: " + uploadedContract.contractId() + (nearDuplicate == null ? "" :
+					String.format("%nContract is %.0f%% similar to contract ID: %s, its clauses and Solidity code can be reused", nearDuplicate.similarity() * 100, nearDuplicate.contractId())));
 		} catch (Exception e) {
 			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to upload contract:\n" + e.getLocalizedMessage());
 		}
@@ -54,6 +71,80 @@ public class ContractController {
 		}
 	}
 
+	@Operation(summary = "Get Solidity structure of contract", description = "Returns pragma version, declared contracts with their inheritance and constructor parameters, and structural problems of the contract's Solidity code without compiling it.", responses = {@ApiResponse(responseCode = "200", description = "Structure retrieved successfully"), @ApiResponse(responseCode = "400", description = "No Solidity code generated yet"), @ApiResponse(responseCode = "403", description = "Unauthorized access to contract"), @ApiResponse(responseCode = "404", description = "Contract not found"), @ApiResponse(responseCode = "500", description = "Internal server error")})
+	@GetMapping("/{id}/structure")
+	public ResponseEntity<Either<SolidityStructure, String>> getSolidityStructure(@Parameter(description = "ID of the contract to analyze", required = true) @PathVariable String id) {
+		try {
+			String soliditySource = contractService.getContract(id).soliditySource();
+			if (soliditySource == null) return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Either.right("No Solidity code generated for contract: " + id));
+			return ResponseEntity.ok(Either.left(SolidityPrecheck.analyze(soliditySource)));
+		} catch (UnauthorizedAccessException e) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Either.right(e.getLocalizedMessage()));
+		} catch (ContractNotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Either.right(e.getLocalizedMessage()));
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Either.right(e.getLocalizedMessage()));
+		}
+	}
+
+	@Operation(summary = "List Solidity revisions of contract", description = "Returns the revision history of the contract's Solidity code, one revision per generation, repair, edit or restore.", responses = {@ApiResponse(responseCode = "200", description = "Revisions listed successfully"), @ApiResponse(responseCode = "403", description = "Unauthorized access to contract"), @ApiResponse(responseCode = "404", description = "Contract not found"), @ApiResponse(responseCode = "500", description = "Internal server error")})
+	@GetMapping("/{id}/revisions")
+	public ResponseEntity<Either<List<SolidityRevision>, String>> listSolidityRevisions(@Parameter(description = "ID of the contract", required = true) @PathVariable String id) {
+		try {
+			return ResponseEntity.ok(Either.left(contractService.listSolidityRevisions(id)));
+		} catch (UnauthorizedAccessException e) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Either.right(e.getLocalizedMessage()));
+		} catch (ContractNotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Either.right(e.getLocalizedMessage()));
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Either.right(e.getLocalizedMessage()));
+		}
+	}
+
+	@Operation(summary = "Get Solidity revision of contract", description = "Returns the Solidity code of a revision.", responses = {@ApiResponse(responseCode = "200", description = "Revision retrieved successfully"), @ApiResponse(responseCode = "403", description = "Unauthorized access to contract"), @ApiResponse(responseCode = "404", description = "Contract or revision not found"), @ApiResponse(responseCode = "500", description = "Internal server error")})
+	@GetMapping("/{id}/revisions/{number}")
+	public ResponseEntity<String> getSolidityRevision(@Parameter(description = "ID of the contract", required = true) @PathVariable String id, @Parameter(description = "Revision number", required = true) @PathVariable int number) {
+		try {
+			return ResponseEntity.ok(contractService.getSolidityRevision(id, number));
+		} catch (UnauthorizedAccessException e) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getLocalizedMessage());
+		} catch (ContractNotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getLocalizedMessage());
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getLocalizedMessage());
+		}
+	}
+
+	@Operation(summary = "Compare Solidity revisions of contract", description = "Returns the differences of two revisions of the contract's Solidity code in unified diff format, empty if they are equal.", responses = {@ApiResponse(responseCode = "200", description = "Revisions compared successfully"), @ApiResponse(responseCode = "403", description = "Unauthorized access to contract"), @ApiResponse(responseCode = "404", description = "Contract or revision not found"), @ApiResponse(responseCode = "500", description = "Internal server error")})
+	@GetMapping("/{id}/revisions/diff")
+	public ResponseEntity<String> diffSolidityRevisions(@Parameter(description = "ID of the contract", required = true) @PathVariable String id, @Parameter(description = "Number of the original revision", required = true) @RequestParam int from, @Parameter(description = "Number of the changed revision", required = true) @RequestParam int to) {
+		try {
+			return ResponseEntity.ok(contractService.diffSolidityRevisions(id, from, to));
+		} catch (UnauthorizedAccessException e) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getLocalizedMessage());
+		} catch (ContractNotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getLocalizedMessage());
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getLocalizedMessage());
+		}
+	}
+
+	@Operation(summary = "Restore Solidity revision of contract", description = "Makes an earlier revision the current Solidity code of a not yet deployed contract. Revisions which compiled before are not compiled again.", responses = {@ApiResponse(responseCode = "200", description = "Revision restored and compiled"), @ApiResponse(responseCode = "206", description = "Revision restored, but it does not compile"), @ApiResponse(responseCode = "403", description = "Unauthorized access to contract"), @ApiResponse(responseCode = "404", description = "Contract or revision not found"), @ApiResponse(responseCode = "409", description = "Contract already deployed"), @ApiResponse(responseCode = "500", description = "Internal server error")})
+	@PatchMapping("/restore-revision")
+	public ResponseEntity<String> restoreSolidityRevision(@Parameter(description = "ID of the contract", required = true) @RequestParam String contractId, @Parameter(description = "Revision number to restore", required = true) @RequestParam int number) {
+		try {
+			return contractService.restoreSolidityRevision(contractId, number) == 0 ? ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).body("Solidity revision " + number + " restored, but it does not compile. You can view, edit, or compile it") : ResponseEntity.ok("Solidity revision " + number + " restored, you can deploy it");
+		} catch (UnauthorizedAccessException e) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getLocalizedMessage());
+		} catch (ContractNotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getLocalizedMessage());
+		} catch (ContractAlreadyConfirmedException e) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getLocalizedMessage());
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getLocalizedMessage());
+		}
+	}
+
 	@Operation(summary = "List all contracts for a user", description = "Returns a list of all contracts associated with the current user.", responses = {@ApiResponse(responseCode = "200", description = "Contracts listed successfully"), @ApiResponse(responseCode = "500", description = "Internal server error")})
 	@GetMapping("/list")
 	public ResponseEntity<Either<List<DigitalizedContract>, String>> listUserContracts() {
@@ -78,6 +169,41 @@ public class ContractController {
 		}
 	}
 
+	@Operation(summary = "Seed contract from near-duplicate", description = "Reuses clauses and Solidity code of a near-duplicate contract detected on upload instead of extracting them. Returns reused clauses which differ from the contract text and should be edited.", responses = {@ApiResponse(responseCode = "200", description = "Contract seeded successfully"), @ApiResponse(responseCode = "400", description = "No near-duplicate or clauses already extracted"), @ApiResponse(responseCode = "403", description = "Unauthorized access to contract"), @ApiResponse(responseCode = "404", description = "Contract not found"), @ApiResponse(responseCode = "500", description = "Server error occurred")})
+	@PatchMapping("/seed-from-duplicate")
+	public ResponseEntity<Either<List<String>, String>> seedFromNearDuplicate(@Parameter(description = "ID of the contract to seed", required = true) @RequestParam String contractId) {
+		try {
+			return ResponseEntity.ok(Either.left(contractService.seedFromNearDuplicate(contractId)));
+		} catch (ClausesExtractionException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Either.right(e.getLocalizedMessage()));
+		} catch (UnauthorizedAccessException e) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Either.right(e.getLocalizedMessage()));
+		} catch (ContractNotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Either.right(e.getLocalizedMessage()));
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Either.right(e.getLocalizedMessage()));
+		}
+	}
+
+	@Operation(summary = "Edit legal clauses of contract", description = "Replaces extracted legal clauses of a not yet deployed contract. Only Solidity sections of changed clauses are regenerated afterwards.", responses = {@ApiResponse(responseCode = "204", description = "Clauses edited successfully"), @ApiResponse(responseCode = "400", description = "Empty clauses"), @ApiResponse(responseCode = "403", description = "Unauthorized access to contract"), @ApiResponse(responseCode = "404", description = "Contract not found"), @ApiResponse(responseCode = "409", description = "Contract already deployed"), @ApiResponse(responseCode = "500", description = "Server error occurred")})
+	@PatchMapping("/edit-clauses")
+	public ResponseEntity<String> editClauses(@Parameter(description = "ID of the contract to edit clauses of", required = true) @RequestParam String contractId, @RequestBody @Parameter(description = "Complete list of clauses in document order", required = true) List<String> clauses) {
+		try {
+			contractService.editClauses(contractId, clauses);
+			return ResponseEntity.noContent().build();
+		} catch (ClausesExtractionException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getLocalizedMessage());
+		} catch (UnauthorizedAccessException e) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getLocalizedMessage());
+		} catch (ContractNotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getLocalizedMessage());
+		} catch (ContractAlreadyConfirmedException e) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getLocalizedMessage());
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getLocalizedMessage());
+		}
+	}
+
 	@Operation(summary = "Generate solidity code from contract", description = "Generates Solidity smart contract code from a legal contract.",
 			responses = {
 					@ApiResponse(responseCode = "200", description = "Solidity generated successfully"),
@@ -101,6 +227,53 @@ public class ContractController {
 		}
 	}
 
+	@Operation(summary = "Tune optimizer of compiled contract", description = "Recompiles the Solidity code with several optimizer runs values and keeps the one with the lowest estimated deployment and call gas for the expected number of calls.", responses = {@ApiResponse(responseCode = "200", description = "Optimizer tuned successfully"), @ApiResponse(responseCode = "400", description = "Solidity code not compiled yet or compilation failed"), @ApiResponse(responseCode = "403", description = "Unauthorized access to contract"), @ApiResponse(responseCode = "404", description = "Contract not found"), @ApiResponse(responseCode = "409", description = "Contract already deployed"), @ApiResponse(responseCode = "500", description = "Server error occurred")})
+	@PatchMapping("/tune-optimizer")
+	public ResponseEntity<String> tuneOptimizer(@Parameter(description = "ID of the contract to tune", required = true) @RequestParam String contractId, @Parameter(description = "Expected number of function calls over the contract's lifetime") @RequestParam(defaultValue = "100") long expectedCalls) {
+		try {
+			return ResponseEntity.ok("Contract recompiled with optimizer runs: " + contractService.tuneOptimizer(contractId, expectedCalls).runs());
+		} catch (CompilationException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getLocalizedMessage());
+		} catch (UnauthorizedAccessException e) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getLocalizedMessage());
+		} catch (ContractNotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getLocalizedMessage());
+		} catch (ContractAlreadyConfirmedException e) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getLocalizedMessage());
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getLocalizedMessage());
+		}
+	}
+
+	@Operation(summary = "Queue contracts for batch processing", description = "Queues contracts for offline (batch) clause extraction or Solidity generation. Results are stored on the contracts once the batch completes.", responses = {@ApiResponse(responseCode = "202", description = "Contracts queued successfully"), @ApiResponse(responseCode = "403", description = "Unauthorized access to contract"), @ApiResponse(responseCode = "404", description = "Contract not found"), @ApiResponse(responseCode = "500", description = "Server error occurred")})
+	@PostMapping("/batch")
+	public ResponseEntity<String> queueBatch(@Parameter(description = "Pipeline stage to process in batch", required = true) @RequestParam BatchJobType type, @RequestBody @Parameter(description = "IDs of contracts to process", required = true) List<String> contractIds) {
+		try {
+			return ResponseEntity.status(HttpStatus.ACCEPTED).body("Contracts queued for batch processing (Count: " + batchService.enqueue(contractIds, type) + ")");
+		} catch (UnauthorizedAccessException e) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getLocalizedMessage());
+		} catch (ContractNotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getLocalizedMessage());
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getLocalizedMessage());
+		}
+	}
+
+	@Operation(summary = "Check solidity code compiles", description = "Compiles Solidity code without storing it and returns compiler errors and warnings. Used by the editor while typing, results are served from the compilation cache where possible but never stored there.", responses = {@ApiResponse(responseCode = "200", description = "Compiler diagnostics, empty if the code compiles cleanly"), @ApiResponse(responseCode = "422", description = "Code declares no contracts"), @ApiResponse(responseCode = "503", description = "Compiler unavailable, busy or timed out")})
+	@PostMapping("/compile-check")
+	public ResponseEntity<Either<List<CompilerDiagnostic>, String>> compileCheck(@RequestBody @Parameter(description = "DigitalizedContract object with Solidity source only", required = true) DigitalizedContract digitalizedContract) {
+		try {
+			return ResponseEntity.ok(Either.left(solidityCompilerService.check(digitalizedContract.soliditySource()).warnings()));
+		} catch (CompilerUnavailableException e) {
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Either.right(e.getLocalizedMessage()));
+		} catch (CompilationException e) {
+			if (!e.getDiagnostics().isEmpty()) return ResponseEntity.ok(Either.left(e.getDiagnostics()));
+			return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Either.right(e.getLocalizedMessage())); // E.g. a source without contracts
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Either.right(e.getLocalizedMessage()));
+		}
+	}
+
 	@Operation(summary = "Edit solidity code for contract", description = "Edits prepared Solidity smart contract for a legal contract.", responses = { @ApiResponse(responseCode = "200", description = "Solidity code edited successfully"), @ApiResponse(responseCode = "403", description = "Unauthorized access to contract"), @ApiResponse(responseCode = "404", description = "Contract not found"), @ApiResponse(responseCode = "500", description = "Server error occurred") })
 	@PatchMapping("/edit-solidity")
 	public ResponseEntity<String> editSolidity(@RequestBody @Parameter(description = "DigitalizedContract object with id and updated Solidity source only", required = true) DigitalizedContract updatedDigitalizedContract) {
@@ -1,15 +1,28 @@
 package dev.markodojkic.legalcontractdigitizer.exception;
 
+import dev.markodojkic.legalcontractdigitizer.model.CompilerDiagnostic;
+import lombok.Getter;
+
 import java.io.Serial;
+import java.util.List;
 
 /**
  * Exception thrown when Solidity compilation fails.
  */
+@Getter
 public class CompilationException extends RuntimeException {
 	@Serial
 	private static final long serialVersionUID = 1539818982832302676L;
 
+	/** Structured compiler diagnostics, empty if compilation failed for another reason (e.g. compiler not found). */
+	private final transient List<CompilerDiagnostic> diagnostics;
+
 	public CompilationException(String message) {
+		this(message, List.of());
+	}
+
+	public CompilationException(String message, List<CompilerDiagnostic> diagnostics) {
 		super("Solidity compilation failed:\n" + message);
+		this.diagnostics = diagnostics;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,16 @@
+package dev.markodojkic.legalcontractdigitizer.exception;
+
+import java.io.Serial;
+
+/**
+ * Exception thrown when the Solidity compiler could not compile a source for reasons unrelated to the source,
+ * e.g. because all compiler workers are busy or the compiler timed out or crashed.
+ */
+public class CompilerUnavailableException extends CompilationException {
+	@Serial
+	private static final long serialVersionUID = 6021745839516273904L;
+
+	public CompilerUnavailableException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,16 @@
+package dev.markodojkic.legalcontractdigitizer.exception;
+
+import java.io.Serial;
+
+/**
+ * Exception thrown when a call to an external dependency is rejected without being made,
+ * because its circuit breaker is open or its bulkhead is full.
+ */
+public class DependencyUnavailableException extends RuntimeException {
+	@Serial
+	private static final long serialVersionUID = 4127750893216140571L;
+
+	public DependencyUnavailableException(String message) {
+		super(message);
+	}
+}
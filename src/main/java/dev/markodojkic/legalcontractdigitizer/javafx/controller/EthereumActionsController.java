@@ -48,12 +48,12 @@ import java.util.concurrent.atomic.AtomicReference;
 @Component
 @Slf4j
 public class EthereumActionsController extends WindowAwareController {
-	@FXML private Label contractIdLabel, gasResultLabel, balanceLabel;
+	@FXML private Label contractIdLabel, gasResultLabel, balanceLabel, profileWarningLabel;
 	@FXML private Button estimateGasBtn, estimateGasHelpBtn, deployContractBtn, deployContractHelpBtn, checkConfirmedBtn, checkConfirmedHelpBtn, viewOnBlockchainBtn, viewOnBlockchainHelpBtn, getReceiptBtn, getReceiptHelpBtn;
 	@Setter
 	@FXML private Button mainRefreshBtn;
 	@FXML private TextField transactionHashField;
-	@FXML private TextArea receiptTextArea;
+	@FXML private TextArea receiptTextArea, profileTextArea;
 	@FXML private FlowPane additionalActionButtonPane;
 	private Timeline autoRefreshTimeline;
 
@@ -77,6 +77,7 @@ public class EthereumActionsController extends WindowAwareController {
 		reset();
 		contractIdLabel.setText("Contract ID: " + contract.id());
 		updateButtonsByStatus(contract.status());
+		showProfile(contract.profile());
 		if(contract.status().compareTo(ContractStatus.CONFIRMED) >= 0){
 			refreshBalance();
 			startAutoRefreshBalance();
@@ -123,6 +124,46 @@ public class EthereumActionsController extends WindowAwareController {
 		balanceLabel.setText("Balance: —");
 	}
 
+	private void showProfile(ContractProfile profile) {
+		if (profile == null) {
+			profileTextArea.setText("No compilation profile available, generate or recompile the Solidity code to create one.");
+			return;
+		}
+
+		StringBuilder report = new StringBuilder("Main contract: ").append(profile.contractName()).append('\n');
+		ContractBytecodeSize mainSize = profile.mainContractSize();
+		if (mainSize != null) {
+			report.append(String.format("Runtime size: %,d / %,d bytes (EIP-170)%n", mainSize.runtimeSize(), ContractBytecodeSize.MAX_RUNTIME_SIZE));
+			report.append(String.format("Creation size: %,d / %,d bytes (EIP-3860, without constructor arguments)%n", mainSize.creationSize(), ContractBytecodeSize.MAX_INITCODE_SIZE));
+		}
+		profile.contractSizes().stream().filter(size -> size != mainSize).forEach(size -> report.append(String.format("  %s: runtime %,d bytes%n", size.name(), size.runtimeSize())));
+
+		GasEstimates gasEstimates = profile.gasEstimates();
+		if (gasEstimates != null) {
+			report.append("\nDeployment gas: ").append(formatGas(gasEstimates.creation())).append('\n');
+			gasEstimates.functions().forEach((signature, gas) -> report.append("  ").append(signature.isEmpty() ? "fallback" : signature).append(": ").append(formatGas(gas)).append('\n'));
+		}
+
+		report.append("\nStorage layout:\n");
+		if (profile.storageLayout().isEmpty()) report.append("  no state variables\n");
+		profile.storageLayout().forEach(slot -> report.append(String.format("  slot %s%s: %s (%s, %d bytes)%n", slot.slot(), slot.offset() > 0 ? "+" + slot.offset() : "", slot.label(), slot.type(), slot.bytes())));
+		profileTextArea.setText(report.toString().stripTrailing());
+
+		List<String> violations = profile.sizeViolations(0);
+		if (!violations.isEmpty() && contract.status() == ContractStatus.SOLIDITY_GENERATED) {
+			// Such a deployment would fail on chain after spending its gas
+			profileWarningLabel.setText("⚠ Contract cannot be deployed:\n" + String.join("\n", violations));
+			profileWarningLabel.setManaged(true);
+			profileWarningLabel.setVisible(true);
+			estimateGasBtn.setDisable(true);
+			deployContractBtn.setDisable(true);
+		}
+	}
+
+	private static String formatGas(Long gas) {
+		return gas == null ? "unbounded" : String.format("%,d", gas);
+	}
+
 	private void estimateGas() {
 		promptForAbiParams(contract.abi(), "constructor", true).thenAccept(abiResult -> {
 			try {
@@ -1,16 +1,19 @@
 package dev.markodojkic.legalcontractdigitizer.javafx.controller;
 
+import com.google.common.reflect.TypeToken;
 import dev.markodojkic.legalcontractdigitizer.javafx.WindowLauncher;
+import dev.markodojkic.legalcontractdigitizer.model.CompilerDiagnostic;
 import dev.markodojkic.legalcontractdigitizer.model.DigitalizedContract;
+import dev.markodojkic.legalcontractdigitizer.util.Either;
 import dev.markodojkic.legalcontractdigitizer.util.HttpClientUtil;
+import jakarta.annotation.PreDestroy;
 import javafx.animation.KeyFrame;
+import javafx.animation.PauseTransition;
 import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
-import javafx.scene.control.Button;
-import javafx.scene.control.TextArea;
-import javafx.scene.control.ToggleButton;
+import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
 import javafx.util.Duration;
 import lombok.Setter;
@@ -22,21 +25,35 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 @Component
 @Slf4j
 public class SolidityViewController extends WindowAwareController {
+	private static final long COMPILE_CHECK_DEBOUNCE_MILLIS = 500;
+
 	@Setter
 	private String text;
 
 	@Setter
 	@FXML private Button mainRefreshBtn;
 	@FXML private TextArea textArea;
+	@FXML private Label compileStatusLabel;
+	@FXML private ListView<CompilerDiagnostic> diagnosticsListView;
 
 	@Setter
 	private String contractId;
 
 	private final HttpClientUtil httpClientUtil;
 	private final String baseUrl;
+	private final ExecutorService compileCheckExecutor = Executors.newVirtualThreadPerTaskExecutor();
+	private PauseTransition compileCheckDebounce;
+	private Future<?> runningCompileCheck;
+	private long compileCheckSequence; // Only accessed on the FX thread, results of superseded checks are dropped
+	private String checkedSource;
 
 	@Autowired
 	public SolidityViewController(@Value("${server.port}") Integer serverPort, WindowLauncher windowLauncher, ApplicationContext applicationContext, HttpClientUtil httpClientUtil){
@@ -45,6 +62,11 @@ public class SolidityViewController extends WindowAwareController {
 		this.httpClientUtil = httpClientUtil;
 	}
 
+	@PreDestroy
+	public void shutdown() {
+		compileCheckExecutor.shutdownNow();
+	}
+
 	@FXML
 	private void initialize() {
 		Platform.runLater(() -> {
@@ -53,9 +75,11 @@ public class SolidityViewController extends WindowAwareController {
 			textArea.setFocusTraversable(false);
 
 			if (contractId != null) {
+				initializeCompileCheck();
+
 				final ToggleButton editToggle = new ToggleButton("📝");
 				final Button editToggleHelpButton = new Button("?");
-				editToggleHelpButton.setOnAction(_ -> windowLauncher.launchHelpSpecialWindow("Button left from this help button is toggle button\nWhen on Solidity code is on edit mode, after switching off it gets replaced in database (background blinks green twice if change is successful)"));
+				editToggleHelpButton.setOnAction(_ -> windowLauncher.launchHelpSpecialWindow("Button left from this help button is toggle button\nWhen on Solidity code is on edit mode, after switching off it gets replaced in database (background blinks green twice if change is successful)\nWhile editing, code is compiled in background shortly after typing stops, click on a compiler message to select the affected code"));
 				editToggleHelpButton.getStyleClass().add("btn-help");
 				editToggleHelpButton.setPrefSize(14, 14);
 				editToggleHelpButton.setStyle("-fx-background-color: transparent; -fx-border-color: transparent");
@@ -70,7 +94,12 @@ public class SolidityViewController extends WindowAwareController {
 					boolean editing = editToggle.isSelected();
 					textArea.setEditable(editing);
 					textArea.setFocusTraversable(editing);
-					if (editing) return;
+					setCompileCheckVisible(editing);
+					if (editing) {
+						compileCheckDebounce.playFromStart();
+						return;
+					}
+					compileCheckDebounce.stop();
 					try {
 						ResponseEntity<String> response = httpClientUtil.patch(baseUrl + "/edit-solidity", null, DigitalizedContract.builder().id(contractId).soliditySource(textArea.getText()).build(), String.class);
 
@@ -98,4 +127,95 @@ public class SolidityViewController extends WindowAwareController {
 			}
 		});
 	}
+
+	private void initializeCompileCheck() {
+		compileCheckDebounce = new PauseTransition(Duration.millis(COMPILE_CHECK_DEBOUNCE_MILLIS));
+		compileCheckDebounce.setOnFinished(_ -> runCompileCheck());
+		textArea.textProperty().addListener((_, _, _) -> {
+			if (textArea.isEditable()) compileCheckDebounce.playFromStart();
+		});
+
+		diagnosticsListView.setCellFactory(_ -> new ListCell<>() {
+			@Override
+			protected void updateItem(CompilerDiagnostic diagnostic, boolean empty) {
+				super.updateItem(diagnostic, empty);
+				getStyleClass().removeAll("diagnostic-error", "diagnostic-warning");
+				if (empty || diagnostic == null) {
+					setText(null);
+					return;
+				}
+
+				String line = diagnostic.sourceStart() != null && checkedSource != null ? "Line " + lineOf(checkedSource, charOffset(checkedSource, diagnostic.sourceStart())) + ": " : "";
+				setText(line + (diagnostic.type() != null ? diagnostic.type() + ": " : "") + diagnostic.message());
+				getStyleClass().add(diagnostic.isError() ? "diagnostic-error" : "diagnostic-warning");
+			}
+		});
+
+		// Selecting a message marks the affected source range, as long as the code was not changed since
+		diagnosticsListView.getSelectionModel().selectedItemProperty().addListener((_, _, diagnostic) -> {
+			if (diagnostic == null || diagnostic.sourceStart() == null || !textArea.getText().equals(checkedSource)) return;
+			int start = charOffset(checkedSource, diagnostic.sourceStart());
+			int end = diagnostic.sourceEnd() != null ? charOffset(checkedSource, diagnostic.sourceEnd()) : start;
+			textArea.requestFocus();
+			textArea.selectRange(start, end);
+		});
+	}
+
+	private void setCompileCheckVisible(boolean visible) {
+		compileStatusLabel.setVisible(visible);
+		compileStatusLabel.setManaged(visible);
+		diagnosticsListView.setVisible(visible);
+		diagnosticsListView.setManaged(visible);
+	}
+
+	private void runCompileCheck() {
+		String source = textArea.getText();
+		long sequence = ++compileCheckSequence;
+		if (runningCompileCheck != null) runningCompileCheck.cancel(true); // Superseded by newer edits
+		compileStatusLabel.setText("Compiling...");
+
+		runningCompileCheck = compileCheckExecutor.submit(() -> {
+			try {
+				ResponseEntity<Either<List<CompilerDiagnostic>, String>> response = httpClientUtil.post(baseUrl + "/compile-check", null, DigitalizedContract.builder().soliditySource(source).build(), new TypeToken<Either<List<CompilerDiagnostic>, String>>(){}.getType());
+				Platform.runLater(() -> {
+					if (sequence != compileCheckSequence) return;
+					if (response.getBody() == null) compileStatusLabel.setText("Compilation check failed with no response");
+					else if (response.getBody().left() != null) showDiagnostics(source, response.getBody().left());
+					else compileStatusLabel.setText(response.getBody().right());
+				});
+			} catch (Exception e) {
+				if (Thread.currentThread().isInterrupted()) return;
+				log.debug("Background compilation check failed", e);
+				Platform.runLater(() -> {
+					if (sequence == compileCheckSequence) compileStatusLabel.setText("Compilation check failed: " + e.getLocalizedMessage());
+				});
+			}
+		});
+	}
+
+	private void showDiagnostics(String source, List<CompilerDiagnostic> diagnostics) {
+		checkedSource = source;
+		long errors = diagnostics.stream().filter(CompilerDiagnostic::isError).count();
+		compileStatusLabel.setText(errors > 0 ? "Does not compile (" + errors + " errors, " + (diagnostics.size() - errors) + " warnings)" : "Compiles" + (diagnostics.isEmpty() ? "" : " with " + diagnostics.size() + " warnings"));
+		diagnosticsListView.getItems().setAll(diagnostics);
+	}
+
+	private static int lineOf(String source, int offset) {
+		int line = 1;
+		for (int i = 0; i < offset; i++) if (source.charAt(i) == '\n') line++;
+		return line;
+	}
+
+	/**
+	 * Converts a UTF-8 byte offset reported by solc to a character offset in the source.
+	 */
+	private static int charOffset(String source, int byteOffset) {
+		int bytes = 0, index = 0;
+		while (index < source.length() && bytes < byteOffset) {
+			int codePoint = source.codePointAt(index);
+			bytes += codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+			index += Character.charCount(codePoint);
+		}
+		return index;
+	}
 }
\ No newline at end of file
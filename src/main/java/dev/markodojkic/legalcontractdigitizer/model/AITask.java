@@ -0,0 +1,11 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+/**
+ * Enum representing the kinds of language model requests, used for model routing and metrics.
+ */
+public enum AITask {
+	CLAUSE_EXTRACTION,
+	SOLIDITY_GENERATION,
+	SOLIDITY_SECTION_REGENERATION,
+	SOLIDITY_REPAIR
+}
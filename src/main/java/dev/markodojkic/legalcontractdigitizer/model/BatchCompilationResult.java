@@ -0,0 +1,13 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+import dev.markodojkic.legalcontractdigitizer.exception.CompilationException;
+
+import java.util.Map;
+
+/**
+ * Represents the outcome of compiling several Solidity sources together, split back per source.
+ *
+ * @param compiled Compilation results keyed by the caller supplied source key.
+ * @param failed   Compilation failures keyed by the caller supplied source key.
+ */
+public record BatchCompilationResult(Map<String, CompilationResult> compiled, Map<String, CompilationException> failed) {}
@@ -0,0 +1,9 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+/**
+ * Enum representing pipeline stages which can be processed in offline batch mode.
+ */
+public enum BatchJobType {
+	CLAUSE_EXTRACTION,
+	SOLIDITY_GENERATION
+}
@@ -0,0 +1,10 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+/**
+ * Enum representing the lifecycle state of a submitted AI batch.
+ */
+public enum BatchState {
+	IN_PROGRESS,
+	COMPLETED,
+	FAILED
+}
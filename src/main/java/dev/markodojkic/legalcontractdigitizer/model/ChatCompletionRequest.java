@@ -0,0 +1,47 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provider independent chat completion request.
+ *
+ * @param model          Model identifier to use.
+ * @param systemPrompt   System prompt describing the assistant role.
+ * @param userPrompt     User prompt containing the actual task.
+ * @param temperature    Sampling temperature.
+ * @param maxTokens      Maximum number of completion tokens.
+ * @param responseFormat Optional provider response format (e.g. JSON schema), {@code null} for plain text.
+ */
+public record ChatCompletionRequest(String model, String systemPrompt, String userPrompt, double temperature, int maxTokens, Map<String, Object> responseFormat) {
+
+	/**
+	 * Creates a copy of this request targeting another model.
+	 *
+	 * @param otherModel model identifier to use
+	 * @return request copy
+	 */
+	public ChatCompletionRequest withModel(String otherModel) {
+		return new ChatCompletionRequest(otherModel, systemPrompt, userPrompt, temperature, maxTokens, responseFormat);
+	}
+
+	/**
+	 * Builds the request body in the OpenAI {@code /chat/completions} format, shared by interactive and batch requests.
+	 *
+	 * @return mutable request body map
+	 */
+	public Map<String, Object> toOpenAiRequestBody() {
+		Map<String, Object> body = new HashMap<>(Map.of(
+				"model", model,
+				"temperature", temperature,
+				"max_tokens", maxTokens,
+				"messages", List.of(
+						Map.of("role", "system", "content", systemPrompt),
+						Map.of("role", "user", "content", userPrompt)
+				)
+		));
+		if (responseFormat != null) body.put("response_format", responseFormat);
+		return body;
+	}
+}
@@ -0,0 +1,12 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+/**
+ * Provider independent chat completion response.
+ *
+ * @param content          Text content of the first completion choice.
+ * @param model            Model that produced the completion.
+ * @param promptTokens     Number of prompt tokens reported by the provider.
+ * @param completionTokens Number of completion tokens reported by the provider.
+ * @param finishReason     Reason the completion finished (e.g. {@code stop}, {@code length}).
+ */
+public record ChatCompletionResponse(String content, String model, long promptTokens, long completionTokens, String finishReason) {}
@@ -0,0 +1,19 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+/**
+ * Enum representing clause patterns recognized by the rule-based clause classifier.
+ */
+public enum ClausePattern {
+	/** Fixed upfront payment from client to freelancer. */
+	UPFRONT_PAYMENT,
+	/** Fixed payment after completion is confirmed. */
+	COMPLETION_PAYMENT,
+	/** Confirmation of service completion by one or both parties. */
+	COMPLETION_CONFIRMATION,
+	/** Termination of the agreement. */
+	TERMINATION,
+	/** Legal clause without on-chain logic (e.g. governing law, confidentiality). */
+	NON_EXECUTABLE,
+	/** Clause not covered by any template. */
+	UNKNOWN
+}
@@ -0,0 +1,118 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+import dev.markodojkic.legalcontractdigitizer.util.HashUtil;
+
+import java.util.*;
+
+/**
+ * Extracted legal clause with a stable identifier, used to map clauses to generated Solidity sections.
+ *
+ * @param id   Stable clause identifier (e.g. {@code c3}), kept while the clause is edited in place.
+ * @param hash SHA-256 hash of the whitespace normalized clause text.
+ * @param text Clause text.
+ */
+public record ClauseRecord(String id, String hash, String text) {
+
+	private static final String ID_PREFIX = "c";
+
+	/**
+	 * Creates a clause record, computing the content hash.
+	 *
+	 * @param id   clause identifier
+	 * @param text clause text
+	 * @return clause record
+	 */
+	public static ClauseRecord of(String id, String text) {
+		return new ClauseRecord(id, HashUtil.sha256Hex(text.strip().replaceAll("\\s+", " ")), text);
+	}
+
+	/**
+	 * Assigns identifiers to a new list of clause texts, keeping identifiers of previous clauses.
+	 * Unchanged clauses keep their identifier wherever they moved, edited clauses keep the identifier
+	 * of the previous clause at the same position and all others get new identifiers.
+	 *
+	 * @param previous previous clause records, {@code null} or empty if there are none
+	 * @param texts    new clause texts in document order
+	 * @return clause records in the order of {@code texts}
+	 */
+	public static List<ClauseRecord> reconcile(List<ClauseRecord> previous, List<String> texts) {
+		List<ClauseRecord> previousRecords = previous == null ? List.of() : previous;
+		List<ClauseRecord> candidates = texts.stream().map(text -> of(null, text)).toList();
+		String[] ids = new String[texts.size()];
+		Set<String> usedIds = new HashSet<>();
+
+		Map<String, Deque<ClauseRecord>> previousByHash = new HashMap<>();
+		previousRecords.forEach(clauseRecord -> previousByHash.computeIfAbsent(clauseRecord.hash(), _ -> new ArrayDeque<>()).addLast(clauseRecord));
+
+		for (int i = 0; i < candidates.size(); i++) {
+			Deque<ClauseRecord> sameContent = previousByHash.get(candidates.get(i).hash());
+			if (sameContent != null && !sameContent.isEmpty()) {
+				ids[i] = sameContent.pollFirst().id();
+				usedIds.add(ids[i]);
+			}
+		}
+
+		int nextNumber = previousRecords.stream().mapToInt(clauseRecord -> parseNumber(clauseRecord.id())).max().orElse(0) + 1;
+		for (int i = 0; i < candidates.size(); i++) {
+			if (ids[i] != null) continue;
+			String positionalId = i < previousRecords.size() ? previousRecords.get(i).id() : null;
+			ids[i] = positionalId != null && usedIds.add(positionalId) ? positionalId : ID_PREFIX + nextNumber++;
+		}
+
+		List<ClauseRecord> records = new ArrayList<>(candidates.size());
+		for (int i = 0; i < candidates.size(); i++) records.add(new ClauseRecord(ids[i], candidates.get(i).hash(), texts.get(i)));
+		return records;
+	}
+
+	/**
+	 * Converts this record to a Firestore compatible map.
+	 *
+	 * @return map representation
+	 */
+	public Map<String, Object> toMap() {
+		return Map.of("id", id, "hash", hash, "text", text);
+	}
+
+	/**
+	 * Reads a record from its Firestore map representation.
+	 *
+	 * @param map map representation
+	 * @return clause record
+	 */
+	public static ClauseRecord fromMap(Map<String, Object> map) {
+		return new ClauseRecord((String) map.get("id"), (String) map.get("hash"), (String) map.get("text"));
+	}
+
+	/**
+	 * Reads stored clause records, falling back to sequential identifiers for contracts whose clauses
+	 * were extracted before clause records were stored.
+	 *
+	 * @param stored   stored clause records in map representation, may be {@code null}
+	 * @param clauses  stored clause texts, may be {@code null}
+	 * @return clause records, empty if there are no clauses
+	 */
+	public static List<ClauseRecord> fromStored(List<Map<String, Object>> stored, List<String> clauses) {
+		if (stored != null && !stored.isEmpty()) return stored.stream().map(ClauseRecord::fromMap).toList();
+		return clauses == null ? List.of() : reconcile(null, clauses);
+	}
+
+	/**
+	 * Maps clause IDs to content hashes.
+	 *
+	 * @param clauses clause records
+	 * @return content hashes by clause ID
+	 */
+	public static Map<String, String> toHashes(List<ClauseRecord> clauses) {
+		Map<String, String> hashes = new HashMap<>();
+		clauses.forEach(clauseRecord -> hashes.put(clauseRecord.id(), clauseRecord.hash()));
+		return hashes;
+	}
+
+	private static int parseNumber(String id) {
+		try {
+			return id != null && id.startsWith(ID_PREFIX) ? Integer.parseInt(id.substring(ID_PREFIX.length())) : 0;
+		} catch (NumberFormatException _) {
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+import lombok.Getter;
+
+/**
+ * Enum representing predefined Solidity optimizer profiles.
+ */
+@Getter
+public enum CompilationProfile {
+	UNOPTIMIZED(new OptimizerSettings(false, 200)),
+	DEPLOYMENT(new OptimizerSettings(true, 1)),
+	BALANCED(new OptimizerSettings(true, 200)),
+	FREQUENT_CALLS(new OptimizerSettings(true, 10000));
+
+	private final OptimizerSettings optimizerSettings;
+
+	CompilationProfile(OptimizerSettings optimizerSettings) {
+		this.optimizerSettings = optimizerSettings;
+	}
+}
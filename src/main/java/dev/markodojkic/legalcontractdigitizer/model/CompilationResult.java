@@ -1,9 +1,40 @@
 package dev.markodojkic.legalcontractdigitizer.model;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Represents the result of a smart contract compilation.
  *
- * @param bin The compiled contract bytecode (binary).
- * @param abi The contract's Application Binary Interface (ABI).
+ * @param bin       The compiled contract bytecode (binary).
+ * @param abi       The contract's Application Binary Interface (ABI).
+ * @param warnings  Non-error diagnostics (warnings and infos) reported by the compiler.
+ * @param optimizer Optimizer settings the contract was compiled with.
+ * @param profile   Bytecode sizes, gas estimates and storage layout of the compiled contract, {@code null} if not reported.
  */
-public record CompilationResult(String bin, String abi) { }
\ No newline at end of file
+public record CompilationResult(String bin, String abi, List<CompilerDiagnostic> warnings, OptimizerSettings optimizer, ContractProfile profile) {
+
+	public CompilationResult(String bin, String abi) {
+		this(bin, abi, List.of(), null, null);
+	}
+
+	/**
+	 * @return static gas estimates of the compiled contract, {@code null} if not reported
+	 */
+	public GasEstimates gasEstimates() {
+		return profile == null ? null : profile.gasEstimates();
+	}
+
+	/**
+	 * Converts the compiled artifacts to Firestore contract fields.
+	 *
+	 * @return binary, ABI, optimizer settings and contract profile
+	 */
+	public Map<String, Object> toContractFields() {
+		Map<String, Object> fields = new HashMap<>(Map.of("binary", bin, "abi", abi));
+		if (optimizer != null) fields.put("optimizer", optimizer.toMap());
+		if (profile != null) fields.put("profile", profile.toMap());
+		return fields;
+	}
+}
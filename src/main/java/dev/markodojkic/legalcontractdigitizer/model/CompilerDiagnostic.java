@@ -0,0 +1,18 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+/**
+ * Represents an error, warning or info message reported by the Solidity compiler.
+ *
+ * @param severity         Severity reported by the compiler: {@code error}, {@code warning} or {@code info}.
+ * @param type             Diagnostic type, e.g. {@code ParserError}, {@code TypeError} or {@code Warning}.
+ * @param message          Short message.
+ * @param formattedMessage Message including source location and code excerpt.
+ * @param sourceStart      Start offset of the affected source range, or {@code null} if unknown.
+ * @param sourceEnd        End offset of the affected source range, or {@code null} if unknown.
+ */
+public record CompilerDiagnostic(String severity, String type, String message, String formattedMessage, Integer sourceStart, Integer sourceEnd) {
+
+	public boolean isError() {
+		return "error".equalsIgnoreCase(severity);
+	}
+}
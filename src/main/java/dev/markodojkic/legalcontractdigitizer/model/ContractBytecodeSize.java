@@ -0,0 +1,53 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+import java.util.Map;
+
+/**
+ * Represents the bytecode sizes of a contract in a compilation output.
+ *
+ * @param name         Contract name.
+ * @param creationSize Size of the creation (deployment) bytecode in bytes, {@code 0} for interfaces and abstract contracts.
+ * @param runtimeSize  Size of the runtime bytecode stored on chain in bytes.
+ */
+public record ContractBytecodeSize(String name, int creationSize, int runtimeSize) {
+
+	/** Maximum runtime bytecode size of a deployed contract (EIP-170). */
+	public static final int MAX_RUNTIME_SIZE = 24_576;
+
+	/** Maximum size of the creation bytecode including constructor arguments (EIP-3860). */
+	public static final int MAX_INITCODE_SIZE = 2 * MAX_RUNTIME_SIZE;
+
+	/**
+	 * @return whether the runtime bytecode is too large to be deployed
+	 */
+	public boolean exceedsRuntimeLimit() {
+		return runtimeSize > MAX_RUNTIME_SIZE;
+	}
+
+	/**
+	 * @param constructorArgumentsSize size of the ABI encoded constructor arguments in bytes
+	 * @return whether the creation bytecode with the given constructor arguments is too large to be deployed
+	 */
+	public boolean exceedsInitcodeLimit(int constructorArgumentsSize) {
+		return creationSize + constructorArgumentsSize > MAX_INITCODE_SIZE;
+	}
+
+	/**
+	 * Converts this record to a Firestore compatible map.
+	 *
+	 * @return map representation
+	 */
+	public Map<String, Object> toMap() {
+		return Map.of("name", name, "creationSize", creationSize, "runtimeSize", runtimeSize);
+	}
+
+	/**
+	 * Reads sizes from their Firestore map representation.
+	 *
+	 * @param map map representation
+	 * @return bytecode sizes
+	 */
+	public static ContractBytecodeSize fromMap(Map<String, Object> map) {
+		return new ContractBytecodeSize((String) map.get("name"), ((Number) map.get("creationSize")).intValue(), ((Number) map.get("runtimeSize")).intValue());
+	}
+}
@@ -0,0 +1,18 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+import java.util.List;
+
+/**
+ * Represents a top-level contract, interface or library declared in a Solidity source.
+ *
+ * @param name                  Declared name.
+ * @param kind                  {@code contract}, {@code abstract contract}, {@code interface} or {@code library}.
+ * @param bases                 Names of inherited contracts in declaration order.
+ * @param constructorParameters Whitespace normalized constructor parameter list, {@code null} if no constructor is declared.
+ */
+public record ContractDeclaration(String name, String kind, List<String> bases, String constructorParameters) {
+
+	public boolean isDeployable() {
+		return "contract".equals(kind);
+	}
+}
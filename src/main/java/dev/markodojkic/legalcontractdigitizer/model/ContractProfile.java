@@ -0,0 +1,71 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cost profile of a compiled contract, known before it is deployed.
+ *
+ * @param contractName  Name of the main contract which is deployed.
+ * @param contractSizes Bytecode sizes of all contracts in the source.
+ * @param gasEstimates  Static gas estimates of the main contract's deployment and external functions, {@code null} if not reported.
+ * @param storageLayout State variables of the main contract, including inherited ones, in slot order.
+ */
+public record ContractProfile(String contractName, List<ContractBytecodeSize> contractSizes, GasEstimates gasEstimates, List<StorageSlot> storageLayout) {
+
+	/**
+	 * @return bytecode sizes of the main contract, or {@code null} if not reported
+	 */
+	public ContractBytecodeSize mainContractSize() {
+		return contractSizes == null ? null : contractSizes.stream().filter(size -> size.name().equals(contractName)).findFirst().orElse(null);
+	}
+
+	/**
+	 * Describes why the main contract cannot be deployed because of its size.
+	 *
+	 * @param constructorArgumentsSize size of the ABI encoded constructor arguments in bytes, {@code 0} if not known yet
+	 * @return exceeded EIP-170 and EIP-3860 limits, empty if the contract fits
+	 */
+	public List<String> sizeViolations(int constructorArgumentsSize) {
+		ContractBytecodeSize size = mainContractSize();
+		List<String> violations = new ArrayList<>();
+		if (size == null) return violations;
+
+		if (size.exceedsRuntimeLimit()) violations.add(String.format("Runtime bytecode of %s is %,d bytes, exceeding the EIP-170 limit of %,d bytes", contractName, size.runtimeSize(), ContractBytecodeSize.MAX_RUNTIME_SIZE));
+		if (size.exceedsInitcodeLimit(constructorArgumentsSize)) violations.add(String.format("Creation bytecode of %s is %,d bytes, exceeding the EIP-3860 limit of %,d bytes", contractName, size.creationSize() + constructorArgumentsSize, ContractBytecodeSize.MAX_INITCODE_SIZE));
+		return violations;
+	}
+
+	/**
+	 * Converts this profile to a Firestore compatible map.
+	 *
+	 * @return map representation
+	 */
+	public Map<String, Object> toMap() {
+		Map<String, Object> map = new HashMap<>();
+		map.put("contractName", contractName);
+		map.put("contractSizes", contractSizes.stream().map(ContractBytecodeSize::toMap).toList());
+		map.put("gasEstimates", gasEstimates == null ? null : gasEstimates.toMap());
+		map.put("storageLayout", storageLayout.stream().map(StorageSlot::toMap).toList());
+		return map;
+	}
+
+	/**
+	 * Reads a profile from its Firestore map representation.
+	 *
+	 * @param map map representation, may be {@code null}
+	 * @return contract profile, or {@code null} if none is stored
+	 */
+	@SuppressWarnings("unchecked")
+	public static ContractProfile fromMap(Map<String, Object> map) {
+		if (map == null) return null;
+		return new ContractProfile(
+				(String) map.get("contractName"),
+				((List<Map<String, Object>>) map.getOrDefault("contractSizes", List.of())).stream().map(ContractBytecodeSize::fromMap).toList(),
+				GasEstimates.fromMap((Map<String, Object>) map.get("gasEstimates")),
+				((List<Map<String, Object>>) map.getOrDefault("storageLayout", List.of())).stream().map(StorageSlot::fromMap).toList()
+		);
+	}
+}
@@ -17,6 +17,7 @@ import java.util.List;
  * @param binary          (Ignored in JSON) Compiled contract binary.
  * @param abi             ABI definition of the contract.
  * @param deployedAddress Ethereum address where the contract is deployed.
+ * @param profile         Bytecode sizes, gas estimates and storage layout of the compiled contract.
  */
 @Builder
 public record DigitalizedContract(
@@ -28,5 +29,6 @@ public record DigitalizedContract(
 		String soliditySource,
 		@JsonIgnore String binary,
 		String abi,
-		String deployedAddress
+		String deployedAddress,
+		ContractProfile profile
 ) {}
\ No newline at end of file
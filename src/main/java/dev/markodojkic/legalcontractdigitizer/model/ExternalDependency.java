@@ -0,0 +1,22 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+import lombok.Getter;
+
+/**
+ * Enum representing external systems the application depends on, each isolated by its own circuit breaker and bulkhead
+ * whose instance name is configured under {@code resilience4j} in {@code application.yaml}.
+ */
+@Getter
+public enum ExternalDependency {
+	OPENAI("openai", "OpenAI"),
+	FIRESTORE("firestore", "Firestore"),
+	ETHEREUM("ethereum", "Ethereum RPC");
+
+	private final String instanceName;
+	private final String displayName;
+
+	ExternalDependency(String instanceName, String displayName) {
+		this.instanceName = instanceName;
+		this.displayName = displayName;
+	}
+}
@@ -0,0 +1,53 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Static gas estimates reported by the Solidity compiler.
+ *
+ * @param creation  Estimated total deployment cost, or {@code null} if unbounded.
+ * @param functions Estimated execution cost of each external function keyed by signature, {@code null} values are unbounded.
+ */
+public record GasEstimates(Long creation, Map<String, Long> functions) {
+
+	/**
+	 * Estimates the gas spent over the contract's lifetime, assuming calls are evenly spread over the bounded functions.
+	 *
+	 * @param expectedCalls expected number of function calls after deployment
+	 * @return estimated lifetime gas, or {@link Long#MAX_VALUE} if the deployment cost is unbounded
+	 */
+	public long lifetimeCost(long expectedCalls) {
+		if (creation == null) return Long.MAX_VALUE;
+		double averageCall = functions == null ? 0 : functions.values().stream().filter(Objects::nonNull).mapToLong(Long::longValue).average().orElse(0);
+		return creation + Math.round(averageCall * expectedCalls);
+	}
+
+	/**
+	 * Converts these estimates to a Firestore compatible map, unbounded estimates are stored as {@code null}.
+	 *
+	 * @return map representation
+	 */
+	public Map<String, Object> toMap() {
+		Map<String, Object> map = new HashMap<>();
+		map.put("creation", creation);
+		map.put("functions", functions == null ? Map.of() : new LinkedHashMap<>(functions));
+		return map;
+	}
+
+	/**
+	 * Reads estimates from their Firestore map representation.
+	 *
+	 * @param map map representation, may be {@code null}
+	 * @return gas estimates, or {@code null} if none are stored
+	 */
+	@SuppressWarnings("unchecked")
+	public static GasEstimates fromMap(Map<String, Object> map) {
+		if (map == null) return null;
+		Map<String, Long> functions = new LinkedHashMap<>();
+		((Map<String, Object>) map.getOrDefault("functions", Map.of())).forEach((signature, gas) -> functions.put(signature, gas == null ? null : ((Number) gas).longValue()));
+		return new GasEstimates(map.get("creation") == null ? null : ((Number) map.get("creation")).longValue(), functions);
+	}
+}
@@ -0,0 +1,9 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+/**
+ * Represents generated Solidity source code, optionally already compiled.
+ *
+ * @param source            Generated Solidity source code.
+ * @param compilationResult Compilation result if the source was compiled successfully during generation, otherwise {@code null}.
+ */
+public record GeneratedSolidity(String source, CompilationResult compilationResult) {}
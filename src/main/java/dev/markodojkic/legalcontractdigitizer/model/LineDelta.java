@@ -0,0 +1,34 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents a replaced range of lines between two texts.
+ *
+ * @param start    Index of the first replaced line in the original text.
+ * @param deleted  Number of original lines removed at {@code start}.
+ * @param inserted Lines inserted in their place.
+ */
+public record LineDelta(int start, int deleted, List<String> inserted) {
+
+	/**
+	 * Converts this delta to a Firestore compatible map.
+	 *
+	 * @return map representation
+	 */
+	public Map<String, Object> toMap() {
+		return Map.of("start", start, "deleted", deleted, "inserted", inserted);
+	}
+
+	/**
+	 * Reads a delta from its Firestore map representation.
+	 *
+	 * @param map map representation
+	 * @return line delta
+	 */
+	@SuppressWarnings("unchecked")
+	public static LineDelta fromMap(Map<String, Object> map) {
+		return new LineDelta(((Number) map.get("start")).intValue(), ((Number) map.get("deleted")).intValue(), (List<String>) map.get("inserted"));
+	}
+}
@@ -0,0 +1,9 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+/**
+ * Enum representing language model tiers, ordered from cheapest to most capable.
+ */
+public enum ModelTier {
+	ECONOMY,
+	STANDARD
+}
@@ -0,0 +1,9 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+/**
+ * Represents the closest near-duplicate of a contract among previously uploaded contracts of the same user.
+ *
+ * @param contractId ID of the near-duplicate contract.
+ * @param similarity Estimated Jaccard similarity of the normalized contract texts, between 0 and 1.
+ */
+public record NearDuplicateMatch(String contractId, double similarity) {}
@@ -0,0 +1,33 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+import java.util.Map;
+
+/**
+ * Solidity optimizer settings used for a compilation.
+ *
+ * @param enabled Whether the optimizer is enabled.
+ * @param runs    Expected number of executions of each opcode over the contract's lifetime, lower values favour cheaper
+ *                deployment and higher values cheaper calls.
+ */
+public record OptimizerSettings(boolean enabled, int runs) {
+
+	/**
+	 * Converts these settings to a Firestore compatible map.
+	 *
+	 * @return map representation
+	 */
+	public Map<String, Object> toMap() {
+		return Map.of("enabled", enabled, "runs", runs);
+	}
+
+	/**
+	 * Reads settings from their Firestore map representation.
+	 *
+	 * @param map map representation, may be {@code null}
+	 * @return optimizer settings, or {@code null} if none are stored
+	 */
+	public static OptimizerSettings fromMap(Map<String, Object> map) {
+		if (map == null) return null;
+		return new OptimizerSettings(Boolean.TRUE.equals(map.get("enabled")), ((Number) map.getOrDefault("runs", 200)).intValue());
+	}
+}
@@ -0,0 +1,31 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+import java.util.Map;
+
+/**
+ * Represents a recorded request/response pair of an external API (OpenAI or Ethereum JSON-RPC), used to replay
+ * the pipeline without network access.
+ *
+ * @param channel         Recorded client, e.g. {@code openai} or {@code ethereum}.
+ * @param method          HTTP method of the request.
+ * @param endpoint        Request path (without host and credentials), empty for single endpoint APIs such as JSON-RPC.
+ * @param requestHash     SHA-256 hash of the normalized request body, used to match requests on replay.
+ * @param requestBody     Request body as sent.
+ * @param status          HTTP status code of the response.
+ * @param responseHeaders Response headers (first value per header).
+ * @param responseBody    Response body.
+ * @param latencyMillis   Time from sending the request until the complete response was received.
+ * @param recordedAt      Epoch millis when the exchange was recorded.
+ */
+public record RecordedExchange(
+		String channel,
+		String method,
+		String endpoint,
+		String requestHash,
+		String requestBody,
+		int status,
+		Map<String, String> responseHeaders,
+		String responseBody,
+		long latencyMillis,
+		long recordedAt
+) {}
@@ -0,0 +1,12 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+/**
+ * Enum representing how a Solidity revision was produced.
+ */
+public enum RevisionOrigin {
+	GENERATED,
+	REPAIRED,
+	EDITED,
+	SEEDED,
+	RESTORED
+}
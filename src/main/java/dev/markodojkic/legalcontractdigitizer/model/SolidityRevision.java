@@ -0,0 +1,13 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+/**
+ * Represents a stored revision of a contract's Solidity source.
+ *
+ * @param number    Sequential revision number, starting at 1.
+ * @param hash      SHA-256 hash of the source, the same key the compilation cache uses.
+ * @param origin    How the revision was produced.
+ * @param createdAt Creation time in epoch milliseconds.
+ * @param lines     Number of source lines.
+ * @param snapshot  Whether the full source is stored, otherwise only the delta against the previous revision.
+ */
+public record SolidityRevision(int number, String hash, RevisionOrigin origin, long createdAt, int lines, boolean snapshot) {}
@@ -0,0 +1,17 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+import java.util.List;
+
+/**
+ * Represents the structure of a Solidity source as found by the local pre-check, without compiling it.
+ *
+ * @param pragmaVersion Version requirement of the {@code pragma solidity} directive, {@code null} if missing.
+ * @param contracts     Top-level contracts, interfaces and libraries in source order.
+ * @param problems      Structural errors and warnings, offsets are UTF-8 byte offsets as reported by the compiler.
+ */
+public record SolidityStructure(String pragmaVersion, List<ContractDeclaration> contracts, List<CompilerDiagnostic> problems) {
+
+	public List<CompilerDiagnostic> errors() {
+		return problems.stream().filter(CompilerDiagnostic::isError).toList();
+	}
+}
@@ -0,0 +1,34 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+import java.util.Map;
+
+/**
+ * Represents a state variable in the storage layout reported by the Solidity compiler.
+ *
+ * @param label  State variable name.
+ * @param type   Solidity type of the variable, e.g. {@code mapping(address => uint256)}.
+ * @param slot   Storage slot the variable starts at, as a decimal string.
+ * @param offset Byte offset within the slot, non-zero for variables packed with others.
+ * @param bytes  Number of bytes the variable occupies.
+ */
+public record StorageSlot(String label, String type, String slot, int offset, int bytes) {
+
+	/**
+	 * Converts this record to a Firestore compatible map.
+	 *
+	 * @return map representation
+	 */
+	public Map<String, Object> toMap() {
+		return Map.of("label", label, "type", type, "slot", slot, "offset", offset, "bytes", bytes);
+	}
+
+	/**
+	 * Reads a state variable from its Firestore map representation.
+	 *
+	 * @param map map representation
+	 * @return storage slot
+	 */
+	public static StorageSlot fromMap(Map<String, Object> map) {
+		return new StorageSlot((String) map.get("label"), (String) map.get("type"), (String) map.get("slot"), ((Number) map.get("offset")).intValue(), ((Number) map.get("bytes")).intValue());
+	}
+}
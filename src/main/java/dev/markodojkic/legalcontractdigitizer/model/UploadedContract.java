@@ -0,0 +1,9 @@
+package dev.markodojkic.legalcontractdigitizer.model;
+
+/**
+ * Represents a newly uploaded contract together with the near-duplicate detected on upload.
+ *
+ * @param contractId    Unique identifier of the uploaded contract.
+ * @param nearDuplicate Closest near-duplicate among the user's previously uploaded contracts, or {@code null} if none was found.
+ */
+public record UploadedContract(String contractId, NearDuplicateMatch nearDuplicate) {}
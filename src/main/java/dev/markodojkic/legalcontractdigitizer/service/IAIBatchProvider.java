@@ -0,0 +1,42 @@
+package dev.markodojkic.legalcontractdigitizer.service;
+
+import dev.markodojkic.legalcontractdigitizer.model.BatchState;
+import dev.markodojkic.legalcontractdigitizer.model.ChatCompletionResponse;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Service provider interface for batch-style LLM backends which accept a JSONL file of
+ * OpenAI formatted {@code /v1/chat/completions} requests and complete them asynchronously.
+ */
+public interface IAIBatchProvider {
+
+	/**
+	 * Submits a JSONL batch file, where each line contains {@code custom_id}, {@code method}, {@code url} and {@code body}.
+	 *
+	 * @param batchFile path of the JSONL batch file
+	 * @return provider assigned batch identifier
+	 * @throws IOException if the file cannot be read or submitted
+	 */
+	String submit(Path batchFile) throws IOException;
+
+	/**
+	 * Polls the state of a previously submitted batch.
+	 *
+	 * @param batchId provider assigned batch identifier
+	 * @return current batch state
+	 * @throws IOException if the provider cannot be reached
+	 */
+	BatchState poll(String batchId) throws IOException;
+
+	/**
+	 * Fetches the results of a completed batch. Failed requests are omitted.
+	 *
+	 * @param batchId provider assigned batch identifier
+	 * @return map of {@code custom_id} to completion response
+	 * @throws IOException if the results cannot be retrieved
+	 */
+	Map<String, ChatCompletionResponse> fetchResults(String batchId) throws IOException;
+}
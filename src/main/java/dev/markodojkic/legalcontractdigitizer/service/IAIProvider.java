@@ -0,0 +1,38 @@
+package dev.markodojkic.legalcontractdigitizer.service;
+
+import dev.markodojkic.legalcontractdigitizer.model.ChatCompletionRequest;
+import dev.markodojkic.legalcontractdigitizer.model.ChatCompletionResponse;
+import org.apache.hc.client5.http.impl.classic.RequestFailedException;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+/**
+ * Service provider interface for large language model backends used by {@link IAIService}.
+ */
+public interface IAIProvider {
+
+	/**
+	 * Sends a chat completion request to the provider.
+	 *
+	 * @param request provider independent completion request
+	 * @return completion response
+	 * @throws WebClientResponseException if the provider responds with a non-retryable error
+	 * @throws RequestFailedException if the request fails unexpectedly
+	 * @throws ConnectionRequestTimeoutException if no valid response was received within the retry budget
+	 */
+	default ChatCompletionResponse complete(ChatCompletionRequest request) throws WebClientResponseException, RequestFailedException, ConnectionRequestTimeoutException {
+		return complete(request, false);
+	}
+
+	/**
+	 * Sends a chat completion request to the provider with the given priority.
+	 *
+	 * @param request    provider independent completion request
+	 * @param background whether the request is background (batch) work which must yield to interactive traffic
+	 * @return completion response
+	 * @throws WebClientResponseException if the provider responds with a non-retryable error
+	 * @throws RequestFailedException if the request fails unexpectedly
+	 * @throws ConnectionRequestTimeoutException if no valid response was received within the retry budget
+	 */
+	ChatCompletionResponse complete(ChatCompletionRequest request, boolean background) throws WebClientResponseException, RequestFailedException, ConnectionRequestTimeoutException;
+}
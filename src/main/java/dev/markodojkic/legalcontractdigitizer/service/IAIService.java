@@ -1,11 +1,14 @@
 package dev.markodojkic.legalcontractdigitizer.service;
 
 import dev.markodojkic.legalcontractdigitizer.exception.ClausesExtractionException;
+import dev.markodojkic.legalcontractdigitizer.model.ChatCompletionRequest;
+import dev.markodojkic.legalcontractdigitizer.model.ClauseRecord;
 import org.apache.hc.client5.http.impl.classic.RequestFailedException;
 import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service interface for AI-related operations such as clause extraction and Solidity contract generation.
@@ -23,6 +26,7 @@ public interface IAIService {
 
 	/**
 	 * Generates Solidity contract code based on the provided clauses.
+	 * Code implementing each clause is wrapped in clause section markers.
 	 *
 	 * @param clauses the list of clauses to convert into Solidity code
 	 * @return the generated Solidity contract code as a string
@@ -30,5 +34,63 @@ public interface IAIService {
 	 * @throws RequestFailedException if the request fails unexpectedly
 	 * @throws ConnectionRequestTimeoutException if the request times out
 	 */
-	String generateSolidityContract(List<String> clauses) throws WebClientResponseException, RequestFailedException, ConnectionRequestTimeoutException;
+	String generateSolidityContract(List<ClauseRecord> clauses) throws WebClientResponseException, RequestFailedException, ConnectionRequestTimeoutException;
+
+	/**
+	 * Regenerates only the Solidity sections of the given (new or changed) clauses.
+	 *
+	 * @param contractOutline outline of the current contract (declarations only)
+	 * @param clauses         new or changed clauses to regenerate sections for
+	 * @param currentSections current sections of the changed clauses by clause ID, if any
+	 * @return regenerated sections (including marker lines) by clause ID
+	 * @throws WebClientResponseException if the web client call fails with an error response
+	 * @throws RequestFailedException if the request fails unexpectedly
+	 * @throws ConnectionRequestTimeoutException if the request times out
+	 */
+	Map<String, String> regenerateSoliditySections(String contractOutline, List<ClauseRecord> clauses, Map<String, String> currentSections) throws WebClientResponseException, RequestFailedException, ConnectionRequestTimeoutException;
+
+	/**
+	 * Asks the model to fix Solidity code rejected by the compiler.
+	 *
+	 * @param soliditySource      Solidity code which failed to compile
+	 * @param compilerDiagnostics compiler error output
+	 * @return repaired Solidity contract code
+	 * @throws WebClientResponseException if the web client call fails with an error response
+	 * @throws RequestFailedException if the request fails unexpectedly
+	 * @throws ConnectionRequestTimeoutException if the request times out
+	 */
+	String repairSolidityContract(String soliditySource, String compilerDiagnostics) throws WebClientResponseException, RequestFailedException, ConnectionRequestTimeoutException;
+
+	/**
+	 * Builds the completion request used for clause extraction, without sending it.
+	 *
+	 * @param contractText the raw text of the contract to analyze
+	 * @return provider independent completion request
+	 */
+	ChatCompletionRequest buildClauseExtractionRequest(String contractText);
+
+	/**
+	 * Builds the completion request used for Solidity generation, without sending it.
+	 *
+	 * @param clauses the list of clauses to convert into Solidity code
+	 * @return provider independent completion request
+	 */
+	ChatCompletionRequest buildSolidityGenerationRequest(List<ClauseRecord> clauses);
+
+	/**
+	 * Parses the model output of a clause extraction request.
+	 *
+	 * @param content raw completion content
+	 * @return list of extracted clauses
+	 * @throws ClausesExtractionException if the content cannot be parsed
+	 */
+	List<String> parseClauses(String content) throws ClausesExtractionException;
+
+	/**
+	 * Removes markdown formatting from the model output of a Solidity generation request.
+	 *
+	 * @param rawCode raw completion content
+	 * @return sanitized Solidity source code
+	 */
+	String sanitizeSolidity(String rawCode);
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package dev.markodojkic.legalcontractdigitizer.service;
+
+import dev.markodojkic.legalcontractdigitizer.exception.ContractNotFoundException;
+import dev.markodojkic.legalcontractdigitizer.exception.ContractReadException;
+import dev.markodojkic.legalcontractdigitizer.exception.UnauthorizedAccessException;
+import dev.markodojkic.legalcontractdigitizer.model.BatchJobType;
+
+import java.util.List;
+
+/**
+ * Service interface for offline batch processing of pipeline stages (e.g. overnight backfills),
+ * trading latency for lower cost and keeping the live rate limit free for interactive traffic.
+ */
+public interface IBatchService {
+
+	/**
+	 * Queues the given contracts for batch processing of the given stage.
+	 * Contracts which already completed the stage, or are not ready for it, are skipped.
+	 *
+	 * @param contractIds IDs of contracts owned by the current user
+	 * @param type        pipeline stage to process
+	 * @return number of queued contracts
+	 * @throws ContractNotFoundException if a contract is not found
+	 * @throws UnauthorizedAccessException if the caller is unauthorized to access a contract
+	 * @throws ContractReadException if reading contract data fails
+	 */
+	int enqueue(List<String> contractIds, BatchJobType type) throws ContractNotFoundException, UnauthorizedAccessException, ContractReadException;
+}
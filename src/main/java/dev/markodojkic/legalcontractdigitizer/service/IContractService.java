@@ -3,6 +3,9 @@ package dev.markodojkic.legalcontractdigitizer.service;
 import dev.markodojkic.legalcontractdigitizer.model.GasEstimateResponseDTO;
 import dev.markodojkic.legalcontractdigitizer.model.ContractStatus;
 import dev.markodojkic.legalcontractdigitizer.model.DigitalizedContract;
+import dev.markodojkic.legalcontractdigitizer.model.UploadedContract;
+import dev.markodojkic.legalcontractdigitizer.model.OptimizerSettings;
+import dev.markodojkic.legalcontractdigitizer.model.SolidityRevision;
 import dev.markodojkic.legalcontractdigitizer.exception.*;
 import org.web3j.crypto.Credentials;
 
@@ -15,12 +18,25 @@ import java.util.List;
 public interface IContractService {
 
 	/**
-	 * Saves a newly uploaded contract text.
+	 * Saves a newly uploaded contract text and detects its closest near-duplicate among the user's previously uploaded contracts.
 	 *
 	 * @param contractText the raw contract text to save
-	 * @return the unique identifier of the saved contract
+	 * @return the unique identifier of the saved contract and its near-duplicate, if any
 	 */
-	String saveUploadedContract(String contractText);
+	UploadedContract saveUploadedContract(String contractText);
+
+	/**
+	 * Seeds clauses and Solidity source of a freshly uploaded contract from its near-duplicate instead of extracting them.
+	 * Only the returned differing clauses need to be edited, after which only their Solidity sections are regenerated.
+	 *
+	 * @param contractId the contract's unique identifier
+	 * @return reused clauses which are not found word for word in the contract text
+	 * @throws ContractNotFoundException if the contract or its near-duplicate is not found
+	 * @throws UnauthorizedAccessException if the caller is unauthorized
+	 * @throws ContractReadException if reading contract data fails
+	 * @throws ClausesExtractionException if clauses were already extracted or there is nothing to reuse
+	 */
+	List<String> seedFromNearDuplicate(String contractId) throws ContractNotFoundException, UnauthorizedAccessException, ContractReadException, ClausesExtractionException;
 
 	/**
 	 * Updates the status of a contract identified by its deployment address.
@@ -73,6 +89,20 @@ public interface IContractService {
 	 */
 	List<String> extractClauses(String contractText) throws ContractNotFoundException, UnauthorizedAccessException, ContractReadException, ClausesExtractionException;
 
+	/**
+	 * Replaces the clauses of a contract which is not deployed yet. Unchanged clauses keep their IDs,
+	 * so the next Solidity generation only regenerates sections of new or changed clauses.
+	 *
+	 * @param contractId the contract's unique identifier
+	 * @param clauses    complete list of clauses in document order
+	 * @throws ContractNotFoundException if the contract is not found
+	 * @throws UnauthorizedAccessException if the caller is unauthorized
+	 * @throws ContractReadException if reading contract fails
+	 * @throws ContractAlreadyConfirmedException if the contract is already deployed
+	 * @throws ClausesExtractionException if the given clauses are empty
+	 */
+	void editClauses(String contractId, List<String> clauses) throws ContractNotFoundException, UnauthorizedAccessException, ContractReadException, ContractAlreadyConfirmedException, ClausesExtractionException;
+
 	/**
 	 * Generates Solidity source code for the contract identified by ID.
 	 *
@@ -86,6 +116,71 @@ public interface IContractService {
 	 */
 	int generateSolidity(String contractId) throws ContractNotFoundException, UnauthorizedAccessException, ClausesExtractionException, CompilationException, SolidityGenerationException;
 
+	/**
+	 * Recompiles the contract's Solidity source with several optimizer {@code runs} values and stores the binary and
+	 * optimizer settings with the lowest estimated gas for the expected call volume.
+	 *
+	 * @param contractId    the contract's unique identifier
+	 * @param expectedCalls expected number of function calls over the contract's lifetime
+	 * @return chosen optimizer settings
+	 * @throws ContractNotFoundException if the contract is not found
+	 * @throws UnauthorizedAccessException if unauthorized access
+	 * @throws ContractReadException if contract reading fails
+	 * @throws ContractAlreadyConfirmedException if the contract is already deployed
+	 * @throws CompilationException if the Solidity source is not compiled yet or compilation fails
+	 */
+	OptimizerSettings tuneOptimizer(String contractId, long expectedCalls) throws ContractNotFoundException, UnauthorizedAccessException, ContractReadException, ContractAlreadyConfirmedException, CompilationException;
+
+	/**
+	 * Lists the revisions of the contract's Solidity source.
+	 *
+	 * @param contractId the contract's unique identifier
+	 * @return revisions in ascending order of their number
+	 * @throws ContractNotFoundException if the contract is not found
+	 * @throws UnauthorizedAccessException if unauthorized access
+	 * @throws ContractReadException if reading the contract or its revisions fails
+	 */
+	List<SolidityRevision> listSolidityRevisions(String contractId) throws ContractNotFoundException, UnauthorizedAccessException, ContractReadException;
+
+	/**
+	 * Retrieves the Solidity source of a revision.
+	 *
+	 * @param contractId the contract's unique identifier
+	 * @param number     revision number
+	 * @return Solidity source of the revision
+	 * @throws ContractNotFoundException if the contract or revision is not found
+	 * @throws UnauthorizedAccessException if unauthorized access
+	 * @throws ContractReadException if reading the contract or its revisions fails
+	 */
+	String getSolidityRevision(String contractId, int number) throws ContractNotFoundException, UnauthorizedAccessException, ContractReadException;
+
+	/**
+	 * Compares two revisions of the contract's Solidity source.
+	 *
+	 * @param contractId the contract's unique identifier
+	 * @param from       number of the original revision
+	 * @param to         number of the changed revision
+	 * @return unified diff of the revisions, empty if their sources are equal
+	 * @throws ContractNotFoundException if the contract or a revision is not found
+	 * @throws UnauthorizedAccessException if unauthorized access
+	 * @throws ContractReadException if reading the contract or its revisions fails
+	 */
+	String diffSolidityRevisions(String contractId, int from, int to) throws ContractNotFoundException, UnauthorizedAccessException, ContractReadException;
+
+	/**
+	 * Makes an earlier revision the current Solidity source of the contract, recorded as a new revision. Revisions which
+	 * compiled before are taken from the compilation cache.
+	 *
+	 * @param contractId the contract's unique identifier
+	 * @param number     revision number to restore
+	 * @return 0 if prepared, 1 if compiled
+	 * @throws ContractNotFoundException if the contract or revision is not found
+	 * @throws UnauthorizedAccessException if unauthorized access
+	 * @throws ContractReadException if reading the contract or its revisions fails
+	 * @throws ContractAlreadyConfirmedException if the contract is already deployed
+	 */
+	int restoreSolidityRevision(String contractId, int number) throws ContractNotFoundException, UnauthorizedAccessException, ContractReadException, ContractAlreadyConfirmedException;
+
 	/**
 	 * Deploys the contract with given constructor parameters using provided Ethereum credentials.
 	 *
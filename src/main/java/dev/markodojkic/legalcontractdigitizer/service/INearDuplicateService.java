@@ -0,0 +1,37 @@
+package dev.markodojkic.legalcontractdigitizer.service;
+
+import dev.markodojkic.legalcontractdigitizer.model.NearDuplicateMatch;
+
+import java.util.Optional;
+
+/**
+ * Service interface for detecting near-duplicate contracts (e.g. differing only in parties, dates and amounts),
+ * whose clauses and Solidity source can be reused instead of being produced by the model again.
+ */
+public interface INearDuplicateService {
+
+	/**
+	 * Finds the most similar previously indexed contract of the given user above the configured similarity threshold.
+	 *
+	 * @param userId       owner of the contracts to search
+	 * @param contractText raw contract text
+	 * @return closest near-duplicate, or empty if none is similar enough
+	 */
+	Optional<NearDuplicateMatch> findClosest(String userId, String contractText);
+
+	/**
+	 * Adds a contract to the index, replacing a previous entry of the same contract.
+	 *
+	 * @param contractId   contract's unique identifier
+	 * @param userId       owner of the contract
+	 * @param contractText raw contract text
+	 */
+	void index(String contractId, String userId, String contractText);
+
+	/**
+	 * Removes a contract from the index.
+	 *
+	 * @param contractId contract's unique identifier
+	 */
+	void remove(String contractId);
+}
@@ -0,0 +1,25 @@
+package dev.markodojkic.legalcontractdigitizer.service;
+
+import java.util.function.Supplier;
+
+/**
+ * Service interface for coalescing concurrent executions of the same contract pipeline stage,
+ * so that only one caller runs the (expensive) computation while others share its result.
+ */
+public interface IPipelineCoordinationService {
+
+	/**
+	 * Runs the given computation at most once at a time for the given contract and stage.
+	 * Concurrent callers within this node join the in-flight computation and receive its result.
+	 * When distributed coordination is enabled, callers on other nodes wait for the lease holder
+	 * and then obtain the stored result through {@code completedResultLoader}.
+	 *
+	 * @param contractId            the contract's unique identifier
+	 * @param stage                 name of the pipeline stage (e.g. clause extraction)
+	 * @param computation           computation producing the stage result
+	 * @param completedResultLoader loads an already stored result, returning {@code null} if the stage has not completed yet
+	 * @param <T>                   result type
+	 * @return result of the computation, either computed by this caller or shared from another one
+	 */
+	<T> T runOnce(String contractId, String stage, Supplier<T> computation, Supplier<T> completedResultLoader);
+}
@@ -0,0 +1,70 @@
+package dev.markodojkic.legalcontractdigitizer.service;
+
+import dev.markodojkic.legalcontractdigitizer.exception.CompilationException;
+import dev.markodojkic.legalcontractdigitizer.model.BatchCompilationResult;
+import dev.markodojkic.legalcontractdigitizer.model.CompilationResult;
+import dev.markodojkic.legalcontractdigitizer.model.OptimizerSettings;
+
+import java.util.Map;
+
+/**
+ * Service interface for compiling Solidity source code with the configured compiler.
+ */
+public interface ISolidityCompilerService {
+
+	/**
+	 * Compiles the given Solidity source code with the configured default optimizer profile.
+	 *
+	 * @param soliditySource Solidity source code
+	 * @return compiled binary and ABI of the first contract in the compilation output
+	 * @throws CompilationException if compilation fails
+	 */
+	CompilationResult compile(String soliditySource) throws CompilationException;
+
+	/**
+	 * Compiles the given Solidity source code with the given optimizer settings.
+	 *
+	 * @param soliditySource    Solidity source code
+	 * @param optimizerSettings optimizer settings, {@code null} for the configured default profile
+	 * @return compiled binary and ABI of the first contract in the compilation output
+	 * @throws CompilationException if compilation fails
+	 */
+	CompilationResult compile(String soliditySource, OptimizerSettings optimizerSettings) throws CompilationException;
+
+	/**
+	 * Compiles the given Solidity source code with the configured default optimizer profile without storing the result
+	 * or its errors in the compilation caches, for transient sources such as editor states.
+	 *
+	 * @param soliditySource Solidity source code
+	 * @return compiled binary and ABI of the first contract in the compilation output
+	 * @throws CompilationException if compilation fails
+	 */
+	CompilationResult check(String soliditySource) throws CompilationException;
+
+	/**
+	 * Compiles the given Solidity source code with each configured optimizer {@code runs} value in parallel and picks
+	 * the one with the lowest estimated deployment and call gas.
+	 *
+	 * @param soliditySource Solidity source code
+	 * @param expectedCalls  expected number of function calls over the contract's lifetime
+	 * @return cheapest compilation result, including the chosen optimizer settings
+	 * @throws CompilationException if compilation fails
+	 */
+	CompilationResult compileTuned(String soliditySource, long expectedCalls) throws CompilationException;
+
+	/**
+	 * Compiles many Solidity sources with as few compiler invocations as possible. A failing source does not fail the others.
+	 *
+	 * @param soliditySources Solidity sources keyed by a caller chosen key, e.g. the contract ID
+	 * @return compilation results and failures keyed by the given keys
+	 */
+	BatchCompilationResult compileAll(Map<String, String> soliditySources);
+
+	/**
+	 * Checks whether the given source was already rejected by the compiler.
+	 *
+	 * @param soliditySource Solidity source code
+	 * @return {@code true} if compiling the source is known to fail
+	 */
+	boolean isKnownBad(String soliditySource);
+}
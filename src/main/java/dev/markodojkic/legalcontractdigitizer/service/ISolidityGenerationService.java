@@ -0,0 +1,36 @@
+package dev.markodojkic.legalcontractdigitizer.service;
+
+import dev.markodojkic.legalcontractdigitizer.exception.CompilationException;
+import dev.markodojkic.legalcontractdigitizer.exception.SolidityGenerationException;
+import dev.markodojkic.legalcontractdigitizer.model.ClauseRecord;
+import dev.markodojkic.legalcontractdigitizer.model.GeneratedSolidity;
+import dev.markodojkic.legalcontractdigitizer.model.OptimizerSettings;
+
+import java.util.List;
+
+/**
+ * Service interface for generating complete Solidity contracts from clauses.
+ */
+public interface ISolidityGenerationService {
+
+	/**
+	 * Generates a Solidity contract for the given clauses, from a template whenever the clauses fit one. When hedging is enabled, several candidates are generated
+	 * and compiled concurrently and the first one that compiles cleanly is returned, while the others are cancelled.
+	 *
+	 * @param clauses clauses to convert into Solidity code
+	 * @return generated source, compiled if a candidate compiled during generation
+	 * @throws SolidityGenerationException if no candidate could be generated
+	 */
+	GeneratedSolidity generate(List<ClauseRecord> clauses) throws SolidityGenerationException;
+
+	/**
+	 * Compiles the given source. If compilation fails and automatic repair is enabled, compiler diagnostics are fed
+	 * back to the model together with the failing source and the repaired source is recompiled, for a bounded number of iterations.
+	 *
+	 * @param soliditySource    Solidity source code
+	 * @param optimizerSettings optimizer settings, {@code null} for the configured default profile
+	 * @return compiled source, which differs from {@code soliditySource} if it was repaired
+	 * @throws CompilationException with the last compiler diagnostics if the source could not be compiled or repaired
+	 */
+	GeneratedSolidity compileWithRepair(String soliditySource, OptimizerSettings optimizerSettings) throws CompilationException;
+}
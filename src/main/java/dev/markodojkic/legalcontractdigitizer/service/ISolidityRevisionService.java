@@ -0,0 +1,65 @@
+package dev.markodojkic.legalcontractdigitizer.service;
+
+import dev.markodojkic.legalcontractdigitizer.exception.ContractNotFoundException;
+import dev.markodojkic.legalcontractdigitizer.exception.ContractReadException;
+import dev.markodojkic.legalcontractdigitizer.model.RevisionOrigin;
+import dev.markodojkic.legalcontractdigitizer.model.SolidityRevision;
+
+import java.util.List;
+
+/**
+ * Service interface for the revision history of contracts' Solidity sources. Revisions are stored as line deltas against
+ * their predecessor, with periodic full snapshots bounding the number of deltas applied to reconstruct a revision.
+ * Ownership of the contracts is verified by the callers.
+ */
+public interface ISolidityRevisionService {
+
+	/**
+	 * Appends a revision if the source differs from the latest revision of the contract. Failures are logged only,
+	 * as the history must never block changing the contract itself.
+	 *
+	 * @param contractId     contract's unique identifier
+	 * @param soliditySource new Solidity source of the contract
+	 * @param origin         how the source was produced
+	 */
+	void record(String contractId, String soliditySource, RevisionOrigin origin);
+
+	/**
+	 * Lists all revisions of the contract.
+	 *
+	 * @param contractId contract's unique identifier
+	 * @return revisions in ascending order of their number
+	 * @throws ContractReadException if reading revisions fails
+	 */
+	List<SolidityRevision> list(String contractId) throws ContractReadException;
+
+	/**
+	 * Reconstructs the Solidity source of a revision.
+	 *
+	 * @param contractId contract's unique identifier
+	 * @param number     revision number
+	 * @return Solidity source of the revision
+	 * @throws ContractNotFoundException if the revision does not exist
+	 * @throws ContractReadException if reading or reconstructing the revision fails
+	 */
+	String getSource(String contractId, int number) throws ContractNotFoundException, ContractReadException;
+
+	/**
+	 * Compares two revisions.
+	 *
+	 * @param contractId contract's unique identifier
+	 * @param from       number of the original revision
+	 * @param to         number of the changed revision
+	 * @return unified diff of the revisions, empty if their sources are equal
+	 * @throws ContractNotFoundException if a revision does not exist
+	 * @throws ContractReadException if reading or reconstructing a revision fails
+	 */
+	String diff(String contractId, int from, int to) throws ContractNotFoundException, ContractReadException;
+
+	/**
+	 * Deletes the whole revision history of the contract.
+	 *
+	 * @param contractId contract's unique identifier
+	 */
+	void deleteAll(String contractId);
+}
@@ -0,0 +1,21 @@
+package dev.markodojkic.legalcontractdigitizer.service;
+
+import dev.markodojkic.legalcontractdigitizer.model.ClauseRecord;
+import dev.markodojkic.legalcontractdigitizer.model.GeneratedSolidity;
+
+import java.util.List;
+
+/**
+ * Service interface for generating Solidity contracts from parameterized, pre-audited templates.
+ */
+public interface ISolidityTemplateService {
+
+	/**
+	 * Maps the classified clauses onto a template. Clauses which do not fit the template are implemented
+	 * by the model as separate clause sections. Fully templated contracts are compiled once and served from cache.
+	 *
+	 * @param clauses clauses to convert into Solidity code
+	 * @return generated (and if possible compiled) source, or {@code null} if the clauses do not fit any template
+	 */
+	GeneratedSolidity generate(List<ClauseRecord> clauses);
+}
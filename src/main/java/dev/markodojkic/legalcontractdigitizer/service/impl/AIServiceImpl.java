@@ -1,57 +1,170 @@
 package dev.markodojkic.legalcontractdigitizer.service.impl;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.markodojkic.legalcontractdigitizer.exception.ClausesExtractionException;
+import dev.markodojkic.legalcontractdigitizer.model.AITask;
+import dev.markodojkic.legalcontractdigitizer.model.ChatCompletionRequest;
+import dev.markodojkic.legalcontractdigitizer.model.ChatCompletionResponse;
+import dev.markodojkic.legalcontractdigitizer.model.ClauseRecord;
+import dev.markodojkic.legalcontractdigitizer.model.ModelTier;
+import dev.markodojkic.legalcontractdigitizer.service.IAIProvider;
 import dev.markodojkic.legalcontractdigitizer.service.IAIService;
+import dev.markodojkic.legalcontractdigitizer.util.ClauseSegmenter;
+import dev.markodojkic.legalcontractdigitizer.util.ModelRouter;
+import dev.markodojkic.legalcontractdigitizer.util.OpenAiRateLimiter;
+import dev.markodojkic.legalcontractdigitizer.util.SoliditySections;
+import dev.markodojkic.legalcontractdigitizer.util.StreamingJsonArrayParser;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.hc.client5.http.impl.classic.RequestFailedException;
 import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AIServiceImpl implements IAIService {
 
-	private static final String OPENAI_API_URL = "https://api.openai.com/v1/chat/completions", MODEL = "gpt-4o", CONTENT = "content";
-	private static final int RETRY_LIMIT = 3;
-	private final WebClient openAiWebClient;
-	private final ObjectMapper objectMapper;
+	private static final int MAX_TOKENS = 2048;
+	private static final String CLAUSES_FIELD = "clauses";
+	private static final Map<String, Object> CLAUSES_RESPONSE_FORMAT = Map.of(
+			"type", "json_schema",
+			"json_schema", Map.of(
+					"name", "extracted_clauses",
+					"strict", true,
+					"schema", Map.of(
+							"type", "object",
+							"properties", Map.of(CLAUSES_FIELD, Map.of("type", "array", "items", Map.of("type", "string"))),
+							"required", List.of(CLAUSES_FIELD),
+							"additionalProperties", false
+					)
+			)
+	);
+	private static final String SOLIDITY_SYSTEM_PROMPT = "You are an expert Solidity smart contract generator. Output only production-ready code.";
+	private final IAIProvider aiProvider;
+	private final ClauseSegmenter clauseSegmenter;
+	private final ModelRouter modelRouter;
+	private final MeterRegistry meterRegistry;
+
+	@Value("${openai.structuredOutput:true}")
+	private boolean structuredOutput;
 
 	@Override
 	public List<String> extractClauses(String contractText) throws ClausesExtractionException {
+		List<String> clauses = new ArrayList<>();
+		long localTokens = 0, modelTokens = 0;
+
+		// Well-structured regions are split locally, only ambiguous ones are sent to the model
+		List<ClauseSegmenter.Segment> segments = clauseSegmenter.segment(contractText);
+		for (ClauseSegmenter.Segment segment : segments) {
+			if (segment.local()) {
+				clauses.add(segment.text());
+				localTokens += OpenAiRateLimiter.estimateTokens(segment.text());
+			} else {
+				// A region of a larger document, e.g. the preamble with parties and recitals, may legitimately contain no clauses
+				clauses.addAll(extractClausesWithModel(segment.text(), segments.size() > 1));
+				modelTokens += OpenAiRateLimiter.estimateTokens(segment.text());
+			}
+		}
+
+		meterRegistry.counter("ai.clauses.segmentation.tokens", "path", "local").increment(localTokens);
+		meterRegistry.counter("ai.clauses.segmentation.tokens", "path", "model").increment(modelTokens);
+		if (localTokens > 0) log.info("Clause segmentation kept ~{} of ~{} prompt tokens local ({} clauses)", localTokens, localTokens + modelTokens, clauses.size());
+
+		if (clauses.isEmpty()) throw new ClausesExtractionException("AI service found no clauses in contract text");
+		return clauses;
+	}
+
+	private List<String> extractClausesWithModel(String contractText, boolean allowEmpty) throws ClausesExtractionException {
+		try {
+			ChatCompletionResponse response = completeRouted(AITask.CLAUSE_EXTRACTION, buildClauseExtractionRequest(contractText), content -> {
+				StreamingJsonArrayParser.Result result = StreamingJsonArrayParser.parseStringArray(content, CLAUSES_FIELD);
+				return result.outcome() != StreamingJsonArrayParser.Outcome.FAILED && (allowEmpty || !result.values().isEmpty());
+			});
+			if ("length".equals(response.finishReason())) log.warn("Clause extraction output was cut off by the token limit, keeping completed clauses only");
+			return parseClauses(response.content(), allowEmpty);
+		} catch (ClausesExtractionException e) {
+			throw e;
+		} catch (Exception e) {
+			log.error("Failed to extract clauses from contract", e);
+			throw new ClausesExtractionException("AI service failed to extract clauses from text:\n" + e.getLocalizedMessage());
+		}
+	}
+
+	@Override
+	public String generateSolidityContract(List<ClauseRecord> clauses) throws WebClientResponseException, RequestFailedException, ConnectionRequestTimeoutException {
+		return sanitizeSolidity(completeRouted(AITask.SOLIDITY_GENERATION, buildSolidityGenerationRequest(clauses), AIServiceImpl::looksLikeSolidity).content());
+	}
+
+	@Override
+	public Map<String, String> regenerateSoliditySections(String contractOutline, List<ClauseRecord> clauses, Map<String, String> currentSections) throws WebClientResponseException, RequestFailedException, ConnectionRequestTimeoutException {
+		StringBuilder promptBuilder = new StringBuilder();
+		promptBuilder.append("Update an existing Solidity smart contract. Its outline (declarations only) is:\n\n").append(contractOutline);
+		promptBuilder.append("\nRewrite the code implementing only the following clauses:\n\n");
+
+		for (ClauseRecord clause : clauses) {
+			promptBuilder.append("- [").append(clause.id()).append("] ").append(clause.text()).append("\n");
+			String currentSection = currentSections.get(clause.id());
+			if (currentSection != null) promptBuilder.append("  Current code of this clause:\n").append(currentSection).append("\n");
+		}
+
+		promptBuilder.append("\nRequirements:\n");
+		promptBuilder.append("1. Return one section per clause listed above, starting with a line `// @clause <id> begin` and ending with a line `// @clause <id> end`.\n");
+		promptBuilder.append("2. Sections are placed inside the body of the main contract. Reuse state variables, modifiers and events from the outline and declare new ones inside the section.\n");
+		promptBuilder.append("3. Keep the access control, circuit breaker, reentrancy protection and payment safety rules used in the outline.\n");
+		promptBuilder.append("\nReturn ONLY the sections. Do not include markdown, explanations, or code formatting symbols.\n");
+
+		ChatCompletionRequest request = new ChatCompletionRequest(routedModel(AITask.SOLIDITY_SECTION_REGENERATION, promptBuilder), SOLIDITY_SYSTEM_PROMPT, promptBuilder.toString(), 0.68, MAX_TOKENS, null);
+		Set<String> expectedIds = clauses.stream().map(ClauseRecord::id).collect(Collectors.toSet());
+		return SoliditySections.parse(sanitizeSolidity(completeRouted(AITask.SOLIDITY_SECTION_REGENERATION, request, content -> SoliditySections.parse(sanitizeSolidity(content)).keySet().containsAll(expectedIds)).content()));
+	}
+
+	@Override
+	public String repairSolidityContract(String soliditySource, String compilerDiagnostics) throws WebClientResponseException, RequestFailedException, ConnectionRequestTimeoutException {
+		String prompt = """
+                The following Solidity smart contract fails to compile.
+                Fix all compiler errors while keeping the contract's behaviour, structure and all comments (including `// @clause` markers) unchanged.
+                Return ONLY the complete, corrected solidity code. Do not include markdown, explanations, or code formatting symbols.
+                Compiler output:
+                "%s"
+                Solidity code:
+                "%s"
+                """.formatted(compilerDiagnostics, soliditySource);
+
+		ChatCompletionRequest request = new ChatCompletionRequest(routedModel(AITask.SOLIDITY_REPAIR, prompt), SOLIDITY_SYSTEM_PROMPT, prompt, 0.2, Math.max(MAX_TOKENS, (int) OpenAiRateLimiter.estimateTokens(soliditySource) * 2), null);
+		return sanitizeSolidity(completeRouted(AITask.SOLIDITY_REPAIR, request, AIServiceImpl::looksLikeSolidity).content());
+	}
+
+	@Override
+	public ChatCompletionRequest buildClauseExtractionRequest(String contractText) {
 		String prompt = """
                 Extract all legal clauses from this legal contract text.
-                Return the result as a JSON array of clauses (strings).
-                Do not explain, do not include anything else but the JSON array (e.g. ["Clause 1", "Clause 2"]).
+                Return the result as a JSON object with a single "clauses" property holding an array of clauses (strings).
+                Do not explain, do not include anything else but the JSON object (e.g. {"clauses": ["Clause 1", "Clause 2"]}).
                 Do not include any markdown formatting or code blocks nor ```json tags.
                 Legal Contract Text:
                 "%s"
                 """.formatted(contractText);
 
-		try {
-			String content = sendChatRequest(prompt, true);
-			return parseExtractedClauses(content);
-		} catch (Exception e) {
-			log.error("Failed to extract clauses from contract", e);
-			throw new ClausesExtractionException("AI service failed to extract clauses from text:\n" + e.getLocalizedMessage());
-		}
+		return new ChatCompletionRequest(routedModel(AITask.CLAUSE_EXTRACTION, prompt), "You are a contract analyst. Extract and return only legal clauses.", prompt, 0.68, MAX_TOKENS, structuredOutput ? CLAUSES_RESPONSE_FORMAT : null);
 	}
 
 	@Override
-	public String generateSolidityContract(List<String> clauses) throws WebClientResponseException, RequestFailedException, ConnectionRequestTimeoutException {
+	public ChatCompletionRequest buildSolidityGenerationRequest(List<ClauseRecord> clauses) {
 		StringBuilder promptBuilder = new StringBuilder();
 		promptBuilder.append("Generate a Solidity smart contract based on the following clauses:\n\n");
 
-		for (String clause : clauses) {
-			promptBuilder.append("- ").append(clause).append("\n");
+		for (ClauseRecord clause : clauses) {
+			promptBuilder.append("- [").append(clause.id()).append("] ").append(clause.text()).append("\n");
 		}
 
 		promptBuilder.append("\nRequirements:\n");
@@ -77,74 +190,61 @@ public class AIServiceImpl implements IAIService {
 		promptBuilder.append("15. Implement an `emergencyWithdraw` function that allows the owner to withdraw all funds ONLY when the contract is disabled.\n");
 		promptBuilder.append("16. Ensure payments are transferred immediately to recipients to avoid locked funds.\n");
 		promptBuilder.append("17. Revert direct payments to the contract unless through explicit payment functions.\n");
+		promptBuilder.append("18. Wrap the state variables, events, modifiers and functions implementing each clause in the main contract between a line `// @clause <id> begin` and a line `// @clause <id> end`, using the clause IDs given in square brackets. Code shared by several clauses or required above stays outside of these markers.\n");
 
 		promptBuilder.append("\nReturn ONLY the complete, production-ready solidity code. Inline all dependencies (e.g. OpenZeppelin's Ownable, UUPSUpgradeable, ReentrancyGuard) so that the contract is fully self-contained and has no imports. Do not include markdown, explanations, or code formatting symbols.\n");
 
-		return sanitizeSolidityCode( sendChatRequest(promptBuilder.toString(), false));
+		return new ChatCompletionRequest(routedModel(AITask.SOLIDITY_GENERATION, promptBuilder), SOLIDITY_SYSTEM_PROMPT, promptBuilder.toString(), 0.68, MAX_TOKENS, null);
 	}
 
-	private String sendChatRequest(String prompt, boolean isExtraction) throws WebClientResponseException, RequestFailedException, ConnectionRequestTimeoutException {
-		for (int i = 0; i < RETRY_LIMIT; i++) {
-			try {
-				String rawJson = openAiWebClient.post()
-						.uri(OPENAI_API_URL)
-						.bodyValue(Map.of(
-								"model", MODEL,
-								"temperature", 0.68,
-								"max_tokens", 2048,
-								"messages", List.of(
-										Map.of("role", "system", CONTENT,
-												isExtraction ? "You are a contract analyst. Extract and return only legal clauses." :
-														"You are an expert Solidity smart contract generator. Output only production-ready code."),
-										Map.of("role", "user", CONTENT, prompt)
-								)
-						))
-						.retrieve()
-						.bodyToMono(String.class)
-						.block();
-
-				log.debug("OpenAI raw response (attempt {}): {}", i + 1, rawJson);
-
-				JsonNode root = objectMapper.readTree(rawJson);
-				JsonNode choices = root.path("choices");
-				if (choices.isArray() && !choices.isEmpty()) return choices.get(0).path("message").path(CONTENT).asText();
-				else throw new IllegalStateException("Unexpected response format.");
-			} catch (WebClientResponseException e) {
-				log.error("OpenAI API error: HTTP {}, body: {}", e.getStatusCode().value(), e.getResponseBodyAsString());
-
-				if (e.getStatusCode().value() == 429 || e.getStatusCode().value() >= 500) {
-					log.warn("Rate limit or server error, retrying after delay...");
-					try {
-						Thread.sleep(1000L);
-					} catch (InterruptedException _) {
-						Thread.currentThread().interrupt();
-					}
-					continue;
-				}
-				throw e;
-
-			} catch (Exception e) {
-				log.error("General error while calling OpenAI API", e);
-				throw new RequestFailedException("OpenAI request failed", e);
-			}
+	@Override
+	public List<String> parseClauses(String content) throws ClausesExtractionException {
+		return parseClauses(content, false);
+	}
+
+	private List<String> parseClauses(String content, boolean allowEmpty) throws ClausesExtractionException {
+		StreamingJsonArrayParser.Result result = StreamingJsonArrayParser.parseStringArray(content, CLAUSES_FIELD);
+		meterRegistry.counter("ai.clauses.parse", "outcome", result.outcome().name().toLowerCase()).increment();
+
+		if (result.outcome() == StreamingJsonArrayParser.Outcome.FAILED || (!allowEmpty && result.values().isEmpty())) {
+			log.error("Failed to parse clause list: {}", content);
+			throw new ClausesExtractionException("AI service returned unparseable clauses");
 		}
+		if (result.outcome() != StreamingJsonArrayParser.Outcome.VALID) log.warn("Clause list parsed with outcome {}, {} clauses recovered", result.outcome(), result.values().size());
 
-		throw new ConnectionRequestTimeoutException("Failed to get valid OpenAI response after " + RETRY_LIMIT + " retries.");
+		return result.values();
 	}
 
-	private List<String> parseExtractedClauses(String jsonArrayString) throws Exception {
-		try {
-			return objectMapper.readValue(
-					jsonArrayString,
-					objectMapper.getTypeFactory().constructCollectionType(List.class, String.class)
-			);
-		} catch (Exception e) {
-			log.error("Failed to parse clause list: {}", jsonArrayString, e);
-			throw e;
+	/**
+	 * Sends the request to the model tier chosen for its size, escalating to the next tier whenever the output
+	 * fails the given validation. The output of the most capable tier is returned as is.
+	 */
+	private ChatCompletionResponse completeRouted(AITask task, ChatCompletionRequest request, Predicate<String> isValid) throws WebClientResponseException, RequestFailedException, ConnectionRequestTimeoutException {
+		ModelTier tier = modelRouter.route(task, OpenAiRateLimiter.estimateTokens(request.systemPrompt()) + OpenAiRateLimiter.estimateTokens(request.userPrompt()));
+
+		while (true) {
+			long startNanos = System.nanoTime();
+			ChatCompletionResponse response = aiProvider.complete(request.withModel(modelRouter.modelFor(tier)));
+			modelRouter.record(tier, task, System.nanoTime() - startNanos, response);
+
+			ModelTier nextTier = modelRouter.escalate(tier);
+			if (nextTier == null || isValid.test(response.content())) return response;
+
+			modelRouter.recordEscalation(tier, task);
+			tier = nextTier;
 		}
 	}
 
-	private String sanitizeSolidityCode(String rawCode) {
+	private String routedModel(AITask task, CharSequence prompt) {
+		return modelRouter.modelFor(modelRouter.route(task, OpenAiRateLimiter.estimateTokens(prompt.toString())));
+	}
+
+	private static boolean looksLikeSolidity(String content) {
+		return content != null && content.contains("pragma solidity") && content.contains("contract ");
+	}
+
+	@Override
+	public String sanitizeSolidity(String rawCode) {
 		if (rawCode == null) return "No code generated.";
 		return rawCode
 				.replaceAll("(?m)^```solidity\\s*", "")
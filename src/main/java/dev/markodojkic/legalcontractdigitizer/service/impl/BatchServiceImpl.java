@@ -0,0 +1,278 @@
+package dev.markodojkic.legalcontractdigitizer.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.firebase.cloud.FirestoreClient;
+import dev.markodojkic.legalcontractdigitizer.exception.ContractNotFoundException;
+import dev.markodojkic.legalcontractdigitizer.exception.ContractReadException;
+import dev.markodojkic.legalcontractdigitizer.exception.UnauthorizedAccessException;
+import dev.markodojkic.legalcontractdigitizer.model.*;
+import dev.markodojkic.legalcontractdigitizer.service.IAIBatchProvider;
+import dev.markodojkic.legalcontractdigitizer.service.IAIService;
+import dev.markodojkic.legalcontractdigitizer.service.IBatchService;
+import dev.markodojkic.legalcontractdigitizer.service.IContractService;
+import dev.markodojkic.legalcontractdigitizer.service.ISolidityCompilerService;
+import dev.markodojkic.legalcontractdigitizer.service.ISolidityRevisionService;
+import dev.markodojkic.legalcontractdigitizer.util.DependencyGuard;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class BatchServiceImpl implements IBatchService {
+
+	private static final String CONTRACTS = "contracts", AI_BATCHES = "aiBatches", EXTRACTED_CLAUSES = "extractedClauses", CLAUSE_RECORDS = "clauseRecords", GENERATED_CLAUSE_HASHES = "generatedClauseHashes", SOLIDITY_SOURCE = "soliditySource", OPTIMIZER = "optimizer", STATUS = "status", STATE = "state", BATCH_ID = "batchId";
+
+	private final ObjectMapper objectMapper;
+	private final IAIService aiService;
+	private final IAIBatchProvider aiBatchProvider;
+	private final IContractService contractService;
+	private final ISolidityCompilerService solidityCompilerService;
+	private final ISolidityRevisionService solidityRevisionService;
+	private final DependencyGuard dependencyGuard;
+	private final Queue<PendingJob> pendingJobs = new ConcurrentLinkedQueue<>();
+	private Firestore firestore;
+
+	@Value("${batch.maxJobsPerFile:1000}")
+	private int maxJobsPerFile;
+
+	private record PendingJob(String contractId, BatchJobType type, ChatCompletionRequest request) {
+		String customId() {
+			return contractId + ":" + type.name();
+		}
+	}
+
+	@PostConstruct
+	public void init() {
+		firestore = FirestoreClient.getFirestore();
+	}
+
+	// Queued jobs are kept in memory only until the next flush, leave a trace of the ones a shutdown drops
+	@PreDestroy
+	public void shutdown() {
+		if (!pendingJobs.isEmpty()) log.warn("Dropping {} queued batch jobs on shutdown, enqueue them again: {}", pendingJobs.size(), pendingJobs.stream().map(PendingJob::customId).toList());
+	}
+
+	@Override
+	public int enqueue(List<String> contractIds, BatchJobType type) throws ContractNotFoundException, UnauthorizedAccessException, ContractReadException {
+		int queued = 0;
+		for (String contractId : contractIds) {
+			DigitalizedContract contract = contractService.getContract(contractId); // Verifies ownership while the user is still known
+			List<ClauseRecord> clauseRecords = readClauseRecords(contractId);
+
+			ChatCompletionRequest request = switch (type) {
+				case CLAUSE_EXTRACTION -> (contract.extractedClauses() == null || contract.extractedClauses().isEmpty()) && contract.contractText() != null ?
+						aiService.buildClauseExtractionRequest(contract.contractText()) : null;
+				case SOLIDITY_GENERATION -> contract.extractedClauses() != null && !contract.extractedClauses().isEmpty() && contract.soliditySource() == null ?
+						aiService.buildSolidityGenerationRequest(clauseRecords) : null;
+			};
+
+			if (request == null) {
+				log.debug("Skipping contract ID: {} for batch {}, stage already completed or not ready", contractId, type);
+				continue;
+			}
+
+			pendingJobs.add(new PendingJob(contractId, type, request));
+			queued++;
+		}
+
+		log.debug("Queued {} contracts for batch {}", queued, type);
+		return queued;
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<ClauseRecord> readClauseRecords(String contractId) throws ContractReadException {
+		try {
+			DocumentSnapshot snapshot = dependencyGuard.await(firestore.collection(CONTRACTS).document(contractId)::get);
+			return ClauseRecord.fromStored((List<Map<String, Object>>) snapshot.get(CLAUSE_RECORDS), (List<String>) snapshot.get(EXTRACTED_CLAUSES));
+		} catch (InterruptedException | ExecutionException e) {
+			Thread.currentThread().interrupt();
+			log.error("Error retrieving clauses of contract {}", contractId, e);
+			throw new ContractReadException("Error retrieving contract: " + contractId);
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${batch.flushIntervalMillis:300000}")
+	public void flushPendingJobs() {
+		List<PendingJob> jobs = new ArrayList<>();
+		PendingJob job;
+		while (jobs.size() < maxJobsPerFile && (job = pendingJobs.poll()) != null) jobs.add(job);
+		if (jobs.isEmpty()) return;
+
+		try {
+			Path batchDir = Files.createDirectories(Paths.get(System.getProperty("user.home"), "dev.markodojkic", "legal_contract_digitizer", "1.0.0", "batches"));
+			Path batchFile = batchDir.resolve("batch-" + System.currentTimeMillis() + ".jsonl");
+			ObjectWriter lineWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+
+			try (BufferedWriter writer = Files.newBufferedWriter(batchFile)) {
+				for (PendingJob pendingJob : jobs) {
+					writer.write(lineWriter.writeValueAsString(Map.of(
+							"custom_id", pendingJob.customId(),
+							"method", "POST",
+							"url", "/v1/chat/completions",
+							"body", pendingJob.request().toOpenAiRequestBody()
+					)));
+					writer.newLine();
+				}
+			}
+
+			String batchId = aiBatchProvider.submit(batchFile);
+			dependencyGuard.await(() -> firestore.collection(AI_BATCHES).document(batchId).set(Map.of(
+					BATCH_ID, batchId,
+					STATE, BatchState.IN_PROGRESS.name(),
+					"jobCount", jobs.size(),
+					"batchFile", batchFile.toString(),
+					"submittedAt", System.currentTimeMillis()
+			)));
+
+			log.info("Submitted AI batch {} with {} jobs", batchId, jobs.size());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			pendingJobs.addAll(jobs);
+		} catch (Exception e) {
+			log.error("Failed to submit AI batch, jobs will be retried on next flush", e);
+			pendingJobs.addAll(jobs);
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${batch.pollIntervalMillis:60000}")
+	public void pollSubmittedBatches() {
+		try {
+			for (QueryDocumentSnapshot batchDoc : dependencyGuard.await(firestore.collection(AI_BATCHES).whereEqualTo(STATE, BatchState.IN_PROGRESS.name())::get).getDocuments()) {
+				String batchId = batchDoc.getString(BATCH_ID);
+				BatchState state = aiBatchProvider.poll(batchId);
+				if (state == BatchState.IN_PROGRESS) continue;
+
+				int applied = 0;
+				if (state == BatchState.COMPLETED) {
+					Map<String, String> generatedSources = new LinkedHashMap<>();
+					for (Map.Entry<String, ChatCompletionResponse> result : aiBatchProvider.fetchResults(batchId).entrySet()) {
+						if (applyResult(result.getKey(), result.getValue().content(), generatedSources)) applied++;
+					}
+					compileGeneratedSources(generatedSources);
+				}
+
+				batchDoc.getReference().update(Map.of(STATE, state.name(), "appliedCount", applied, "finishedAt", System.currentTimeMillis()));
+				log.info("AI batch {} finished with state {}, applied {} results", batchId, state, applied);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (Exception e) {
+			log.error("Failed to poll submitted AI batches", e);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private boolean applyResult(String customId, String content, Map<String, String> generatedSources) {
+		String contractId = customId.substring(0, customId.lastIndexOf(':'));
+		BatchJobType type = BatchJobType.valueOf(customId.substring(customId.lastIndexOf(':') + 1));
+		DocumentReference docRef = firestore.collection(CONTRACTS).document(contractId);
+
+		try {
+			boolean applied = switch (type) {
+				case CLAUSE_EXTRACTION -> {
+					List<String> clauses = aiService.parseClauses(content);
+					if (clauses == null || clauses.isEmpty()) yield false;
+
+					yield dependencyGuard.await(() -> firestore.runTransaction(transaction -> {
+						DocumentSnapshot snapshot = transaction.get(docRef).get();
+						// Never overwrite results produced by interactive requests in the meantime
+						List<String> existing = (List<String>) snapshot.get(EXTRACTED_CLAUSES);
+						if (!snapshot.exists() || (existing != null && !existing.isEmpty())) return false;
+
+						transaction.update(docRef, Map.of(
+								EXTRACTED_CLAUSES, clauses,
+								CLAUSE_RECORDS, ClauseRecord.reconcile(null, clauses).stream().map(ClauseRecord::toMap).toList(),
+								STATUS, ContractStatus.CLAUSES_EXTRACTED.name()
+						));
+						return true;
+					}));
+				}
+				case SOLIDITY_GENERATION -> {
+					String soliditySource = aiService.sanitizeSolidity(content);
+					if (soliditySource == null || soliditySource.isEmpty()) yield false;
+
+					boolean written = dependencyGuard.await(() -> firestore.runTransaction(transaction -> {
+						DocumentSnapshot snapshot = transaction.get(docRef).get();
+						if (!snapshot.exists() || snapshot.getString(SOLIDITY_SOURCE) != null) return false;
+
+						List<ClauseRecord> clauseRecords = ClauseRecord.fromStored((List<Map<String, Object>>) snapshot.get(CLAUSE_RECORDS), (List<String>) snapshot.get(EXTRACTED_CLAUSES));
+						transaction.update(docRef, Map.of(
+								SOLIDITY_SOURCE, soliditySource,
+								GENERATED_CLAUSE_HASHES, ClauseRecord.toHashes(clauseRecords),
+								STATUS, ContractStatus.SOLIDITY_PREPARED.name()
+						));
+						return true;
+					}));
+					if (written) {
+						solidityRevisionService.record(contractId, soliditySource, RevisionOrigin.GENERATED);
+						generatedSources.put(contractId, soliditySource);
+					}
+					yield written;
+				}
+			};
+			if (applied) log.debug("Applied batch {} result to contract ID: {}", type, contractId);
+			return applied;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (Exception e) {
+			log.error("Failed to apply batch {} result to contract ID: {}", type, contractId, e);
+			return false;
+		}
+	}
+
+	/**
+	 * Compiles all Solidity sources of a finished batch with as few compiler runs as possible. Sources which do not compile
+	 * stay prepared, so the interactive generation step repairs them.
+	 */
+	@SuppressWarnings("unchecked")
+	private void compileGeneratedSources(Map<String, String> generatedSources) {
+		if (generatedSources.isEmpty()) return;
+
+		BatchCompilationResult result = solidityCompilerService.compileAll(generatedSources);
+		result.compiled().forEach((contractId, compilation) -> {
+			DocumentReference docRef = firestore.collection(CONTRACTS).document(contractId);
+			Map<String, Object> updates = new HashMap<>(compilation.toContractFields());
+			updates.put(STATUS, ContractStatus.SOLIDITY_GENERATED.name());
+			try {
+				boolean applied = dependencyGuard.await(() -> firestore.runTransaction(transaction -> {
+					DocumentSnapshot snapshot = transaction.get(docRef).get();
+					// The source may have been edited, regenerated or restored while the batch compiled
+					if (!generatedSources.get(contractId).equals(snapshot.getString(SOLIDITY_SOURCE))) return false;
+					// Batches compile with the default profile, contracts with tuned optimizer settings are compiled interactively
+					OptimizerSettings storedOptimizer = OptimizerSettings.fromMap((Map<String, Object>) snapshot.get(OPTIMIZER));
+					if (storedOptimizer != null && !storedOptimizer.equals(compilation.optimizer())) return false;
+					transaction.update(docRef, updates);
+					return true;
+				}));
+				if (!applied) log.debug("Solidity source or optimizer settings of contract ID: {} differ from the batch compilation, keeping it prepared", contractId);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (Exception e) {
+				log.error("Failed to store batch compilation result of contract ID: {}", contractId, e);
+			}
+		});
+		result.failed().forEach((contractId, e) -> log.debug("Batch generated Solidity of contract ID: {} does not compile: {}", contractId, e.getLocalizedMessage()));
+		log.info("Compiled {} of {} batch generated Solidity sources", result.compiled().size(), generatedSources.size());
+	}
+}
@@ -1,34 +1,43 @@
 package dev.markodojkic.legalcontractdigitizer.service.impl;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.*;
 import com.google.firebase.cloud.FirestoreClient;
+import dev.markodojkic.legalcontractdigitizer.model.ClauseRecord;
 import dev.markodojkic.legalcontractdigitizer.model.CompilationResult;
 import dev.markodojkic.legalcontractdigitizer.model.GasEstimateResponseDTO;
 import dev.markodojkic.legalcontractdigitizer.model.ContractDeploymentContext;
+import dev.markodojkic.legalcontractdigitizer.model.ContractProfile;
 import dev.markodojkic.legalcontractdigitizer.model.ContractStatus;
 import dev.markodojkic.legalcontractdigitizer.model.DigitalizedContract;
+import dev.markodojkic.legalcontractdigitizer.model.EthereumContractContext;
+import dev.markodojkic.legalcontractdigitizer.model.GeneratedSolidity;
+import dev.markodojkic.legalcontractdigitizer.model.NearDuplicateMatch;
+import dev.markodojkic.legalcontractdigitizer.model.OptimizerSettings;
+import dev.markodojkic.legalcontractdigitizer.model.RevisionOrigin;
+import dev.markodojkic.legalcontractdigitizer.model.SolidityRevision;
+import dev.markodojkic.legalcontractdigitizer.model.UploadedContract;
 import dev.markodojkic.legalcontractdigitizer.exception.*;
 import dev.markodojkic.legalcontractdigitizer.service.IAIService;
 import dev.markodojkic.legalcontractdigitizer.service.IEthereumService;
 import dev.markodojkic.legalcontractdigitizer.service.IContractService;
+import dev.markodojkic.legalcontractdigitizer.service.INearDuplicateService;
+import dev.markodojkic.legalcontractdigitizer.service.IPipelineCoordinationService;
+import dev.markodojkic.legalcontractdigitizer.service.ISolidityCompilerService;
+import dev.markodojkic.legalcontractdigitizer.service.ISolidityGenerationService;
+import dev.markodojkic.legalcontractdigitizer.service.ISolidityRevisionService;
 import dev.markodojkic.legalcontractdigitizer.util.AuthSession;
+import dev.markodojkic.legalcontractdigitizer.util.DependencyGuard;
+import dev.markodojkic.legalcontractdigitizer.util.SoliditySections;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.tuple.Pair;
-import org.springframework.beans.factory.annotation.Value;
+import org.apache.hc.client5.http.impl.classic.RequestFailedException;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
 import org.springframework.stereotype.Service;
 import org.web3j.crypto.Credentials;
 
-import java.io.IOException;
 import java.math.BigInteger;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
 
@@ -37,13 +46,15 @@ import java.util.concurrent.ExecutionException;
 @RequiredArgsConstructor
 public class ContractServiceImpl implements IContractService {
 
-	@Value("${ethereum.solidityCompilerExecutable}")
-	private String solidityCompilerExecutable;
-
-	private static final String BINARY = "binary", CONTRACT_TEXT = "contractText", USER_ID = "userId", DEPLOYED_ADDRESS = "deployedAddress", SOLIDITY_SOURCE = "soliditySource", STATUS = "status", EXTRACTED_CLAUSES = "extractedClauses", CONTRACTS = "contracts";
-	private final ObjectMapper objectMapper;
+	private static final String BINARY = "binary", CONTRACT_TEXT = "contractText", USER_ID = "userId", DEPLOYED_ADDRESS = "deployedAddress", SOLIDITY_SOURCE = "soliditySource", STATUS = "status", EXTRACTED_CLAUSES = "extractedClauses", CLAUSE_RECORDS = "clauseRecords", GENERATED_CLAUSE_HASHES = "generatedClauseHashes", NEAR_DUPLICATE_OF = "nearDuplicateOf", NEAR_DUPLICATE_SIMILARITY = "nearDuplicateSimilarity", OPTIMIZER = "optimizer", EXPECTED_CALLS = "expectedCalls", PROFILE = "profile", CONTRACTS = "contracts";
 	private final IAIService aiService;
 	private final IEthereumService ethereumService;
+	private final IPipelineCoordinationService pipelineCoordinationService;
+	private final ISolidityGenerationService solidityGenerationService;
+	private final ISolidityCompilerService solidityCompilerService;
+	private final ISolidityRevisionService solidityRevisionService;
+	private final INearDuplicateService nearDuplicateService;
+	private final DependencyGuard dependencyGuard;
 	private Firestore firestore;
 
 	@PostConstruct
@@ -52,21 +63,58 @@ public class ContractServiceImpl implements IContractService {
 	}
 
 	@Override
-	public String saveUploadedContract(String contractText) {
+	public UploadedContract saveUploadedContract(String contractText) {
 		String userId = AuthSession.getCurrentUserId();
 		String contractId = UUID.randomUUID().toString();
 		ContractStatus initialStatus = ContractStatus.UPLOADED;
 
-		DocumentReference docRef = firestore.collection(CONTRACTS).document(contractId);
-		docRef.set(DigitalizedContract.builder()
-				.id(contractId)
-				.userId(userId)
-				.contractText(contractText)
-				.status(initialStatus)
-				.build());
+		// The match is part of the initial write, so it is never lost to an update racing the document creation
+		NearDuplicateMatch nearDuplicate = nearDuplicateService.findClosest(userId, contractText).orElse(null);
+		Map<String, Object> fields = new HashMap<>(Map.of("id", contractId, USER_ID, userId, CONTRACT_TEXT, contractText, STATUS, initialStatus.name()));
+		if (nearDuplicate != null) {
+			fields.put(NEAR_DUPLICATE_OF, nearDuplicate.contractId());
+			fields.put(NEAR_DUPLICATE_SIMILARITY, nearDuplicate.similarity());
+		}
+		firestore.collection(CONTRACTS).document(contractId).set(fields);
+		nearDuplicateService.index(contractId, userId, contractText);
 
 		log.debug("Contract saved with ID: {} by user: {} with status: {}", contractId, userId, initialStatus);
-		return contractId;
+		return new UploadedContract(contractId, nearDuplicate);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<String> seedFromNearDuplicate(String contractId) throws ContractNotFoundException, UnauthorizedAccessException, ContractReadException, ClausesExtractionException {
+		DocumentReference docRef = firestore.collection(CONTRACTS).document(contractId);
+		DocumentSnapshot snapshot = getDocumentOrThrow(contractId, docRef);
+
+		if (ContractStatus.valueOf(snapshot.getString(STATUS)) != ContractStatus.UPLOADED) throw new ClausesExtractionException("Clauses were already extracted for contract ID: " + contractId);
+		String nearDuplicateOf = snapshot.getString(NEAR_DUPLICATE_OF);
+		if (nearDuplicateOf == null) throw new ClausesExtractionException("No near-duplicate found for contract ID: " + contractId);
+
+		DocumentSnapshot source = getDocumentOrThrow(nearDuplicateOf, firestore.collection(CONTRACTS).document(nearDuplicateOf));
+		List<String> clauses = (List<String>) source.get(EXTRACTED_CLAUSES);
+		if (clauses == null || clauses.isEmpty()) throw new ClausesExtractionException("Near-duplicate contract " + nearDuplicateOf + " has no extracted clauses to reuse");
+
+		Map<String, Object> updates = new HashMap<>(Map.of(
+				EXTRACTED_CLAUSES, clauses,
+				CLAUSE_RECORDS, readClauseRecords(source).stream().map(ClauseRecord::toMap).toList(),
+				STATUS, ContractStatus.CLAUSES_EXTRACTED.name()
+		));
+		// With source and clause hashes copied, editing the differing clauses only regenerates their Solidity sections
+		if (source.getString(SOLIDITY_SOURCE) != null && source.get(GENERATED_CLAUSE_HASHES) != null) {
+			updates.put(SOLIDITY_SOURCE, source.getString(SOLIDITY_SOURCE));
+			updates.put(GENERATED_CLAUSE_HASHES, source.get(GENERATED_CLAUSE_HASHES));
+		}
+		docRef.update(updates);
+		solidityRevisionService.record(contractId, (String) updates.get(SOLIDITY_SOURCE), RevisionOrigin.SEEDED);
+
+		// Clauses not found word for word (including amounts and dates) differ from this contract and have to be reviewed
+		String comparableText = comparable(snapshot.getString(CONTRACT_TEXT));
+		List<String> differingClauses = clauses.stream().filter(clause -> !comparableText.contains(comparable(clause))).toList();
+
+		log.debug("Seeded contract ID: {} with {} clauses from near-duplicate {}, {} clauses differ", contractId, clauses.size(), nearDuplicateOf, differingClauses.size());
+		return differingClauses;
 	}
 
 	@Override
@@ -74,11 +122,9 @@ public class ContractServiceImpl implements IContractService {
 	public List<DigitalizedContract> listContractsForUser() {
 		List<DigitalizedContract> contracts = new ArrayList<>();
 		try {
-			ApiFuture<QuerySnapshot> future = firestore.collection(CONTRACTS)
+			List<QueryDocumentSnapshot> documents = dependencyGuard.await(() -> firestore.collection(CONTRACTS)
 					.whereEqualTo(USER_ID, AuthSession.getCurrentUserId())
-					.get();
-
-			List<QueryDocumentSnapshot> documents = future.get().getDocuments();
+					.get()).getDocuments();
 
 			for (QueryDocumentSnapshot doc : documents) {
 				String id = doc.getId();
@@ -94,9 +140,14 @@ public class ContractServiceImpl implements IContractService {
 				String deployedAddress = doc.getString(DEPLOYED_ADDRESS);
 
 				if(status == ContractStatus.CONFIRMED){
-					status = ethereumService.doesSmartContractExist(deployedAddress) ?
-							ContractStatus.CONFIRMED : ContractStatus.TERMINATED;
-					updateContractStatus(deployedAddress, status);
+					try {
+						status = ethereumService.doesSmartContractExist(deployedAddress) ?
+								ContractStatus.CONFIRMED : ContractStatus.TERMINATED;
+						updateContractStatus(deployedAddress, status);
+					} catch (EthereumConnectionException e) {
+						// Keep the stored status, listing must not depend on the Ethereum RPC being reachable
+						log.warn("Cannot verify on-chain status of contract ID: {}, {}", id, e.getLocalizedMessage());
+					}
 				}
 
 				contracts.add(new DigitalizedContract(
@@ -108,7 +159,8 @@ public class ContractServiceImpl implements IContractService {
 						soliditySource,
 						binary,
 						abi,
-						deployedAddress
+						deployedAddress,
+						ContractProfile.fromMap((Map<String, Object>) doc.get(PROFILE))
 				));
 			}
 		} catch (Exception e) {
@@ -123,11 +175,10 @@ public class ContractServiceImpl implements IContractService {
 	public void editSolidity(String contractId, String newSoliditySource) throws ContractNotFoundException, UnauthorizedAccessException {
 		QuerySnapshot querySnapshot;
 		try {
-			querySnapshot = firestore.collection(CONTRACTS)
+			querySnapshot = dependencyGuard.await(() -> firestore.collection(CONTRACTS)
 					.whereEqualTo("id", contractId)
 					.limit(1)
-					.get()
-					.get();
+					.get());
 		} catch (Exception e) {
 			Thread.currentThread().interrupt();
 			log.error("Failed to retrieve contract with ID: {}", contractId, e);
@@ -141,6 +192,7 @@ public class ContractServiceImpl implements IContractService {
 		verifyOwnership(document);
 
 		document.getReference().update(SOLIDITY_SOURCE, newSoliditySource);
+		solidityRevisionService.record(contractId, newSoliditySource, RevisionOrigin.EDITED);
 		log.debug("Updated Solidity code for contract ID: {}", contractId);
 	}
 
@@ -149,11 +201,10 @@ public class ContractServiceImpl implements IContractService {
 	public void updateContractStatus(String deploymentAddress, ContractStatus newStatus) throws ContractNotFoundException, UnauthorizedAccessException {
 		QuerySnapshot querySnapshot;
 		try {
-			querySnapshot = firestore.collection(CONTRACTS)
+			querySnapshot = dependencyGuard.await(() -> firestore.collection(CONTRACTS)
 					.whereEqualTo(DEPLOYED_ADDRESS, deploymentAddress)
 					.limit(1)
-					.get()
-					.get();
+					.get());
 		} catch (Exception e) {
 			Thread.currentThread().interrupt();
 			log.error("No contract found with deployed address: {}", deploymentAddress, e);
@@ -176,6 +227,8 @@ public class ContractServiceImpl implements IContractService {
 
 		if (ContractStatus.valueOf(snapshot.getString(STATUS)).compareTo(ContractStatus.DEPLOYED) < 0) {
 			docRef.delete();
+			nearDuplicateService.remove(contractId);
+			solidityRevisionService.deleteAll(contractId);
 			log.debug("Deleted contract with ID {}", contractId);
 		} else {
 			throw new ContractAlreadyConfirmedException("Cannot delete contract that is already confirmed");
@@ -196,7 +249,8 @@ public class ContractServiceImpl implements IContractService {
 				snapshot.getString(SOLIDITY_SOURCE),
 				snapshot.getString(BINARY),
 				snapshot.getString("abi"),
-				snapshot.getString(DEPLOYED_ADDRESS)
+				snapshot.getString(DEPLOYED_ADDRESS),
+				ContractProfile.fromMap((Map<String, Object>) snapshot.get(PROFILE))
 		);
 	}
 
@@ -218,18 +272,46 @@ public class ContractServiceImpl implements IContractService {
 			throw new ClausesExtractionException("Contract text is empty or null");
 		}
 
-		log.debug("Extracting clauses for contract ID: {}", contractId);
-		List<String> contractClauses = aiService.extractClauses(contractText);
+		return pipelineCoordinationService.runOnce(contractId, EXTRACTED_CLAUSES, () -> {
+			log.debug("Extracting clauses for contract ID: {}", contractId);
+			List<String> contractClauses = aiService.extractClauses(contractText);
 
-		if (contractClauses == null || contractClauses.isEmpty()) {
-			log.debug("No clauses were extracted for contract ID: {}", contractId);
-			throw new ClausesExtractionException("No clauses extracted");
-		}
+			if (contractClauses == null || contractClauses.isEmpty()) {
+				log.debug("No clauses were extracted for contract ID: {}", contractId);
+				throw new ClausesExtractionException("No clauses extracted");
+			}
 
-		docRef.update(Map.of(EXTRACTED_CLAUSES, contractClauses, STATUS, ContractStatus.CLAUSES_EXTRACTED.name()));
+			docRef.update(Map.of(
+					EXTRACTED_CLAUSES, contractClauses,
+					CLAUSE_RECORDS, ClauseRecord.reconcile(readClauseRecords(snapshot), contractClauses).stream().map(ClauseRecord::toMap).toList(),
+					STATUS, ContractStatus.CLAUSES_EXTRACTED.name()
+			));
 
-		log.debug("Successfully extracted {} clauses for contract ID: {}", contractClauses.size(), contractId);
-		return contractClauses;
+			log.debug("Successfully extracted {} clauses for contract ID: {}", contractClauses.size(), contractId);
+			return contractClauses;
+		}, () -> {
+			List<String> stored = (List<String>) getDocumentOrThrow(contractId, docRef).get(EXTRACTED_CLAUSES);
+			return stored == null || stored.isEmpty() ? null : stored;
+		});
+	}
+
+	@Override
+	public void editClauses(String contractId, List<String> clauses) throws ContractNotFoundException, UnauthorizedAccessException, ContractReadException, ContractAlreadyConfirmedException, ClausesExtractionException {
+		DocumentReference docRef = firestore.collection(CONTRACTS).document(contractId);
+		DocumentSnapshot snapshot = getDocumentOrThrow(contractId, docRef);
+
+		if (ContractStatus.valueOf(snapshot.getString(STATUS)).compareTo(ContractStatus.DEPLOYED) >= 0) throw new ContractAlreadyConfirmedException("Cannot edit clauses of contract that is already deployed");
+		if (clauses == null || clauses.isEmpty() || clauses.stream().anyMatch(clause -> clause == null || clause.isBlank())) throw new ClausesExtractionException("Clauses must not be empty");
+
+		List<ClauseRecord> clauseRecords = ClauseRecord.reconcile(readClauseRecords(snapshot), clauses);
+
+		// Keeps the generated Solidity source, so the next generation only regenerates sections of changed clauses
+		docRef.update(Map.of(
+				EXTRACTED_CLAUSES, clauses,
+				CLAUSE_RECORDS, clauseRecords.stream().map(ClauseRecord::toMap).toList(),
+				STATUS, ContractStatus.CLAUSES_EXTRACTED.name()
+		));
+		log.debug("Updated {} clauses for contract ID: {}", clauseRecords.size(), contractId);
 	}
 
 	@Override
@@ -238,59 +320,198 @@ public class ContractServiceImpl implements IContractService {
 		DocumentReference docRef = firestore.collection(CONTRACTS).document(contractId);
 		DocumentSnapshot snapshot = getDocumentOrThrow(contractId, docRef);
 
-		List<String> clauses = (List<String>) snapshot.get(EXTRACTED_CLAUSES);
-		if (clauses == null || clauses.isEmpty()) {
+		List<ClauseRecord> clauses = readClauseRecords(snapshot);
+		if (clauses.isEmpty()) {
 			log.debug("No clauses extracted for contract ID: {}", contractId);
 			throw new ClausesExtractionException("No clauses extracted");
 		}
 
 		String cachedSoliditySource = snapshot.getString(SOLIDITY_SOURCE);
-		if (cachedSoliditySource != null && !cachedSoliditySource.isEmpty()) {
-			log.debug("Using cached solidity code for contract ID: {}", contractId);
+		Map<String, String> generatedClauseHashes = (Map<String, String>) snapshot.get(GENERATED_CLAUSE_HASHES);
+		// Sources generated before clause hashes were tracked count as changed once their clauses were edited
+		boolean clausesChanged = generatedClauseHashes != null ? !generatedClauseHashes.equals(ClauseRecord.toHashes(clauses)) : ContractStatus.valueOf(snapshot.getString(STATUS)) == ContractStatus.CLAUSES_EXTRACTED;
+
+		return pipelineCoordinationService.runOnce(contractId, SOLIDITY_SOURCE, () -> {
+			if (cachedSoliditySource != null && !cachedSoliditySource.isEmpty() && !clausesChanged) {
+				log.debug("Using cached solidity code for contract ID: {}", contractId);
+
+				GeneratedSolidity compiled;
+				try {
+					log.debug("Compiling solidity code for contract ID: {}", snapshot.getId());
+					// Keeps tuned optimizer settings when recompiling an unchanged source
+					compiled = solidityGenerationService.compileWithRepair(cachedSoliditySource, OptimizerSettings.fromMap((Map<String, Object>) snapshot.get(OPTIMIZER)));
+					if(compiled.compilationResult() == null) throw new CompilationException("Cannot compile contract");
+				} catch (CompilationException e) {
+					log.error("Solidity compilation failed for contract ID: {}", snapshot.getId(), e);
+					throw e;
+				}
+
+				Map<String, Object> updates = new HashMap<>(compiled.compilationResult().toContractFields());
+				updates.put(STATUS, ContractStatus.SOLIDITY_GENERATED.name());
+				if (!compiled.source().equals(cachedSoliditySource)) updates.put(SOLIDITY_SOURCE, compiled.source()); // Automatically repaired
+				docRef.update(updates);
+				solidityRevisionService.record(contractId, compiled.source(), compiled.source().equals(cachedSoliditySource) ? RevisionOrigin.GENERATED : RevisionOrigin.REPAIRED);
+				log.debug("Successfully compiled Solidity source and updated contract ID: {}", snapshot.getId());
+
+				return 1;
+			}
 
-			CompilationResult result;
+			String soliditySource;
+			GeneratedSolidity generated = null;
 			try {
-				log.debug("Compiling solidity code for contract ID: {}", snapshot.getId());
-				result = compile(cachedSoliditySource);
-				if(result == null) throw new CompilationException("Cannot compile contract");
-			} catch (CompilationException e) {
-				log.error("Solidity compilation failed for contract ID: {}", snapshot.getId(), e);
-				throw e;
+				soliditySource = clausesChanged && cachedSoliditySource != null ? regenerateChangedSections(contractId, cachedSoliditySource, clauses, generatedClauseHashes) : null;
+				if (soliditySource == null) {
+					log.debug("Generating solidity code for contract ID: {}", contractId);
+					generated = solidityGenerationService.generate(clauses);
+					soliditySource = generated.source();
+				}
+			} catch (Exception e) {
+				log.error("Failed to generate solidity code for contract ID: {}", contractId, e);
+				throw new SolidityGenerationException("Failed to generate Solidity code for contract ID: " + contractId + " " + e.getLocalizedMessage());
+			}
+
+			if (soliditySource == null || soliditySource.isEmpty()) {
+				log.error("Generated solidity code is empty: {}", contractId);
+				throw new SolidityGenerationException("Generated Solidity code is empty for contract ID: " + contractId);
+			}
+
+			CompilationResult compilationResult = generated != null ? generated.compilationResult() : null;
+			OptimizerSettings storedOptimizer = OptimizerSettings.fromMap((Map<String, Object>) snapshot.get(OPTIMIZER));
+			if (compilationResult != null && storedOptimizer != null && !storedOptimizer.equals(compilationResult.optimizer())) {
+				// Candidates are compiled with the default profile, keep the optimizer settings tuned for this contract
+				try {
+					compilationResult = solidityCompilerService.compile(soliditySource, storedOptimizer);
+				} catch (CompilationException e) {
+					log.debug("Generated Solidity of contract ID: {} does not compile with its tuned optimizer settings: {}", contractId, e.getLocalizedMessage());
+					compilationResult = null;
+				}
 			}
 
+			if (compilationResult != null) {
+				// Candidate was already compiled while generating, skip the separate compile step
+				Map<String, Object> updates = new HashMap<>(compilationResult.toContractFields());
+				updates.putAll(Map.of(
+						SOLIDITY_SOURCE, soliditySource,
+						GENERATED_CLAUSE_HASHES, ClauseRecord.toHashes(clauses),
+						STATUS, ContractStatus.SOLIDITY_GENERATED.name()
+				));
+				docRef.update(updates);
+				solidityRevisionService.record(contractId, soliditySource, RevisionOrigin.GENERATED);
+				log.debug("Successfully generated and compiled Solidity source for contract ID: {}", contractId);
+				return 1;
+			}
+
+			// Update document with the generated Solidity source
 			docRef.update(Map.of(
-					BINARY, result.bin(),
-					"abi", result.abi(),
-					STATUS, ContractStatus.SOLIDITY_GENERATED.name()
+					SOLIDITY_SOURCE, soliditySource,
+					GENERATED_CLAUSE_HASHES, ClauseRecord.toHashes(clauses),
+					STATUS, ContractStatus.SOLIDITY_PREPARED.name()
 			));
-			log.debug("Successfully compiled Solidity source and updated contract ID: {}", snapshot.getId());
+			solidityRevisionService.record(contractId, soliditySource, RevisionOrigin.GENERATED);
+			log.debug("Successfully updated document with Solidity source for contract ID: {}", contractId);
+
+			// Return message indicating that the Solidity code is prepared but not yet compiled
+			return 0;
+		}, () -> {
+			DocumentSnapshot current = getDocumentOrThrow(contractId, docRef);
+			if (ContractStatus.valueOf(current.getString(STATUS)) == ContractStatus.SOLIDITY_GENERATED) return 1;
+			return (cachedSoliditySource == null || cachedSoliditySource.isEmpty() || clausesChanged) && current.getString(SOLIDITY_SOURCE) != null && !Objects.equals(cachedSoliditySource, current.getString(SOLIDITY_SOURCE)) ? 0 : null;
+		});
+	}
 
-			return 1;
-		}
+	@Override
+	public OptimizerSettings tuneOptimizer(String contractId, long expectedCalls) throws ContractNotFoundException, UnauthorizedAccessException, ContractReadException, ContractAlreadyConfirmedException, CompilationException {
+		DocumentReference docRef = firestore.collection(CONTRACTS).document(contractId);
+		DocumentSnapshot snapshot = getDocumentOrThrow(contractId, docRef);
+
+		ContractStatus status = ContractStatus.valueOf(snapshot.getString(STATUS));
+		if (status.compareTo(ContractStatus.DEPLOYED) >= 0) throw new ContractAlreadyConfirmedException("Cannot change compilation of contract that is already deployed");
+		if (status != ContractStatus.SOLIDITY_GENERATED) throw new CompilationException("Solidity source must compile before tuning the optimizer");
+
+		CompilationResult tuned = solidityCompilerService.compileTuned(snapshot.getString(SOLIDITY_SOURCE), expectedCalls);
+		Map<String, Object> updates = new HashMap<>(tuned.toContractFields());
+		updates.put(EXPECTED_CALLS, expectedCalls);
+		docRef.update(updates);
+		log.debug("Tuned optimizer of contract ID: {} to {} runs for {} expected calls", contractId, tuned.optimizer().runs(), expectedCalls);
+		return tuned.optimizer();
+	}
+
+	@Override
+	public List<SolidityRevision> listSolidityRevisions(String contractId) throws ContractNotFoundException, UnauthorizedAccessException, ContractReadException {
+		getDocumentOrThrow(contractId, firestore.collection(CONTRACTS).document(contractId));
+		return solidityRevisionService.list(contractId);
+	}
+
+	@Override
+	public String getSolidityRevision(String contractId, int number) throws ContractNotFoundException, UnauthorizedAccessException, ContractReadException {
+		getDocumentOrThrow(contractId, firestore.collection(CONTRACTS).document(contractId));
+		return solidityRevisionService.getSource(contractId, number);
+	}
+
+	@Override
+	public String diffSolidityRevisions(String contractId, int from, int to) throws ContractNotFoundException, UnauthorizedAccessException, ContractReadException {
+		getDocumentOrThrow(contractId, firestore.collection(CONTRACTS).document(contractId));
+		return solidityRevisionService.diff(contractId, from, to);
+	}
 
-		log.debug("Generating solidity code for contract ID: {}", contractId);
-		String soliditySource;
+	@Override
+	@SuppressWarnings("unchecked")
+	public int restoreSolidityRevision(String contractId, int number) throws ContractNotFoundException, UnauthorizedAccessException, ContractReadException, ContractAlreadyConfirmedException {
+		DocumentReference docRef = firestore.collection(CONTRACTS).document(contractId);
+		DocumentSnapshot snapshot = getDocumentOrThrow(contractId, docRef);
+		if (ContractStatus.valueOf(snapshot.getString(STATUS)).compareTo(ContractStatus.DEPLOYED) >= 0) throw new ContractAlreadyConfirmedException("Cannot change Solidity code of contract that is already deployed");
+
+		String soliditySource = solidityRevisionService.getSource(contractId, number);
+		Map<String, Object> updates = new HashMap<>();
 		try {
-			soliditySource = aiService.generateSolidityContract(clauses);
-		} catch (Exception e) {
-			log.error("Failed to generate solidity code for contract ID: {}", contractId, e);
-			throw new SolidityGenerationException("Failed to generate Solidity code for contract ID: " + contractId + " " + e.getLocalizedMessage());
+			// Revisions compiled before are served from the compilation cache, which is keyed by the same source hash
+			updates.putAll(solidityCompilerService.compile(soliditySource, OptimizerSettings.fromMap((Map<String, Object>) snapshot.get(OPTIMIZER))).toContractFields());
+			updates.put(STATUS, ContractStatus.SOLIDITY_GENERATED.name());
+		} catch (CompilationException e) {
+			log.debug("Restored Solidity revision {} of contract ID: {} does not compile: {}", number, contractId, e.getLocalizedMessage());
+			updates.put(STATUS, ContractStatus.SOLIDITY_PREPARED.name());
+			// Compilation output of the replaced source must not be deployed with the restored one
+			updates.put(BINARY, FieldValue.delete());
+			updates.put("abi", FieldValue.delete());
+			updates.put(PROFILE, FieldValue.delete());
 		}
+		updates.put(SOLIDITY_SOURCE, soliditySource);
+		// The restored sections may implement older clause texts, so the next clause edit regenerates the whole source
+		updates.put(GENERATED_CLAUSE_HASHES, FieldValue.delete());
+		docRef.update(updates);
+		solidityRevisionService.record(contractId, soliditySource, RevisionOrigin.RESTORED);
+
+		log.debug("Restored Solidity revision {} of contract ID: {}", number, contractId);
+		return ContractStatus.SOLIDITY_GENERATED.name().equals(updates.get(STATUS)) ? 1 : 0;
+	}
 
-		if (soliditySource == null || soliditySource.isEmpty()) {
-			log.error("Generated solidity code is empty: {}", contractId);
-			throw new SolidityGenerationException("Generated Solidity code is empty for contract ID: " + contractId);
+	/**
+	 * Regenerates only the sections of new or changed clauses and removes sections of deleted clauses.
+	 *
+	 * @return merged source, or {@code null} if the source has no clause sections and must be regenerated as a whole
+	 */
+	private String regenerateChangedSections(String contractId, String soliditySource, List<ClauseRecord> clauses, Map<String, String> generatedClauseHashes) throws RequestFailedException, ConnectionRequestTimeoutException {
+		Map<String, String> currentSections = SoliditySections.parse(soliditySource);
+		if (generatedClauseHashes == null || currentSections.isEmpty()) return null;
+
+		List<ClauseRecord> changedClauses = clauses.stream().filter(clause -> !clause.hash().equals(generatedClauseHashes.get(clause.id()))).toList();
+		Set<String> removedIds = new HashSet<>(generatedClauseHashes.keySet());
+		clauses.forEach(clause -> removedIds.remove(clause.id()));
+
+		Map<String, String> regeneratedSections = Map.of();
+		if (!changedClauses.isEmpty()) {
+			Map<String, String> changedSections = new HashMap<>();
+			changedClauses.stream().filter(clause -> currentSections.containsKey(clause.id())).forEach(clause -> changedSections.put(clause.id(), currentSections.get(clause.id())));
+
+			regeneratedSections = aiService.regenerateSoliditySections(SoliditySections.outline(soliditySource), changedClauses, changedSections);
+			if (!regeneratedSections.keySet().containsAll(changedClauses.stream().map(ClauseRecord::id).toList())) {
+				log.warn("Incomplete section regeneration for contract ID: {}, regenerating whole contract", contractId);
+				return null;
+			}
 		}
 
-		// Update document with the generated Solidity source
-		docRef.update(Map.of(
-				SOLIDITY_SOURCE, soliditySource,
-				STATUS, ContractStatus.SOLIDITY_PREPARED.name()
-		));
-		log.debug("Successfully updated document with Solidity source for contract ID: {}", contractId);
-
-		// Return message indicating that the Solidity code is prepared but not yet compiled
-		return 0;
+		log.debug("Regenerated {} and removed {} of {} clause sections for contract ID: {}", changedClauses.size(), removedIds.size(), currentSections.size(), contractId);
+		return SoliditySections.merge(soliditySource, regeneratedSections, removedIds);
 	}
 
 	@Override
@@ -319,7 +540,7 @@ public class ContractServiceImpl implements IContractService {
 
 	private DocumentSnapshot getDocumentOrThrow(String contractId, DocumentReference docRef) throws ContractNotFoundException, UnauthorizedAccessException, ContractReadException {
 		try {
-			DocumentSnapshot snapshot = docRef.get().get();
+			DocumentSnapshot snapshot = dependencyGuard.await(docRef::get);
 			if (!snapshot.exists()) {
 				log.debug("Contract not found with ID {}", contractId);
 				throw new ContractNotFoundException("Contract not found: " + contractId);
@@ -333,6 +554,15 @@ public class ContractServiceImpl implements IContractService {
 		}
 	}
 
+	private static String comparable(String text) {
+		return text == null ? "" : text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").strip();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<ClauseRecord> readClauseRecords(DocumentSnapshot snapshot) {
+		return ClauseRecord.fromStored((List<Map<String, Object>>) snapshot.get(CLAUSE_RECORDS), (List<String>) snapshot.get(EXTRACTED_CLAUSES));
+	}
+
 	private void verifyOwnership(DocumentSnapshot snapshot) throws UnauthorizedAccessException {
 		String contractUserId = snapshot.getString(USER_ID);
 		String currentUserId = AuthSession.getCurrentUserId();
@@ -340,90 +570,23 @@ public class ContractServiceImpl implements IContractService {
 		if (contractUserId == null || !contractUserId.equals(currentUserId)) throw new UnauthorizedAccessException("You are not authorized to access this contract.");
 	}
 
+	@SuppressWarnings("unchecked")
 	private ContractDeploymentContext prepareDeploymentContext(String contractId, List<Object> constructorParams) throws ContractNotFoundException, UnauthorizedAccessException, ContractReadException, InvalidContractBinaryException {
 		DocumentReference contractRef = firestore.collection(CONTRACTS).document(contractId);
 
-		String contractBinary = getDocumentOrThrow(contractId, contractRef).getString(BINARY);
+		DocumentSnapshot snapshot = getDocumentOrThrow(contractId, contractRef);
+		String contractBinary = snapshot.getString(BINARY);
 		if (contractBinary == null || contractBinary.isEmpty()) throw new InvalidContractBinaryException("Contract binary not found or empty in Firestore");
 
-		return new ContractDeploymentContext(ethereumService.buildDeploymentContext(contractBinary, constructorParams), contractRef);
-	}
-
-	@SneakyThrows
-	private CompilationResult compile(String soliditySource) throws CompilationException {
-		Path sourceFile = null;
-		var anonymous = new Object() {
-			Process solidityExe = null;
-			CompilationResult result = null;
-			Throwable threadException = null;
-		};
-
-		try {
-			// Create a temporary file and write the Solidity source code
-			sourceFile = Files.createTempFile(Paths.get(System.getProperty("user.home"), "dev.markodojkic", "legal_contract_digitizer", "1.0.0"), "contract", ".sol");
-			Files.writeString(sourceFile, soliditySource);
-
-			// Start the Solidity compiler process
-			anonymous.solidityExe = new ProcessBuilder(solidityCompilerExecutable, "--combined-json", "abi,bin", sourceFile.toAbsolutePath().toString()).start();
-
-			// Thread to handle the error stream
-			Thread errorStreamThread = new Thread(() -> {
-				try {
-					String errors = new String(anonymous.solidityExe.getErrorStream().readAllBytes());
-					if (!errors.isEmpty()) {
-						log.debug(errors);
-						if(anonymous.threadException == null) anonymous.threadException = new CompilationException(errors);  // If error stream has data, throw an exception
-					}
-				} catch (IOException e) {
-					log.error("Error reading error stream: {}", e.getMessage());
-					if(anonymous.threadException == null)  anonymous.threadException = e;
-				}
-			});
-
-			// Thread to handle the output stream and parse the contract
-			Thread outputStreamThread = new Thread(() -> {
-				try {
-					String input = new String(anonymous.solidityExe.getInputStream().readAllBytes());
-					log.debug(input);
-
-					// Parse the output to find contracts
-					JsonNode contractsNode = objectMapper.readTree(input).path(CONTRACTS);
-					if (contractsNode.isEmpty() && anonymous.threadException == null) anonymous.threadException = new CompilationException("No smart contracts found in compilation output");
+		EthereumContractContext ethContext = ethereumService.buildDeploymentContext(contractBinary, constructorParams);
 
-					// Get the first contract node
-					JsonNode contractNode = contractsNode.get(contractsNode.fieldNames().next());
-
-					// Store the result in the shared variable
-					synchronized (this) {
-						anonymous.result = new CompilationResult(contractNode.get("bin").asText(), contractNode.get("abi").toString());
-					}
-				} catch (IOException e) {
-					log.error("Error reading output stream: {}", e.getMessage());
-					if(anonymous.threadException == null) anonymous.threadException = e;
-				}
-			});
-
-			// Start both threads to consume the error and output streams
-			errorStreamThread.start();
-			outputStreamThread.start();
-
-			// Wait for the process to finish (blocks until the process exits)
-			int exitCode = anonymous.solidityExe.waitFor();
-
-			// Wait for both threads to finish reading the streams
-			errorStreamThread.join();
-			outputStreamThread.join();
-			if (anonymous.threadException != null) throw anonymous.threadException;
-			else if(exitCode != 0) throw new CompilationException("Solidity compiler exited with code: " + exitCode);
-
-			return anonymous.result;
-		} catch (CompilationException e){
-			throw e;
-		} catch (Exception e) {
-			throw new CompilationException(e.getLocalizedMessage());
-		} finally {
-			if (sourceFile != null) Files.deleteIfExists(sourceFile);
-			if (anonymous.solidityExe != null) anonymous.solidityExe.destroy();
+		// The chain rejects oversized contracts only after the deployment gas is spent
+		ContractProfile profile = ContractProfile.fromMap((Map<String, Object>) snapshot.get(PROFILE));
+		if (profile != null) {
+			List<String> violations = profile.sizeViolations(ethContext.encodedConstructor().length() / 2);
+			if (!violations.isEmpty()) throw new InvalidContractBinaryException(String.join("\n", violations));
 		}
+
+		return new ContractDeploymentContext(ethContext, contractRef);
 	}
-}
\ No newline at end of file
+}
@@ -2,9 +2,13 @@ package dev.markodojkic.legalcontractdigitizer.service.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.markodojkic.legalcontractdigitizer.model.EthereumContractContext;
+import dev.markodojkic.legalcontractdigitizer.model.ExternalDependency;
 import dev.markodojkic.legalcontractdigitizer.exception.*;
 import dev.markodojkic.legalcontractdigitizer.service.IEthereumService;
+import dev.markodojkic.legalcontractdigitizer.util.DependencyGuard;
 import dev.markodojkic.legalcontractdigitizer.util.HttpClientUtil;
+import dev.markodojkic.legalcontractdigitizer.util.InteractionRecorder;
+import dev.markodojkic.legalcontractdigitizer.util.RecordReplayInterceptor;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -47,6 +51,8 @@ public class EthereumServiceImpl implements IEthereumService {
     private static final Pattern HEX_ADDRESS_PATTERN = Pattern.compile("^0x[0-9a-fA-F]{40}$");
 
     private final ObjectMapper objectMapper;
+    private final InteractionRecorder interactionRecorder;
+    private final DependencyGuard dependencyGuard;
     private Web3j web3j;
 
     @Value("${ethereum.rpc.url}")
@@ -58,7 +64,10 @@ public class EthereumServiceImpl implements IEthereumService {
     @PostConstruct
     public void init() {
         try {
-            web3j = Web3j.build(new HttpService(ethereumRpcUrl, HttpClientUtil.client, false));
+            web3j = Web3j.build(new HttpService(ethereumRpcUrl, HttpClientUtil.client.newBuilder()
+                    .addInterceptor(dependencyGuard.okHttpInterceptor(ExternalDependency.ETHEREUM))
+                    .addInterceptor(new RecordReplayInterceptor(interactionRecorder, "ethereum"))
+                    .build(), false));
 
             log.debug("EthereumService initialized with RPC {}, chainId {}", ethereumRpcUrl, chainId);
         } catch (Exception e) {
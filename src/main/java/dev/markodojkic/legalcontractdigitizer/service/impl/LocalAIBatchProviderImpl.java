@@ -0,0 +1,111 @@
+package dev.markodojkic.legalcontractdigitizer.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.markodojkic.legalcontractdigitizer.model.BatchState;
+import dev.markodojkic.legalcontractdigitizer.model.ChatCompletionRequest;
+import dev.markodojkic.legalcontractdigitizer.model.ChatCompletionResponse;
+import dev.markodojkic.legalcontractdigitizer.service.IAIBatchProvider;
+import dev.markodojkic.legalcontractdigitizer.service.IAIProvider;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local stand-in for a batch API. Completes batch lines one by one through the configured {@link IAIProvider}
+ * as background traffic, so interactive requests keep priority within the shared rate limit.
+ */
+@Service
+@ConditionalOnProperty(name = "batch.provider", havingValue = "local", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class LocalAIBatchProviderImpl implements IAIBatchProvider {
+
+	private final IAIProvider aiProvider;
+	private final ObjectMapper objectMapper;
+	private final ExecutorService worker = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("local-ai-batch").factory());
+	private final Map<String, LocalBatch> batches = new ConcurrentHashMap<>();
+
+	private static final class LocalBatch {
+		private volatile BatchState state = BatchState.IN_PROGRESS;
+		private final Map<String, ChatCompletionResponse> results = new ConcurrentHashMap<>();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		worker.shutdownNow();
+	}
+
+	@Override
+	public String submit(Path batchFile) throws IOException {
+		List<String> lines = Files.readAllLines(batchFile);
+		String batchId = "local-batch-" + UUID.randomUUID();
+		LocalBatch batch = new LocalBatch();
+		batches.put(batchId, batch);
+
+		worker.submit(() -> process(batchId, batch, lines));
+		log.debug("Local batch {} submitted with {} requests", batchId, lines.size());
+		return batchId;
+	}
+
+	@Override
+	public BatchState poll(String batchId) {
+		LocalBatch batch = batches.get(batchId);
+		if (batch != null) return batch.state;
+
+		// Unknown after restart, local batches are not durable
+		log.warn("Local batch {} was lost on restart, its contracts have to be enqueued again", batchId);
+		return BatchState.FAILED;
+	}
+
+	@Override
+	public Map<String, ChatCompletionResponse> fetchResults(String batchId) {
+		LocalBatch batch = batches.remove(batchId);
+		return batch == null ? Map.of() : Map.copyOf(batch.results);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void process(String batchId, LocalBatch batch, List<String> lines) {
+		for (String line : lines) {
+			if (line.isBlank()) continue;
+			String customId = null;
+			try {
+				JsonNode entry = objectMapper.readTree(line);
+				customId = entry.path("custom_id").asText();
+				JsonNode body = entry.path("body");
+				JsonNode messages = body.path("messages");
+
+				ChatCompletionRequest request = new ChatCompletionRequest(
+						body.path("model").asText(),
+						messages.path(0).path("content").asText(),
+						messages.path(1).path("content").asText(),
+						body.path("temperature").asDouble(),
+						body.path("max_tokens").asInt(),
+						body.has("response_format") ? objectMapper.convertValue(body.get("response_format"), Map.class) : null
+				);
+
+				batch.results.put(customId, aiProvider.complete(request, true));
+			} catch (Exception e) {
+				if (Thread.currentThread().isInterrupted()) {
+					batch.state = BatchState.FAILED;
+					return;
+				}
+				log.error("Local batch {} request {} failed", batchId, customId, e);
+			}
+		}
+		batch.state = BatchState.COMPLETED;
+		log.debug("Local batch {} completed with {}/{} successful requests", batchId, batch.results.size(), lines.size());
+	}
+}
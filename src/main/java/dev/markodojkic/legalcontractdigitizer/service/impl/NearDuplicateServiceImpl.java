@@ -0,0 +1,204 @@
+package dev.markodojkic.legalcontractdigitizer.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import dev.markodojkic.legalcontractdigitizer.model.NearDuplicateMatch;
+import dev.markodojkic.legalcontractdigitizer.service.INearDuplicateService;
+import dev.markodojkic.legalcontractdigitizer.util.MinHash;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * In-process MinHash/LSH index over the normalized text of uploaded contracts.
+ *
+ * <p>The index is persisted as an append-only log of additions and removals in the local data directory,
+ * so every upload or deletion costs one appended line and startup replays the log instead of re-reading
+ * all contracts. The log is compacted once it holds considerably more lines than live entries.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class NearDuplicateServiceImpl implements INearDuplicateService {
+
+	private static final String ADD = "add", REMOVE = "remove", HEADER = "header";
+
+	private final ObjectMapper objectMapper;
+	private final MeterRegistry meterRegistry;
+	private final Map<String, Entry> entries = new HashMap<>();
+	private final Map<Long, Set<String>> buckets = new HashMap<>();
+	private Path logFile;
+	private ObjectWriter lineWriter;
+	private int logLines;
+
+	@Value("${nearDuplicates.enabled:true}")
+	private boolean enabled;
+
+	@Value("${nearDuplicates.numHashes:128}")
+	private int numHashes;
+
+	@Value("${nearDuplicates.bands:32}")
+	private int bands;
+
+	@Value("${nearDuplicates.shingleWords:5}")
+	private int shingleWords;
+
+	@Value("${nearDuplicates.threshold:0.7}")
+	private double threshold;
+
+	private record Entry(String userId, long[] signature) {}
+
+	/**
+	 * Single line of the index log.
+	 *
+	 * @param op           {@code header}, {@code add} or {@code remove}
+	 * @param contractId   contract ID (add/remove)
+	 * @param userId       contract owner (add)
+	 * @param signature    MinHash signature (add)
+	 * @param numHashes    signature length the log was written with (header)
+	 * @param shingleWords shingle size the log was written with (header)
+	 */
+	private record LogLine(String op, String contractId, String userId, long[] signature, Integer numHashes, Integer shingleWords) {}
+
+	@PostConstruct
+	public void init() {
+		if (!enabled) return;
+		lineWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+
+		try {
+			logFile = Files.createDirectories(Paths.get(System.getProperty("user.home"), "dev.markodojkic", "legal_contract_digitizer", "1.0.0", "near-duplicates")).resolve("index.jsonl");
+			if (Files.exists(logFile)) replay();
+			if (logLines == 0) compact(); // Writes the header of a new log
+		} catch (IOException e) {
+			log.error("Failed to load near-duplicate index, starting with an empty index", e);
+			synchronized (this) {
+				entries.clear();
+				buckets.clear();
+			}
+		}
+		log.debug("Near-duplicate index loaded with {} contracts", entries.size());
+	}
+
+	@Override
+	public Optional<NearDuplicateMatch> findClosest(String userId, String contractText) {
+		if (!enabled || userId == null) return Optional.empty();
+		long[] signature = MinHash.signature(contractText, numHashes, shingleWords);
+
+		Optional<NearDuplicateMatch> closest;
+		synchronized (this) {
+			Set<String> candidates = new HashSet<>();
+			for (long key : MinHash.bandKeys(signature, bands)) candidates.addAll(buckets.getOrDefault(key, Set.of()));
+
+			// Contracts of other users are never suggested, their text must not leak through reused clauses
+			closest = candidates.stream()
+					.filter(contractId -> userId.equals(entries.get(contractId).userId()))
+					.map(contractId -> new NearDuplicateMatch(contractId, MinHash.similarity(signature, entries.get(contractId).signature())))
+					.filter(match -> match.similarity() >= threshold)
+					.max(Comparator.comparingDouble(NearDuplicateMatch::similarity));
+		}
+
+		meterRegistry.counter("contracts.near_duplicates", "outcome", closest.isPresent() ? "found" : "none").increment();
+		return closest;
+	}
+
+	@Override
+	public void index(String contractId, String userId, String contractText) {
+		if (!enabled) return;
+		long[] signature = MinHash.signature(contractText, numHashes, shingleWords);
+
+		synchronized (this) {
+			apply(new LogLine(ADD, contractId, userId, signature, null, null));
+			append(new LogLine(ADD, contractId, userId, signature, null, null));
+		}
+	}
+
+	@Override
+	public synchronized void remove(String contractId) {
+		if (!enabled || !entries.containsKey(contractId)) return;
+		apply(new LogLine(REMOVE, contractId, null, null, null, null));
+		append(new LogLine(REMOVE, contractId, null, null, null, null));
+	}
+
+	private synchronized void replay() throws IOException {
+		List<String> lines = Files.readAllLines(logFile);
+		if (lines.isEmpty()) return;
+
+		LogLine header = objectMapper.readValue(lines.getFirst(), LogLine.class);
+		if (!HEADER.equals(header.op()) || !Objects.equals(header.numHashes(), numHashes) || !Objects.equals(header.shingleWords(), shingleWords)) {
+			log.warn("Near-duplicate index was written with different signature settings, starting with an empty index");
+			return;
+		}
+
+		for (String line : lines.subList(1, lines.size())) {
+			if (line.isBlank()) continue;
+			try {
+				apply(objectMapper.readValue(line, LogLine.class));
+			} catch (IOException e) {
+				log.warn("Skipping corrupt near-duplicate index line", e); // e.g. partially written last line after a crash
+			}
+		}
+		logLines = lines.size();
+		if (logLines > 2 * entries.size() + 100) compact();
+	}
+
+	private void apply(LogLine line) {
+		Entry previous = entries.remove(line.contractId());
+		if (previous != null) removeFromBuckets(line.contractId(), previous.signature());
+		if (!ADD.equals(line.op()) || line.signature() == null || line.signature().length != numHashes) return;
+
+		entries.put(line.contractId(), new Entry(line.userId(), line.signature()));
+		for (long key : MinHash.bandKeys(line.signature(), bands)) buckets.computeIfAbsent(key, _ -> new HashSet<>()).add(line.contractId());
+	}
+
+	private void removeFromBuckets(String contractId, long[] signature) {
+		for (long key : MinHash.bandKeys(signature, bands)) {
+			Set<String> bucket = buckets.get(key);
+			if (bucket == null) continue;
+			bucket.remove(contractId);
+			if (bucket.isEmpty()) buckets.remove(key);
+		}
+	}
+
+	private void append(LogLine line) {
+		if (logFile == null) return;
+		try (BufferedWriter writer = Files.newBufferedWriter(logFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+			writer.write(lineWriter.writeValueAsString(line));
+			writer.newLine();
+			logLines++;
+		} catch (IOException e) {
+			log.error("Failed to persist near-duplicate index change for contract ID: {}", line.contractId(), e);
+		}
+		if (logLines > 2 * entries.size() + 100) compact();
+	}
+
+	private void compact() {
+		try {
+			Path compacted = Files.createTempFile(logFile.getParent(), "index", ".jsonl");
+			try (BufferedWriter writer = Files.newBufferedWriter(compacted)) {
+				writer.write(lineWriter.writeValueAsString(new LogLine(HEADER, null, null, null, numHashes, shingleWords)));
+				writer.newLine();
+				for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+					writer.write(lineWriter.writeValueAsString(new LogLine(ADD, entry.getKey(), entry.getValue().userId(), entry.getValue().signature(), null, null)));
+					writer.newLine();
+				}
+			}
+			Files.move(compacted, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			logLines = entries.size() + 1;
+		} catch (IOException e) {
+			log.error("Failed to compact near-duplicate index", e);
+		}
+	}
+}
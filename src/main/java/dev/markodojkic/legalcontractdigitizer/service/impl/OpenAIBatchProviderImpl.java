@@ -0,0 +1,134 @@
+package dev.markodojkic.legalcontractdigitizer.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.markodojkic.legalcontractdigitizer.model.BatchState;
+import dev.markodojkic.legalcontractdigitizer.model.ChatCompletionResponse;
+import dev.markodojkic.legalcontractdigitizer.service.IAIBatchProvider;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link IAIBatchProvider} implementation for the OpenAI Batch API ({@code /files} and {@code /batches}).
+ */
+@Service
+@ConditionalOnProperty(name = "batch.provider", havingValue = "openai")
+@RequiredArgsConstructor
+@Slf4j
+public class OpenAIBatchProviderImpl implements IAIBatchProvider {
+
+	private final WebClient openAiWebClient;
+	private final ObjectMapper objectMapper;
+
+	@Value("${openai.baseUrl:https://api.openai.com/v1}")
+	private String baseUrl;
+
+	@Override
+	public String submit(Path batchFile) throws IOException {
+		try {
+			MultipartBodyBuilder multipartBodyBuilder = new MultipartBodyBuilder();
+			multipartBodyBuilder.part("purpose", "batch");
+			multipartBodyBuilder.part("file", new FileSystemResource(batchFile));
+
+			JsonNode uploadedFile = objectMapper.readTree(openAiWebClient.post()
+					.uri(baseUrl + "/files")
+					.contentType(MediaType.MULTIPART_FORM_DATA)
+					.body(BodyInserters.fromMultipartData(multipartBodyBuilder.build()))
+					.retrieve()
+					.bodyToMono(String.class)
+					.block());
+
+			JsonNode batch = objectMapper.readTree(openAiWebClient.post()
+					.uri(baseUrl + "/batches")
+					.bodyValue(Map.of(
+							"input_file_id", uploadedFile.path("id").asText(),
+							"endpoint", "/v1/chat/completions",
+							"completion_window", "24h"
+					))
+					.retrieve()
+					.bodyToMono(String.class)
+					.block());
+
+			log.debug("OpenAI batch {} created from file {}", batch.path("id").asText(), uploadedFile.path("id").asText());
+			return batch.path("id").asText();
+		} catch (WebClientResponseException e) {
+			throw new IOException("OpenAI batch submission failed: HTTP " + e.getStatusCode().value() + " " + e.getResponseBodyAsString(), e);
+		}
+	}
+
+	@Override
+	public BatchState poll(String batchId) throws IOException {
+		return switch (getBatch(batchId).path("status").asText()) {
+			case "completed" -> BatchState.COMPLETED;
+			case "failed", "expired", "cancelling", "cancelled" -> BatchState.FAILED;
+			default -> BatchState.IN_PROGRESS; // validating, in_progress, finalizing
+		};
+	}
+
+	@Override
+	public Map<String, ChatCompletionResponse> fetchResults(String batchId) throws IOException {
+		String outputFileId = getBatch(batchId).path("output_file_id").asText(null);
+		if (outputFileId == null) return Map.of();
+
+		String output;
+		try {
+			output = openAiWebClient.get()
+					.uri(baseUrl + "/files/" + outputFileId + "/content")
+					.retrieve()
+					.bodyToMono(String.class)
+					.block();
+		} catch (WebClientResponseException e) {
+			throw new IOException("Failed to download OpenAI batch output: HTTP " + e.getStatusCode().value(), e);
+		}
+
+		Map<String, ChatCompletionResponse> results = new HashMap<>();
+		if (output == null) return results;
+
+		for (String line : output.split("\n")) {
+			if (line.isBlank()) continue;
+			JsonNode entry = objectMapper.readTree(line);
+			JsonNode response = entry.path("response");
+
+			if (response.path("status_code").asInt() != 200) {
+				log.warn("OpenAI batch {} request {} failed: {}", batchId, entry.path("custom_id").asText(), entry.path("error"));
+				continue;
+			}
+
+			JsonNode body = response.path("body"), choice = body.path("choices").path(0), usage = body.path("usage");
+			results.put(entry.path("custom_id").asText(), new ChatCompletionResponse(
+					choice.path("message").path("content").asText(),
+					body.path("model").asText(),
+					usage.path("prompt_tokens").asLong(),
+					usage.path("completion_tokens").asLong(),
+					choice.path("finish_reason").asText(null)
+			));
+		}
+		return results;
+	}
+
+	private JsonNode getBatch(String batchId) throws IOException {
+		try {
+			return objectMapper.readTree(openAiWebClient.get()
+					.uri(baseUrl + "/batches/" + batchId)
+					.retrieve()
+					.bodyToMono(String.class)
+					.block());
+		} catch (WebClientResponseException e) {
+			throw new IOException("Failed to poll OpenAI batch " + batchId + ": HTTP " + e.getStatusCode().value(), e);
+		}
+	}
+}
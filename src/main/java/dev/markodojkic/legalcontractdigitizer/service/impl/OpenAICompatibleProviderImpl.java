@@ -0,0 +1,154 @@
+package dev.markodojkic.legalcontractdigitizer.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.markodojkic.legalcontractdigitizer.exception.DependencyUnavailableException;
+import dev.markodojkic.legalcontractdigitizer.model.ChatCompletionRequest;
+import dev.markodojkic.legalcontractdigitizer.model.ChatCompletionResponse;
+import dev.markodojkic.legalcontractdigitizer.service.IAIProvider;
+import dev.markodojkic.legalcontractdigitizer.util.AuthSession;
+import dev.markodojkic.legalcontractdigitizer.util.OpenAiRateLimiter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.impl.classic.RequestFailedException;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link IAIProvider} implementation for OpenAI and any server exposing an OpenAI compatible
+ * {@code /chat/completions} endpoint (e.g. the local LLM stub server), selected via {@code openai.baseUrl}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OpenAICompatibleProviderImpl implements IAIProvider {
+
+	private static final String CONTENT = "content";
+	private final WebClient openAiWebClient;
+	private final ObjectMapper objectMapper;
+	private final OpenAiRateLimiter openAiRateLimiter;
+
+	@Value("${openai.baseUrl:https://api.openai.com/v1}")
+	private String baseUrl;
+
+	@Value("${openai.retry.maxAttempts:5}")
+	private int maxAttempts;
+
+	@Value("${openai.retry.baseBackoffMillis:500}")
+	private long baseBackoffMillis;
+
+	@Value("${openai.retry.maxBackoffMillis:30000}")
+	private long maxBackoffMillis;
+
+	@Override
+	public ChatCompletionResponse complete(ChatCompletionRequest request, boolean background) throws WebClientResponseException, RequestFailedException, ConnectionRequestTimeoutException {
+		Map<String, Object> requestBody = request.toOpenAiRequestBody();
+
+		String userKey = AuthSession.getCurrentUserId();
+		long estimatedTokens = OpenAiRateLimiter.estimateTokens(request.systemPrompt()) + OpenAiRateLimiter.estimateTokens(request.userPrompt()) + request.maxTokens();
+
+		for (int attempt = 0; attempt < maxAttempts; attempt++) {
+			OpenAiRateLimiter.Permit permit;
+			try {
+				permit = openAiRateLimiter.acquire(userKey, estimatedTokens, background);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RequestFailedException("Interrupted while waiting for OpenAI rate limit", e);
+			}
+
+			boolean settled = false;
+			try {
+				ResponseEntity<String> response = openAiWebClient.post()
+						.uri(baseUrl + "/chat/completions")
+						.bodyValue(requestBody)
+						.retrieve()
+						.toEntity(String.class)
+						.block();
+
+				if (response == null) throw new IllegalStateException("Empty response.");
+				openAiRateLimiter.updateFromHeaders(response.getHeaders());
+				log.debug("OpenAI raw response (attempt {}): {}", attempt + 1, response.getBody());
+
+				JsonNode root = objectMapper.readTree(response.getBody());
+				JsonNode usage = root.path("usage");
+				openAiRateLimiter.settle(permit, usage.path("total_tokens").asLong(permit.tokens()));
+				settled = true;
+
+				JsonNode choices = root.path("choices");
+				if (choices.isArray() && !choices.isEmpty()) return new ChatCompletionResponse(
+						choices.get(0).path("message").path(CONTENT).asText(),
+						root.path("model").asText(request.model()),
+						usage.path("prompt_tokens").asLong(),
+						usage.path("completion_tokens").asLong(),
+						choices.get(0).path("finish_reason").asText(null)
+				);
+				else throw new IllegalStateException("Unexpected response format.");
+			} catch (WebClientResponseException e) {
+				log.error("OpenAI API error: HTTP {}, body: {}", e.getStatusCode().value(), e.getResponseBodyAsString());
+				openAiRateLimiter.settle(permit, 0);
+				openAiRateLimiter.updateFromHeaders(e.getHeaders());
+
+				if (e.getStatusCode().value() == 429 || e.getStatusCode().value() >= 500) {
+					Duration retryAfter = parseRetryAfter(e.getHeaders());
+					if (retryAfter != null) openAiRateLimiter.pauseFor(retryAfter); // Hold back every caller, not only this one
+					Duration delay = computeBackoff(attempt, retryAfter);
+					log.warn("Rate limit or server error, retrying in {} ms (attempt {}/{})", delay.toMillis(), attempt + 1, maxAttempts);
+					try {
+						Thread.sleep(delay);
+					} catch (InterruptedException _) {
+						Thread.currentThread().interrupt();
+						throw new RequestFailedException("Interrupted while backing off OpenAI request", e);
+					}
+					continue;
+				}
+				throw e;
+
+			} catch (DependencyUnavailableException e) {
+				openAiRateLimiter.settle(permit, 0);
+				throw e; // Fail fast, retrying would only pile up on a degraded API
+			} catch (Exception e) {
+				if (!settled) openAiRateLimiter.settle(permit, 0); // Otherwise the reserved tokens stay in flight forever
+				log.error("General error while calling OpenAI API", e);
+				throw new RequestFailedException("OpenAI request failed", e);
+			}
+		}
+
+		throw new ConnectionRequestTimeoutException("Failed to get valid OpenAI response after " + maxAttempts + " retries.");
+	}
+
+	/**
+	 * Computes exponential backoff with full jitter, never shorter than the server requested {@code Retry-After}.
+	 * Jitter spreads concurrent retries apart so they do not hit the API in lockstep.
+	 */
+	private Duration computeBackoff(int attempt, Duration retryAfter) {
+		long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt, 20));
+		Duration jittered = Duration.ofMillis(ThreadLocalRandom.current().nextLong(baseBackoffMillis, Math.max(baseBackoffMillis, ceiling) + 1));
+		return retryAfter != null && retryAfter.compareTo(jittered) > 0 ? retryAfter : jittered;
+	}
+
+	private Duration parseRetryAfter(HttpHeaders headers) {
+		String retryAfterMillis = headers.getFirst("retry-after-ms");
+		String retryAfter = headers.getFirst(HttpHeaders.RETRY_AFTER);
+		try {
+			if (retryAfterMillis != null) return Duration.ofMillis((long) Double.parseDouble(retryAfterMillis.trim()));
+			if (retryAfter == null) return null;
+			if (retryAfter.trim().matches("\\d+(\\.\\d+)?")) return Duration.ofMillis((long) (Double.parseDouble(retryAfter.trim()) * 1_000));
+			return Duration.between(Instant.now(), ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+		} catch (Exception _) {
+			log.debug("Unparseable Retry-After header: {}", retryAfter);
+			return null;
+		}
+	}
+}
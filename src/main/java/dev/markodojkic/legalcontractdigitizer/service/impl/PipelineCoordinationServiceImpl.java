@@ -0,0 +1,175 @@
+package dev.markodojkic.legalcontractdigitizer.service.impl;
+
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.firebase.cloud.FirestoreClient;
+import dev.markodojkic.legalcontractdigitizer.exception.ContractReadException;
+import dev.markodojkic.legalcontractdigitizer.service.IPipelineCoordinationService;
+import dev.markodojkic.legalcontractdigitizer.util.DependencyGuard;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PipelineCoordinationServiceImpl implements IPipelineCoordinationService {
+
+	private static final String LEASES = "contractStageLeases", OWNER = "owner", EXPIRES_AT = "expiresAt";
+
+	private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService leaseRenewer = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("lease-renewer").factory());
+	private final String nodeId = resolveNodeId();
+	private final DependencyGuard dependencyGuard;
+	private Firestore firestore;
+
+	@Value("${pipeline.coordination.distributed:false}")
+	private boolean distributed;
+
+	@Value("${pipeline.coordination.leaseTtlMillis:120000}")
+	private long leaseTtlMillis;
+
+	@Value("${pipeline.coordination.pollIntervalMillis:1000}")
+	private long pollIntervalMillis;
+
+	@PostConstruct
+	public void init() {
+		if (distributed) firestore = FirestoreClient.getFirestore();
+		log.debug("Pipeline coordination initialized for node {} (distributed: {})", nodeId, distributed);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		leaseRenewer.shutdownNow();
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T runOnce(String contractId, String stage, Supplier<T> computation, Supplier<T> completedResultLoader) {
+		String key = contractId + ":" + stage;
+		CompletableFuture<Object> ownFuture = new CompletableFuture<>();
+		CompletableFuture<Object> existing = inFlight.putIfAbsent(key, ownFuture);
+
+		if (existing != null) {
+			log.debug("Joining in-flight {} for contract ID: {}", stage, contractId);
+			return (T) await(existing);
+		}
+
+		try {
+			T result = distributed ? runWithLease(key, computation, completedResultLoader) : computation.get();
+			ownFuture.complete(result);
+			return result;
+		} catch (RuntimeException e) {
+			ownFuture.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, ownFuture);
+		}
+	}
+
+	private <T> T runWithLease(String key, Supplier<T> computation, Supplier<T> completedResultLoader) {
+		DocumentReference leaseRef = firestore.collection(LEASES).document(key.replace(':', '_'));
+
+		try {
+			while (!tryAcquireLease(leaseRef)) {
+				log.debug("Stage {} is being processed by another node, waiting", key);
+				Thread.sleep(pollIntervalMillis);
+				T completed = completedResultLoader.get();
+				if (completed != null) return completed;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ContractReadException("Interrupted while waiting for lease of " + key);
+		}
+
+		// Another node may have finished between our last check and acquiring the now released lease
+		T completed = completedResultLoader.get();
+		if (completed != null) {
+			releaseLease(leaseRef);
+			return completed;
+		}
+
+		ScheduledFuture<?> renewal = leaseRenewer.scheduleAtFixedRate(() -> renewLease(leaseRef), leaseTtlMillis / 3, leaseTtlMillis / 3, TimeUnit.MILLISECONDS);
+		try {
+			return computation.get();
+		} finally {
+			renewal.cancel(false);
+			releaseLease(leaseRef);
+		}
+	}
+
+	private boolean tryAcquireLease(DocumentReference leaseRef) throws InterruptedException {
+		try {
+			return dependencyGuard.await(() -> firestore.runTransaction(transaction -> {
+				DocumentSnapshot lease = transaction.get(leaseRef).get();
+				Long expiresAt = lease.exists() ? lease.getLong(EXPIRES_AT) : null;
+				boolean available = expiresAt == null || expiresAt < System.currentTimeMillis() || nodeId.equals(lease.getString(OWNER));
+
+				if (available) transaction.set(leaseRef, Map.of(OWNER, nodeId, EXPIRES_AT, System.currentTimeMillis() + leaseTtlMillis));
+				return available;
+			}));
+		} catch (ExecutionException e) {
+			log.error("Failed to acquire lease {}", leaseRef.getId(), e);
+			throw new ContractReadException("Failed to acquire processing lease: " + e.getLocalizedMessage());
+		}
+	}
+
+	private void renewLease(DocumentReference leaseRef) {
+		try {
+			dependencyGuard.await(() -> firestore.runTransaction(transaction -> {
+				DocumentSnapshot lease = transaction.get(leaseRef).get();
+				if (lease.exists() && nodeId.equals(lease.getString(OWNER))) transaction.update(leaseRef, EXPIRES_AT, System.currentTimeMillis() + leaseTtlMillis);
+				return null;
+			}));
+		} catch (InterruptedException _) {
+			Thread.currentThread().interrupt();
+		} catch (Exception e) {
+			log.warn("Failed to renew lease {}", leaseRef.getId(), e);
+		}
+	}
+
+	private void releaseLease(DocumentReference leaseRef) {
+		try {
+			dependencyGuard.await(() -> firestore.runTransaction(transaction -> {
+				DocumentSnapshot lease = transaction.get(leaseRef).get();
+				if (lease.exists() && nodeId.equals(lease.getString(OWNER))) transaction.delete(leaseRef);
+				return null;
+			}));
+		} catch (InterruptedException _) {
+			Thread.currentThread().interrupt();
+		} catch (Exception e) {
+			// Lease will expire on its own after the TTL
+			log.warn("Failed to release lease {}", leaseRef.getId(), e);
+		}
+	}
+
+	private static Object await(CompletableFuture<Object> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) throw cause;
+			throw e;
+		}
+	}
+
+	private static String resolveNodeId() {
+		String host;
+		try {
+			host = InetAddress.getLocalHost().getHostName();
+		} catch (Exception _) {
+			host = "unknown-host";
+		}
+		return Objects.requireNonNullElse(host, "unknown-host") + "-" + UUID.randomUUID();
+	}
+}
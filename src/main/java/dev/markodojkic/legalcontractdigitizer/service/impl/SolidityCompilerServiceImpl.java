@@ -0,0 +1,788 @@
+package dev.markodojkic.legalcontractdigitizer.service.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.markodojkic.legalcontractdigitizer.exception.CompilationException;
+import dev.markodojkic.legalcontractdigitizer.exception.CompilerUnavailableException;
+import dev.markodojkic.legalcontractdigitizer.model.*;
+import dev.markodojkic.legalcontractdigitizer.service.ISolidityCompilerService;
+import dev.markodojkic.legalcontractdigitizer.util.HashUtil;
+import dev.markodojkic.legalcontractdigitizer.util.SolidityPrecheck;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SolidityCompilerServiceImpl implements ISolidityCompilerService {
+
+	private static final String COMPILER_OPTIONS = "--standard-json abi,evm.bytecode.object,evm.deployedBytecode.object,evm.gasEstimates,storageLayout", SOURCE_NAME = "contract.sol";
+
+	@Value("${ethereum.solidityCompilerExecutable}")
+	private String solidityCompilerExecutable;
+
+	@Value("${solidity.compilationCache.enabled:true}")
+	private boolean compilationCacheEnabled;
+
+	@Value("${solidity.compilationCache.maxEntries:500}")
+	private long compilationCacheMaxEntries;
+
+	@Value("${solidity.compilationCache.maxDiskMb:512}")
+	private long compilationCacheMaxDiskMb;
+
+	@Value("${solidity.compilationCache.maxAgeDays:30}")
+	private long compilationCacheMaxAgeDays;
+
+	@Value("${solidity.precheck.enabled:true}")
+	private boolean precheckEnabled;
+
+	@Value("${solidity.compiler.workers:0}")
+	private int workers;
+
+	@Value("${solidity.compiler.queueCapacity:64}")
+	private int queueCapacity;
+
+	@Value("${solidity.compiler.timeoutMillis:60000}")
+	private long compileTimeoutMillis;
+
+	@Value("${solidity.compiler.resourceLimits:true}")
+	private boolean resourceLimits;
+
+	@Value("${solidity.compiler.memoryLimitMb:2048}")
+	private long memoryLimitMb;
+
+	@Value("${solidity.optimizer.profile:BALANCED}")
+	private CompilationProfile defaultProfile;
+
+	@Value("${solidity.optimizer.tuning.runs:1,200,1000,10000}")
+	private List<Integer> tuningRuns;
+
+	@Value("${solidity.compiler.batch.maxSources:50}")
+	private int batchMaxSources;
+
+	@Value("${solidity.compiler.batch.maxBytes:1048576}")
+	private long batchMaxBytes;
+
+	@Value("${solidity.compiler.batch.perSourceTimeoutMillis:5000}")
+	private long batchPerSourceTimeoutMillis;
+
+	@Value("${solidity.compiler.batch.maxTimeoutMillis:300000}")
+	private long batchMaxTimeoutMillis;
+
+	private final ObjectMapper objectMapper;
+	private final MeterRegistry meterRegistry;
+	private final ExecutorService tuningExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("solc-tuning-", 0).factory());
+	private final ScheduledExecutorService processKiller = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("solc-killer").factory());
+	private ThreadPoolExecutor compilerPool;
+	private Timer queueWaitTimer, compileTimer;
+	private String prlimitExecutable;
+	// Error diagnostics of sources rejected by the compiler, keyed by source hash, so they are never compiled (or repaired into) again
+	private final Cache<String, List<CompilerDiagnostic>> knownBadSources = Caffeine.newBuilder().maximumSize(1000).expireAfterWrite(Duration.ofDays(1)).build();
+	// LRU front of the on-disk compilation cache, keyed by source hash, compiler version and options
+	private Cache<String, CompilationResult> compiledSources;
+	private final ConcurrentMap<String, CompletableFuture<CompilationResult>> runningCompilations = new ConcurrentHashMap<>();
+	private Path compilationCacheDir;
+	private String compilerVersion;
+
+	@PostConstruct
+	public void init() {
+		// solc is single threaded and CPU bound, more concurrent processes than cores only add contention
+		int poolSize = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+		compilerPool = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), Thread.ofPlatform().name("solc-worker-", 0).daemon().factory(), new ThreadPoolExecutor.AbortPolicy());
+		Gauge.builder("solidity.compiler.queue.size", compilerPool, pool -> pool.getQueue().size()).register(meterRegistry);
+		Gauge.builder("solidity.compiler.active", compilerPool, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+		queueWaitTimer = Timer.builder("solidity.compiler.queue.wait").description("Time compilations wait for a compiler worker").publishPercentileHistogram().register(meterRegistry);
+		compileTimer = Timer.builder("solidity.compiler.compile.time").description("Wall-clock time of solc runs").publishPercentileHistogram().register(meterRegistry);
+
+		prlimitExecutable = resourceLimits ? findOnPath("prlimit") : null;
+		log.debug("Solidity compiler pool started with {} workers (resource limits: {})", poolSize, prlimitExecutable != null);
+
+		compiledSources = Caffeine.newBuilder().maximumSize(compilationCacheMaxEntries).build();
+		compilerVersion = resolveCompilerVersion();
+		if (!compilationCacheEnabled || compilerVersion == null) return;
+
+		try {
+			compilationCacheDir = Files.createDirectories(Paths.get(System.getProperty("user.home"), "dev.markodojkic", "legal_contract_digitizer", "1.0.0", "compilation-cache"));
+		} catch (IOException e) {
+			log.warn("Cannot create compilation cache directory, only caching compilations in memory", e);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		compilerPool.shutdownNow();
+		tuningExecutor.shutdownNow();
+		processKiller.shutdownNow();
+	}
+
+	@Override
+	public boolean isKnownBad(String soliditySource) {
+		return knownBadSources.getIfPresent(HashUtil.sha256Hex(soliditySource)) != null;
+	}
+
+	@Override
+	public CompilationResult compile(String soliditySource) throws CompilationException {
+		return compile(soliditySource, null);
+	}
+
+	@Override
+	public CompilationResult compile(String soliditySource, OptimizerSettings optimizerSettings) throws CompilationException {
+		OptimizerSettings settings = optimizerSettings != null ? optimizerSettings : defaultProfile.getOptimizerSettings();
+		String sourceHash = HashUtil.sha256Hex(soliditySource);
+		List<CompilerDiagnostic> knownErrors = knownBadSources.getIfPresent(sourceHash);
+		if (knownErrors != null) {
+			log.debug("Skipping compilation of known-bad Solidity source {}", sourceHash);
+			throw compilationError(knownErrors);
+		}
+		precheck(soliditySource, sourceHash, true);
+
+		// Without a known compiler version cached results could belong to another compiler
+		if (!isCacheable()) return compileInPool(soliditySource, sourceHash, settings, true);
+
+		String cacheKey = cacheKey(sourceHash, settings);
+		CompilationResult cached = compiledSources.getIfPresent(cacheKey);
+		if (cached != null) {
+			meterRegistry.counter("solidity.compilation.cache", "result", "memory").increment();
+			return cached;
+		}
+
+		// Concurrent compilations of the same source (e.g. retries or identical contracts of different users) wait for a single solc run.
+		// The run happens outside of the cache, so it never holds a cache lock shared with other keys.
+		CompletableFuture<CompilationResult> compilation = new CompletableFuture<>();
+		CompletableFuture<CompilationResult> running = runningCompilations.putIfAbsent(cacheKey, compilation);
+		if (running != null) return awaitRunning(running);
+
+		try {
+			CompilationResult result = readFromDisk(cacheKey);
+			if (result != null) meterRegistry.counter("solidity.compilation.cache", "result", "disk").increment();
+			else {
+				meterRegistry.counter("solidity.compilation.cache", "result", "miss").increment();
+				result = compileInPool(soliditySource, sourceHash, settings, true);
+				writeToDisk(cacheKey, result);
+			}
+			compiledSources.put(cacheKey, result);
+			compilation.complete(result);
+			return result;
+		} catch (RuntimeException e) {
+			compilation.completeExceptionally(e);
+			throw e;
+		} finally {
+			runningCompilations.remove(cacheKey, compilation);
+		}
+	}
+
+	private CompilationResult awaitRunning(CompletableFuture<CompilationResult> running) {
+		try {
+			return running.get();
+		} catch (InterruptedException _) {
+			Thread.currentThread().interrupt();
+			throw new CompilerUnavailableException("Interrupted while compiling");
+		} catch (ExecutionException e) {
+			// Every waiter gets its own exception, as with known-bad sources
+			if (e.getCause() instanceof CompilationException failure) throw copyOf(failure);
+			throw new CompilerUnavailableException(e.getCause().getLocalizedMessage());
+		}
+	}
+
+	@Override
+	public CompilationResult check(String soliditySource) throws CompilationException {
+		OptimizerSettings settings = defaultProfile.getOptimizerSettings();
+		String sourceHash = HashUtil.sha256Hex(soliditySource);
+		List<CompilerDiagnostic> knownErrors = knownBadSources.getIfPresent(sourceHash);
+		if (knownErrors != null) throw compilationError(knownErrors);
+		precheck(soliditySource, sourceHash, false);
+
+		// Editor states are transient, so they are looked up in the caches but never stored there
+		if (isCacheable()) {
+			String cacheKey = cacheKey(sourceHash, settings);
+			CompilationResult cached = compiledSources.getIfPresent(cacheKey);
+			if (cached == null) cached = readFromDisk(cacheKey);
+			meterRegistry.counter("solidity.compilation.cache", "result", cached != null ? "check_hit" : "check_miss").increment();
+			if (cached != null) return cached;
+		}
+		return compileInPool(soliditySource, sourceHash, settings, false);
+	}
+
+	@Override
+	public CompilationResult compileTuned(String soliditySource, long expectedCalls) throws CompilationException {
+		List<Future<CompilationResult>> candidates = tuningRuns.stream().distinct()
+				.map(runs -> tuningExecutor.submit(() -> compile(soliditySource, new OptimizerSettings(true, runs))))
+				.toList();
+
+		CompilationResult cheapest = null;
+		long cheapestCost = Long.MAX_VALUE;
+		try {
+			for (Future<CompilationResult> candidate : candidates) {
+				CompilationResult result = candidate.get();
+				long cost = result.gasEstimates() == null ? Long.MAX_VALUE : result.gasEstimates().lifetimeCost(expectedCalls);
+				log.debug("Optimizer runs {} estimated at {} gas for {} calls", result.optimizer().runs(), cost, expectedCalls);
+				if (cheapest == null || cost < cheapestCost) {
+					cheapest = result;
+					cheapestCost = cost;
+				}
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof CompilationException compilationException) throw compilationException;
+			throw new CompilationException(e.getCause().getLocalizedMessage());
+		} catch (InterruptedException _) {
+			Thread.currentThread().interrupt();
+			throw new CompilationException("Interrupted while tuning optimizer");
+		} finally {
+			candidates.forEach(candidate -> candidate.cancel(true));
+		}
+
+		if (cheapest == null) throw new CompilationException("No optimizer runs configured for tuning");
+		meterRegistry.counter("solidity.optimizer.tuned", "runs", String.valueOf(cheapest.optimizer().runs())).increment();
+		return cheapest;
+	}
+
+	@Override
+	public BatchCompilationResult compileAll(Map<String, String> soliditySources) {
+		OptimizerSettings settings = defaultProfile.getOptimizerSettings();
+		Map<String, CompilationResult> results = new HashMap<>();
+		Map<String, CompilationException> errors = new HashMap<>();
+		Map<String, String> pending = new LinkedHashMap<>(); // Keyed by source hash, identical sources are compiled once
+
+		soliditySources.values().forEach(source -> {
+			String sourceHash = HashUtil.sha256Hex(source);
+			if (results.containsKey(sourceHash) || errors.containsKey(sourceHash) || pending.containsKey(sourceHash)) return;
+
+			List<CompilerDiagnostic> knownErrors = knownBadSources.getIfPresent(sourceHash);
+			CompilationException knownError = knownErrors != null ? compilationError(knownErrors) : null;
+			if (knownError == null) {
+				try {
+					precheck(source, sourceHash, true);
+				} catch (CompilationException e) {
+					knownError = e;
+				}
+			}
+
+			CompilationResult cached = knownError == null ? readCached(sourceHash, settings) : null;
+			if (knownError != null) errors.put(sourceHash, knownError);
+			else if (cached != null) results.put(sourceHash, cached);
+			else pending.put(sourceHash, source);
+		});
+
+		// Bounded by count and size, so a single invocation neither exceeds the job timeout nor holds too much output in memory
+		Map<String, String> chunk = new LinkedHashMap<>();
+		long chunkBytes = 0;
+		for (Map.Entry<String, String> entry : pending.entrySet()) {
+			long sourceBytes = entry.getValue().length();
+			if (!chunk.isEmpty() && (chunk.size() >= batchMaxSources || chunkBytes + sourceBytes > batchMaxBytes)) {
+				compileChunk(chunk, settings, results, errors);
+				chunk = new LinkedHashMap<>();
+				chunkBytes = 0;
+			}
+			chunk.put(entry.getKey(), entry.getValue());
+			chunkBytes += sourceBytes;
+		}
+		if (!chunk.isEmpty()) compileChunk(chunk, settings, results, errors);
+
+		Map<String, CompilationResult> compiled = new LinkedHashMap<>();
+		Map<String, CompilationException> failed = new LinkedHashMap<>();
+		soliditySources.forEach((key, source) -> {
+			String sourceHash = HashUtil.sha256Hex(source);
+			if (results.containsKey(sourceHash)) compiled.put(key, results.get(sourceHash));
+			else failed.put(key, errors.getOrDefault(sourceHash, new CompilationException("Source was not compiled")));
+		});
+
+		log.debug("Batch compiled {} Solidity sources ({} not cached), {} failed", soliditySources.size(), pending.size(), failed.size());
+		return new BatchCompilationResult(compiled, failed);
+	}
+
+	private void compileChunk(Map<String, String> chunk, OptimizerSettings settings, Map<String, CompilationResult> results, Map<String, CompilationException> errors) {
+		Map<String, String> remaining = new LinkedHashMap<>(chunk);
+		while (!remaining.isEmpty()) {
+			Map<String, String> input = new LinkedHashMap<>();
+			remaining.forEach((sourceHash, source) -> input.put(sourceHash + ".sol", source));
+			meterRegistry.summary("solidity.compiler.batch.size").record(input.size());
+
+			StandardJsonOutput output;
+			try {
+				output = submitToPool(input, settings);
+			} catch (CompilationException e) { // Compiler unavailable, busy or timed out, none of the sources is known to be bad
+				remaining.keySet().forEach(sourceHash -> errors.put(sourceHash, e));
+				return;
+			}
+
+			Set<String> failingFiles = output.diagnostics().entrySet().stream()
+					.filter(entry -> entry.getValue().stream().anyMatch(CompilerDiagnostic::isError))
+					.map(Map.Entry::getKey)
+					.collect(Collectors.toSet());
+
+			if (failingFiles.isEmpty()) {
+				remaining.forEach((sourceHash, source) -> collectResult(sourceHash, source, output, settings, results, errors));
+				break;
+			}
+
+			if (!input.keySet().containsAll(failingFiles)) { // Errors without a source location cannot be attributed, fall back to one run per source
+				remaining.forEach((sourceHash, source) -> {
+					try {
+						results.put(sourceHash, compileInPool(source, sourceHash, settings, true));
+					} catch (CompilationException e) {
+						errors.put(sourceHash, e);
+					}
+				});
+				break;
+			}
+
+			// Errors stop code generation for the whole input, so the other sources are compiled again without the failing ones
+			failingFiles.stream().map(file -> file.substring(0, file.length() - ".sol".length())).forEach(sourceHash -> {
+				collectResult(sourceHash, remaining.remove(sourceHash), output, settings, results, errors);
+			});
+		}
+
+		if (isCacheable()) chunk.keySet().stream().filter(results::containsKey).forEach(sourceHash -> {
+			compiledSources.put(cacheKey(sourceHash, settings), results.get(sourceHash));
+			writeToDisk(cacheKey(sourceHash, settings), results.get(sourceHash));
+		});
+	}
+
+	private void collectResult(String sourceHash, String soliditySource, StandardJsonOutput output, OptimizerSettings settings, Map<String, CompilationResult> results, Map<String, CompilationException> errors) {
+		String file = sourceHash + ".sol";
+		try {
+			results.put(sourceHash, toCompilationResult(sourceHash, soliditySource, output.diagnostics().getOrDefault(file, List.of()), output.contracts().getOrDefault(file, Map.of()), settings, true));
+		} catch (CompilationException e) {
+			errors.put(sourceHash, e);
+		}
+	}
+
+	/**
+	 * Rejects sources with structural errors (e.g. leftover markdown fences or unbalanced braces) without spawning solc.
+	 */
+	private void precheck(String soliditySource, String sourceHash, boolean rememberErrors) {
+		if (!precheckEnabled) return;
+
+		List<CompilerDiagnostic> errors = SolidityPrecheck.analyze(soliditySource).errors();
+		meterRegistry.counter("solidity.precheck", "result", errors.isEmpty() ? "passed" : "rejected").increment();
+		if (errors.isEmpty()) return;
+
+		if (rememberErrors) knownBadSources.put(sourceHash, errors);
+		log.debug("Solidity source {} rejected by pre-check: {}", sourceHash, errors.getFirst().message());
+		throw compilationError(errors);
+	}
+
+	private boolean isCacheable() {
+		return compilationCacheEnabled && compilerVersion != null;
+	}
+
+	private String cacheKey(String sourceHash, OptimizerSettings settings) {
+		return HashUtil.sha256Hex(sourceHash + "\n" + compilerVersion + "\n" + COMPILER_OPTIONS + " optimize=" + settings.enabled() + " runs=" + settings.runs());
+	}
+
+	private CompilationResult readCached(String sourceHash, OptimizerSettings settings) {
+		if (!isCacheable()) return null;
+		String cacheKey = cacheKey(sourceHash, settings);
+		CompilationResult cached = compiledSources.getIfPresent(cacheKey);
+		if (cached != null) {
+			meterRegistry.counter("solidity.compilation.cache", "result", "memory").increment();
+			return cached;
+		}
+
+		cached = readFromDisk(cacheKey);
+		meterRegistry.counter("solidity.compilation.cache", "result", cached != null ? "disk" : "miss").increment();
+		if (cached != null) compiledSources.put(cacheKey, cached);
+		return cached;
+	}
+
+	private CompilationResult readFromDisk(String cacheKey) {
+		if (compilationCacheDir == null) return null;
+		Path file = compilationCacheDir.resolve(cacheKey.substring(0, 2)).resolve(cacheKey + ".json");
+		if (!Files.exists(file)) return null;
+
+		try {
+			CompilationResult result = objectMapper.readValue(file.toFile(), CompilationResult.class);
+			Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis())); // Eviction goes by last access
+			return result;
+		} catch (IOException e) {
+			log.warn("Ignoring unreadable compilation cache entry {}", file, e);
+			return null;
+		}
+	}
+
+	private void writeToDisk(String cacheKey, CompilationResult result) {
+		if (compilationCacheDir == null || result == null) return;
+		try {
+			Path dir = Files.createDirectories(compilationCacheDir.resolve(cacheKey.substring(0, 2)));
+			Path tempFile = Files.createTempFile(dir, cacheKey, ".tmp");
+			objectMapper.writeValue(tempFile.toFile(), result);
+			Files.move(tempFile, dir.resolve(cacheKey + ".json"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE); // Readers never see partial entries
+		} catch (IOException e) {
+			log.warn("Failed to store compilation cache entry {}", cacheKey, e);
+		}
+	}
+
+	/**
+	 * Evicts disk cache entries not accessed within {@code maxAgeDays}, then the least recently accessed ones until the
+	 * cache fits {@code maxDiskMb}. Entries of every optimizer setting and compiler version share this budget.
+	 */
+	@Scheduled(fixedDelayString = "${solidity.compilationCache.sweepIntervalMillis:3600000}")
+	public void sweepDiskCache() {
+		if (compilationCacheDir == null) return;
+
+		List<DiskCacheEntry> entries = new ArrayList<>();
+		try (Stream<Path> files = Files.find(compilationCacheDir, 2, (_, attributes) -> attributes.isRegularFile())) {
+			files.forEach(file -> {
+				try {
+					BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+					entries.add(new DiskCacheEntry(file, attributes.lastModifiedTime().toMillis(), attributes.size()));
+				} catch (IOException _) {
+					// Removed concurrently
+				}
+			});
+		} catch (IOException e) {
+			log.warn("Failed to scan compilation cache directory", e);
+			return;
+		}
+
+		entries.sort(Comparator.comparingLong(DiskCacheEntry::lastAccess));
+		long expiredBefore = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(compilationCacheMaxAgeDays);
+		long excessBytes = entries.stream().mapToLong(DiskCacheEntry::size).sum() - compilationCacheMaxDiskMb * 1024 * 1024;
+		int evicted = 0;
+		for (DiskCacheEntry entry : entries) {
+			if (entry.lastAccess() >= expiredBefore && excessBytes <= 0) break;
+			try {
+				if (Files.deleteIfExists(entry.file())) evicted++;
+				excessBytes -= entry.size();
+			} catch (IOException e) {
+				log.warn("Failed to evict compilation cache entry {}", entry.file(), e);
+			}
+		}
+		if (evicted > 0) log.debug("Evicted {} of {} compilation cache entries from disk", evicted, entries.size());
+	}
+
+	private String resolveCompilerVersion() {
+		try {
+			Process process = new ProcessBuilder(solidityCompilerExecutable, "--version").redirectErrorStream(true).start();
+			String output = new String(process.getInputStream().readAllBytes()).strip();
+			if (process.waitFor() != 0 || output.isEmpty()) throw new IOException("Unexpected solc --version output: " + output);
+
+			log.debug("Using Solidity compiler: {}", output);
+			return output;
+		} catch (InterruptedException _) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (Exception e) {
+			log.warn("Cannot determine Solidity compiler version, compilation cache is disabled", e);
+			return null;
+		}
+	}
+
+	private CompilationResult compileInPool(String soliditySource, String sourceHash, OptimizerSettings settings, boolean rememberErrors) {
+		StandardJsonOutput output = submitToPool(Map.of(SOURCE_NAME, soliditySource), settings);
+		return toCompilationResult(sourceHash, soliditySource, output.diagnostics().values().stream().flatMap(List::stream).toList(), output.contracts().getOrDefault(SOURCE_NAME, Map.of()), settings, rememberErrors);
+	}
+
+	/**
+	 * Runs a single solc invocation for the given sources (keyed by source file name) on a compiler worker.
+	 */
+	private StandardJsonOutput submitToPool(Map<String, String> sources, OptimizerSettings settings) {
+		CompileJob job = new CompileJob(sources, settings, System.nanoTime());
+		Future<StandardJsonOutput> future;
+		try {
+			future = compilerPool.submit(job);
+		} catch (RejectedExecutionException _) {
+			meterRegistry.counter("solidity.compiler.rejected").increment();
+			throw new CompilerUnavailableException("Solidity compiler is busy, please try again later");
+		}
+
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (job.timedOut.get()) {
+				meterRegistry.counter("solidity.compiler.timeouts").increment();
+				throw new CompilerUnavailableException("Solidity compiler did not finish within " + job.timeoutMillis() + " ms");
+			}
+			throw new CompilerUnavailableException(e.getCause().getLocalizedMessage());
+		} catch (InterruptedException _) {
+			// Caller gave up (e.g. a cancelled hedged candidate), free the worker right away
+			future.cancel(true);
+			job.cancel();
+			Thread.currentThread().interrupt();
+			throw new CompilerUnavailableException("Interrupted while compiling");
+		}
+	}
+
+	/**
+	 * Single solc invocation running on a compiler worker. The solc process (and any wrapper) is killed once the job exceeds its
+	 * wall-clock timeout or its caller gives up.
+	 */
+	private final class CompileJob implements Callable<StandardJsonOutput> {
+
+		private final Map<String, String> sources;
+		private final OptimizerSettings settings;
+		private final long submittedNanos;
+		private final AtomicBoolean timedOut = new AtomicBoolean(), cancelled = new AtomicBoolean();
+		private volatile Process process;
+
+		private CompileJob(Map<String, String> sources, OptimizerSettings settings, long submittedNanos) {
+			this.sources = sources;
+			this.settings = settings;
+			this.submittedNanos = submittedNanos;
+		}
+
+		private long timeoutMillis() {
+			// Batched sources share one invocation, capped so a runaway batch cannot hold a worker indefinitely
+			return Math.min(compileTimeoutMillis + batchPerSourceTimeoutMillis * (sources.size() - 1), Math.max(compileTimeoutMillis, batchMaxTimeoutMillis));
+		}
+
+		@Override
+		public StandardJsonOutput call() throws Exception {
+			queueWaitTimer.record(System.nanoTime() - submittedNanos, TimeUnit.NANOSECONDS);
+			long startNanos = System.nanoTime();
+			ScheduledFuture<?> timeout = processKiller.schedule(() -> {
+				timedOut.set(true);
+				kill();
+			}, timeoutMillis(), TimeUnit.MILLISECONDS);
+
+			try {
+				return runSolc(this);
+			} finally {
+				timeout.cancel(false);
+				kill(); // No-op if solc already exited
+				compileTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+			}
+		}
+
+		private void cancel() {
+			cancelled.set(true);
+			kill();
+		}
+
+		// A cancellation or timeout before the process was assigned could not kill it, so the worker does it itself
+		private boolean isAbandoned() {
+			return cancelled.get() || timedOut.get();
+		}
+
+		private void kill() {
+			Process current = process;
+			if (current == null || !current.isAlive() && current.descendants().findAny().isEmpty()) return;
+			current.descendants().forEach(ProcessHandle::destroyForcibly);
+			current.destroyForcibly();
+		}
+	}
+
+	private StandardJsonOutput runSolc(CompileJob job) throws IOException, InterruptedException {
+		// Standard JSON input on stdin, only ABI, creation and runtime bytecode, gas estimates and storage layout are requested, so solc skips all other outputs
+		ObjectNode input = objectMapper.createObjectNode().put("language", "Solidity");
+		ObjectNode sources = input.putObject("sources");
+		job.sources.forEach((name, content) -> sources.putObject(name).put("content", content));
+		ObjectNode settings = input.putObject("settings");
+		settings.putObject("optimizer").put("enabled", job.settings.enabled()).put("runs", job.settings.runs());
+		settings.putObject("outputSelection").putObject("*").putArray("*").add("abi").add("evm.bytecode.object").add("evm.deployedBytecode.object").add("evm.gasEstimates").add("storageLayout");
+
+		if (job.isAbandoned()) throw new InterruptedException("Compilation abandoned before solc was started");
+		job.process = new ProcessBuilder(compilerCommand(job.timeoutMillis(), "--standard-json")).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+		if (job.isAbandoned()) {
+			job.kill();
+			throw new InterruptedException("Compilation abandoned while solc was starting");
+		}
+		try (OutputStream stdin = job.process.getOutputStream()) {
+			objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT).writeValue(stdin, input);
+		}
+
+		StandardJsonOutput output;
+		try (InputStream stdout = job.process.getInputStream(); JsonParser parser = objectMapper.getFactory().createParser(stdout)) {
+			output = parseStandardJsonOutput(parser);
+		}
+
+		int exitCode = job.process.waitFor();
+		boolean hasErrors = output.diagnostics().values().stream().flatMap(List::stream).anyMatch(CompilerDiagnostic::isError);
+		if (exitCode != 0 && !hasErrors) throw new IOException("Solidity compiler exited with code: " + exitCode);
+		return output;
+	}
+
+	/**
+	 * Picks the main contract of a single source, caching the source as known-bad if the compiler reported errors.
+	 */
+	private CompilationResult toCompilationResult(String sourceHash, String soliditySource, List<CompilerDiagnostic> diagnostics, Map<String, CompiledContract> contracts, OptimizerSettings settings, boolean rememberErrors) {
+		List<CompilerDiagnostic> errors = diagnostics.stream().filter(CompilerDiagnostic::isError).toList();
+		List<CompilerDiagnostic> warnings = diagnostics.stream().filter(diagnostic -> !diagnostic.isError()).toList();
+		warnings.forEach(warning -> log.debug("Solidity compiler {}: {}", warning.severity(), warning.formattedMessage()));
+
+		if (!errors.isEmpty()) {
+			if (rememberErrors) knownBadSources.put(sourceHash, errors); // Only confirmed compiler errors are cached, not warnings or infrastructure failures
+			throw compilationError(errors);
+		}
+		if (contracts.isEmpty()) throw new CompilationException("No smart contracts found in compilation output");
+
+		CompiledContract contract = selectMainContract(soliditySource, contracts);
+		List<ContractBytecodeSize> sizes = contracts.values().stream().map(compiled -> new ContractBytecodeSize(compiled.name(), compiled.bin().length() / 2, compiled.deployedBin().length() / 2)).toList();
+		log.debug("Compiled Solidity source {} to main contract {} of {} with {} warnings", sourceHash, contract.name(), contracts.keySet(), warnings.size());
+		ContractProfile profile = new ContractProfile(contract.name(), sizes, contract.gasEstimates(), contract.storageLayout());
+		profile.sizeViolations(0).forEach(violation -> log.warn("Solidity source {}: {}", sourceHash, violation));
+		return new CompilationResult(contract.bin(), contract.abi(), warnings, settings, profile);
+	}
+
+	// A new exception per failure, so callers never share stack traces or suppressed exceptions
+	private static CompilationException compilationError(List<CompilerDiagnostic> errors) {
+		return new CompilationException(errors.stream().map(CompilerDiagnostic::formattedMessage).collect(Collectors.joining("\n")), errors);
+	}
+
+	private static CompilationException copyOf(CompilationException failure) {
+		if (!failure.getDiagnostics().isEmpty()) return compilationError(failure.getDiagnostics());
+		String message = failure.getMessage().substring(failure.getMessage().indexOf('\n') + 1); // Without the prefix added by the constructor
+		return failure instanceof CompilerUnavailableException ? new CompilerUnavailableException(message) : new CompilationException(message);
+	}
+
+	/**
+	 * Chooses the contract to deploy among all contracts of a source, e.g. inlined {@code Ownable} or {@code ReentrancyGuard}
+	 * bases and libraries. Libraries, interfaces and abstract contracts are never chosen while a concrete contract exists.
+	 * Deployable contracts (with bytecode) which no other contract inherits from are preferred, then
+	 * contracts declaring a constructor, then the last declared one, as generated sources declare their dependencies first.
+	 */
+	private static CompiledContract selectMainContract(String soliditySource, Map<String, CompiledContract> contracts) {
+		List<ContractDeclaration> declarations = SolidityPrecheck.analyze(soliditySource).contracts();
+		Set<String> inherited = declarations.stream().flatMap(declaration -> declaration.bases().stream()).map(base -> base.substring(base.lastIndexOf('.') + 1)).collect(Collectors.toSet());
+		Map<String, Integer> positions = new HashMap<>();
+		Set<String> withConstructor = new HashSet<>(), notDeployable = new HashSet<>();
+		for (int i = 0; i < declarations.size(); i++) {
+			positions.put(declarations.get(i).name(), i);
+			if (declarations.get(i).constructorParameters() != null) withConstructor.add(declarations.get(i).name());
+			if (!declarations.get(i).isDeployable()) notDeployable.add(declarations.get(i).name());
+		}
+
+		List<CompiledContract> candidates = contracts.values().stream().filter(contract -> !notDeployable.contains(contract.name())).toList();
+		return (candidates.isEmpty() ? contracts.values() : candidates).stream().max(Comparator
+				.comparing((CompiledContract contract) -> !contract.bin().isEmpty())
+				.thenComparing(contract -> !inherited.contains(contract.name()))
+				.thenComparing(contract -> withConstructor.contains(contract.name()))
+				.thenComparing(contract -> positions.getOrDefault(contract.name(), -1))
+				.thenComparing(contract -> contract.bin().length())).orElseThrow();
+	}
+
+	/**
+	 * Builds the compiler command line, wrapped in {@code prlimit} to cap address space and CPU time where available.
+	 */
+	private List<String> compilerCommand(long timeoutMillis, String... arguments) {
+		List<String> command = new ArrayList<>();
+		if (prlimitExecutable != null) {
+			command.add(prlimitExecutable);
+			if (memoryLimitMb > 0) command.add("--as=" + memoryLimitMb * 1024 * 1024);
+			command.add("--cpu=" + Math.max(1, TimeUnit.MILLISECONDS.toSeconds(timeoutMillis)));
+			command.add("--");
+		}
+		command.add(solidityCompilerExecutable);
+		command.addAll(List.of(arguments));
+		return command;
+	}
+
+	private static String findOnPath(String executable) {
+		String path = System.getenv("PATH");
+		if (path == null) return null;
+		return Arrays.stream(path.split(File.pathSeparator))
+				.map(dir -> Paths.get(dir, executable))
+				.filter(Files::isExecutable)
+				.map(Path::toString)
+				.findFirst()
+				.orElse(null);
+	}
+
+	private record DiskCacheEntry(Path file, long lastAccess, long size) {}
+
+	// Diagnostics and compiled contracts keyed by source file name, diagnostics without source location are keyed by an empty name
+	private record StandardJsonOutput(Map<String, List<CompilerDiagnostic>> diagnostics, Map<String, Map<String, CompiledContract>> contracts) {}
+
+	private record CompiledContract(String name, String bin, String deployedBin, String abi, GasEstimates gasEstimates, List<StorageSlot> storageLayout) {}
+
+	/**
+	 * Streams through the standard JSON output, keeping only diagnostics, ABIs, bytecode, gas estimates and storage layouts of the compiled contracts.
+	 */
+	private StandardJsonOutput parseStandardJsonOutput(JsonParser parser) throws IOException {
+		Map<String, List<CompilerDiagnostic>> diagnostics = new LinkedHashMap<>();
+		Map<String, Map<String, CompiledContract>> contracts = new LinkedHashMap<>();
+		if (parser.nextToken() != JsonToken.START_OBJECT) throw new IOException("Unexpected Solidity compiler output");
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.currentName();
+			parser.nextToken();
+			switch (field) {
+				case "errors" -> {
+					while (parser.nextToken() == JsonToken.START_OBJECT) {
+						JsonNode error = parser.readValueAsTree();
+						JsonNode location = error.path("sourceLocation");
+						diagnostics.computeIfAbsent(location.path("file").asText(""), _ -> new ArrayList<>()).add(new CompilerDiagnostic(
+								error.path("severity").asText("error"),
+								error.path("type").asText(null),
+								error.path("message").asText(null),
+								error.path("formattedMessage").asText(error.path("message").asText("")),
+								location.has("start") ? location.get("start").asInt() : null,
+								location.has("end") ? location.get("end").asInt() : null));
+					}
+				}
+				case "contracts" -> {
+					while (parser.nextToken() == JsonToken.FIELD_NAME) { // Source files
+						Map<String, CompiledContract> fileContracts = contracts.computeIfAbsent(parser.currentName(), _ -> new LinkedHashMap<>());
+						parser.nextToken();
+						while (parser.nextToken() == JsonToken.FIELD_NAME) { // Contracts of the source file
+							String contractName = parser.currentName();
+							parser.nextToken();
+							JsonNode contract = parser.readValueAsTree();
+							JsonNode evm = contract.path("evm");
+							fileContracts.put(contractName, new CompiledContract(contractName, evm.path("bytecode").path("object").asText(), evm.path("deployedBytecode").path("object").asText(), contract.path("abi").toString(), parseGasEstimates(evm.path("gasEstimates")), parseStorageLayout(contract.path("storageLayout"))));
+						}
+					}
+				}
+				default -> parser.skipChildren();
+			}
+		}
+		return new StandardJsonOutput(diagnostics, contracts);
+	}
+
+	private static GasEstimates parseGasEstimates(JsonNode gasEstimates) {
+		if (gasEstimates.isMissingNode()) return null;
+
+		Map<String, Long> functions = new LinkedHashMap<>();
+		gasEstimates.path("external").properties().forEach(function -> functions.put(function.getKey(), parseGas(function.getValue())));
+		return new GasEstimates(parseGas(gasEstimates.path("creation").path("totalCost")), functions);
+	}
+
+	private static List<StorageSlot> parseStorageLayout(JsonNode storageLayout) {
+		JsonNode types = storageLayout.path("types");
+		List<StorageSlot> slots = new ArrayList<>();
+		for (JsonNode variable : storageLayout.path("storage")) {
+			JsonNode type = types.path(variable.path("type").asText());
+			slots.add(new StorageSlot(variable.path("label").asText(), type.path("label").asText(variable.path("type").asText()), variable.path("slot").asText("0"), variable.path("offset").asInt(), type.path("numberOfBytes").asInt()));
+		}
+		return List.copyOf(slots);
+	}
+
+	private static Long parseGas(JsonNode estimate) {
+		try {
+			return Long.parseLong(estimate.asText()); // "infinite" for unbounded costs, e.g. loops over storage
+		} catch (NumberFormatException _) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,219 @@
+package dev.markodojkic.legalcontractdigitizer.service.impl;
+
+import dev.markodojkic.legalcontractdigitizer.exception.CompilationException;
+import dev.markodojkic.legalcontractdigitizer.exception.SolidityGenerationException;
+import dev.markodojkic.legalcontractdigitizer.model.ClauseRecord;
+import dev.markodojkic.legalcontractdigitizer.model.CompilationResult;
+import dev.markodojkic.legalcontractdigitizer.model.GeneratedSolidity;
+import dev.markodojkic.legalcontractdigitizer.model.OptimizerSettings;
+import dev.markodojkic.legalcontractdigitizer.service.IAIService;
+import dev.markodojkic.legalcontractdigitizer.service.ISolidityCompilerService;
+import dev.markodojkic.legalcontractdigitizer.service.ISolidityGenerationService;
+import dev.markodojkic.legalcontractdigitizer.service.ISolidityTemplateService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.*;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SolidityGenerationServiceImpl implements ISolidityGenerationService {
+
+	private static final int MIN_LATENCY_SAMPLES = 5;
+
+	private final IAIService aiService;
+	private final ISolidityCompilerService solidityCompilerService;
+	private final ISolidityTemplateService solidityTemplateService;
+	private final MeterRegistry meterRegistry;
+	// Candidates call the model on behalf of the requesting user, so they run with the submitter's security context
+	private final ExecutorService candidateExecutor = new DelegatingSecurityContextExecutorService(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("solidity-candidate-", 0).factory()));
+	private final Deque<Long> recentLatenciesMillis = new ArrayDeque<>();
+	private Timer timeToCompiled;
+
+	@Value("${solidity.hedging.enabled:false}")
+	private boolean hedgingEnabled;
+
+	@Value("${solidity.hedging.parallelCandidates:1}")
+	private int parallelCandidates;
+
+	@Value("${solidity.hedging.maxCandidates:2}")
+	private int maxCandidates;
+
+	@Value("${solidity.hedging.hedgePercentile:0.9}")
+	private double hedgePercentile;
+
+	@Value("${solidity.hedging.initialHedgeDelayMillis:30000}")
+	private long initialHedgeDelayMillis;
+
+	@Value("${solidity.hedging.latencyWindow:50}")
+	private int latencyWindow;
+
+	@Value("${solidity.repair.enabled:true}")
+	private boolean repairEnabled;
+
+	@Value("${solidity.repair.maxIterations:3}")
+	private int maxRepairIterations;
+
+	private record Candidate(String source, CompilationResult compilationResult) {}
+
+	@PostConstruct
+	public void init() {
+		timeToCompiled = Timer.builder("solidity.generation.time_to_compiled")
+				.description("Time from generation request to a cleanly compiling candidate")
+				.publishPercentiles(0.5, 0.95)
+				.register(meterRegistry);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		candidateExecutor.shutdownNow();
+	}
+
+	@Override
+	public GeneratedSolidity generate(List<ClauseRecord> clauses) throws SolidityGenerationException {
+		GeneratedSolidity templated = solidityTemplateService.generate(clauses);
+		if (templated != null) return templated;
+
+		meterRegistry.counter("solidity.generation.path", "path", "model").increment();
+		if (!hedgingEnabled) {
+			try {
+				return new GeneratedSolidity(aiService.generateSolidityContract(clauses), null);
+			} catch (Exception e) {
+				throw new SolidityGenerationException(e.getLocalizedMessage());
+			}
+		}
+
+		long startNanos = System.nanoTime();
+		CompletionService<Candidate> completionService = new ExecutorCompletionService<>(candidateExecutor);
+		List<Future<Candidate>> candidates = new ArrayList<>();
+		int candidateLimit = Math.max(1, maxCandidates);
+
+		for (int i = 0; i < Math.clamp(parallelCandidates, 1, candidateLimit); i++) candidates.add(completionService.submit(() -> generateCandidate(clauses)));
+		long nextHedgeNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(hedgeDelayMillis());
+
+		String firstUncompiledSource = null;
+		Exception lastError = null;
+		int finished = 0;
+
+		try {
+			while (finished < candidates.size()) {
+				boolean canHedge = candidates.size() < candidateLimit;
+				Future<Candidate> done = canHedge ? completionService.poll(nextHedgeNanos - System.nanoTime(), TimeUnit.NANOSECONDS) : completionService.take();
+
+				if (done == null) { // Slower than the hedge threshold, race another candidate
+					candidates.add(completionService.submit(() -> generateCandidate(clauses)));
+					nextHedgeNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(hedgeDelayMillis());
+					meterRegistry.counter("solidity.generation.candidates", "reason", "hedge").increment();
+					log.debug("Solidity generation exceeded hedge delay, started candidate {}", candidates.size());
+					continue;
+				}
+
+				finished++;
+				try {
+					Candidate candidate = done.get();
+					if (candidate.compilationResult() != null) {
+						timeToCompiled.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+						meterRegistry.counter("solidity.generation.candidates", "reason", "cancelled").increment(candidates.size() - finished);
+						log.debug("Solidity candidate {} of {} compiled cleanly", finished, candidates.size());
+						return new GeneratedSolidity(candidate.source(), candidate.compilationResult());
+					}
+					if (firstUncompiledSource == null) firstUncompiledSource = candidate.source();
+				} catch (ExecutionException e) {
+					lastError = e.getCause() instanceof Exception cause ? cause : e;
+					log.warn("Solidity generation candidate failed", lastError);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SolidityGenerationException("Interrupted while waiting for generation candidates");
+		} finally {
+			candidates.forEach(candidate -> candidate.cancel(true));
+		}
+
+		// No candidate compiled, return the first one so it can be reviewed and edited as before
+		if (firstUncompiledSource != null) return new GeneratedSolidity(firstUncompiledSource, null);
+		throw new SolidityGenerationException(lastError == null ? "No candidate generated" : lastError.getLocalizedMessage());
+	}
+
+	@Override
+	public GeneratedSolidity compileWithRepair(String soliditySource, OptimizerSettings optimizerSettings) throws CompilationException {
+		CompilationException lastError;
+		try {
+			return new GeneratedSolidity(soliditySource, solidityCompilerService.compile(soliditySource, optimizerSettings));
+		} catch (CompilationException e) {
+			// Failures without diagnostics (busy or timed out compiler, no contracts) are nothing the model could repair
+			if (!repairEnabled || e.getDiagnostics().isEmpty()) throw e;
+			lastError = e;
+		}
+
+		String source = soliditySource;
+		for (int iteration = 1; iteration <= maxRepairIterations; iteration++) {
+			String repaired;
+			try {
+				repaired = aiService.repairSolidityContract(source, lastError.getLocalizedMessage());
+			} catch (Exception e) {
+				log.warn("Solidity repair request failed in iteration {}", iteration, e);
+				break;
+			}
+
+			if (repaired == null || repaired.isBlank() || solidityCompilerService.isKnownBad(repaired)) {
+				// Asking again with the same prompt would only return the same answer
+				log.debug("Solidity repair iteration {} returned empty or known-bad source", iteration);
+				break;
+			}
+
+			try {
+				CompilationResult result = solidityCompilerService.compile(repaired, optimizerSettings);
+				meterRegistry.summary("solidity.repair.iterations").record(iteration);
+				meterRegistry.counter("solidity.repair", "outcome", "repaired").increment();
+				log.debug("Solidity source repaired after {} iterations", iteration);
+				return new GeneratedSolidity(repaired, result);
+			} catch (CompilationException e) {
+				if (e.getDiagnostics().isEmpty()) throw e;
+				lastError = e;
+				source = repaired;
+			}
+		}
+
+		meterRegistry.counter("solidity.repair", "outcome", "exhausted").increment();
+		throw lastError;
+	}
+
+	private Candidate generateCandidate(List<ClauseRecord> clauses) throws Exception {
+		long startNanos = System.nanoTime();
+		String source = aiService.generateSolidityContract(clauses);
+		recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+
+		if (source == null || source.isEmpty()) return new Candidate(source, null);
+		try {
+			return new Candidate(source, solidityCompilerService.compile(source));
+		} catch (CompilationException e) {
+			log.debug("Solidity generation candidate does not compile: {}", e.getLocalizedMessage());
+			return new Candidate(source, null);
+		}
+	}
+
+	private synchronized void recordLatency(long latencyMillis) {
+		recentLatenciesMillis.addLast(latencyMillis);
+		while (recentLatenciesMillis.size() > latencyWindow) recentLatenciesMillis.removeFirst();
+	}
+
+	private synchronized long hedgeDelayMillis() {
+		if (recentLatenciesMillis.size() < MIN_LATENCY_SAMPLES) return initialHedgeDelayMillis;
+
+		List<Long> sorted = recentLatenciesMillis.stream().sorted().toList();
+		return sorted.get(Math.clamp((long) Math.ceil(hedgePercentile * sorted.size()) - 1, 0, sorted.size() - 1));
+	}
+}
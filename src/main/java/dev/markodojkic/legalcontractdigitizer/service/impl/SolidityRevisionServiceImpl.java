@@ -0,0 +1,225 @@
+package dev.markodojkic.legalcontractdigitizer.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.firebase.cloud.FirestoreClient;
+import dev.markodojkic.legalcontractdigitizer.exception.ContractNotFoundException;
+import dev.markodojkic.legalcontractdigitizer.exception.ContractReadException;
+import dev.markodojkic.legalcontractdigitizer.model.LineDelta;
+import dev.markodojkic.legalcontractdigitizer.model.RevisionOrigin;
+import dev.markodojkic.legalcontractdigitizer.model.SolidityRevision;
+import dev.markodojkic.legalcontractdigitizer.service.ISolidityRevisionService;
+import dev.markodojkic.legalcontractdigitizer.util.DependencyGuard;
+import dev.markodojkic.legalcontractdigitizer.util.HashUtil;
+import dev.markodojkic.legalcontractdigitizer.util.LineDiff;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Firestore backed Solidity revision history, stored in the {@code solidityRevisions} subcollection of each contract.
+ *
+ * <p>Revision hashes are the SHA-256 hashes of their sources, the same keys the compilation cache uses, so restoring
+ * an earlier revision is served from the cache instead of running the compiler again.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SolidityRevisionServiceImpl implements ISolidityRevisionService {
+
+	private static final String CONTRACTS = "contracts", REVISIONS = "solidityRevisions", NUMBER = "number", HASH = "hash", SNAPSHOT_NUMBER = "snapshotNumber", SOURCE = "source", DELTA = "delta", LATEST_REVISION = "solidityRevision", LATEST_REVISION_HASH = "solidityRevisionHash";
+	private static final int MAX_RECORD_ATTEMPTS = 3;
+
+	private final DependencyGuard dependencyGuard;
+	private Firestore firestore;
+	// Revisions never change once written, so reconstructed sources are cached by contract ID and revision number
+	private Cache<String, String> reconstructedSources;
+
+	@Value("${solidity.revisions.snapshotInterval:10}")
+	private int snapshotInterval;
+
+	@Value("${solidity.revisions.cacheSize:200}")
+	private int cacheSize;
+
+	@PostConstruct
+	public void init() {
+		firestore = FirestoreClient.getFirestore();
+		reconstructedSources = Caffeine.newBuilder().maximumSize(cacheSize).build();
+	}
+
+	@Override
+	public void record(String contractId, String soliditySource, RevisionOrigin origin) {
+		if (soliditySource == null || soliditySource.isEmpty()) return;
+
+		DocumentReference contractRef = firestore.collection(CONTRACTS).document(contractId);
+		String hash = HashUtil.sha256Hex(soliditySource);
+		try {
+			for (int attempt = 0; attempt < MAX_RECORD_ATTEMPTS; attempt++) {
+				DocumentSnapshot contract = dependencyGuard.await(contractRef::get);
+				Long latest = contract.getLong(LATEST_REVISION);
+				if (latest != null && hash.equals(contract.getString(LATEST_REVISION_HASH))) return;
+
+				int number = latest == null ? 1 : latest.intValue() + 1;
+				Map<String, Object> revision = new HashMap<>(Map.of(NUMBER, number, HASH, hash, "origin", origin.name(), "createdAt", System.currentTimeMillis(), "lines", LineDiff.lines(soliditySource).size()));
+				List<LineDelta> delta = latest == null ? null : deltaAgainst(contractId, latest.intValue(), soliditySource);
+				if (delta == null) {
+					revision.put(SOURCE, soliditySource);
+					revision.put(SNAPSHOT_NUMBER, number);
+				} else {
+					revision.put(DELTA, delta.stream().map(LineDelta::toMap).toList());
+					revision.put(SNAPSHOT_NUMBER, snapshotNumber(contractId, latest.intValue()));
+				}
+
+				boolean written = dependencyGuard.await(() -> firestore.runTransaction(transaction -> {
+					// A revision recorded concurrently changes the predecessor, so the delta has to be computed again
+					if (!Objects.equals(transaction.get(contractRef).get().getLong(LATEST_REVISION), latest)) return false;
+					transaction.create(contractRef.collection(REVISIONS).document(documentId(number)), revision);
+					transaction.update(contractRef, Map.of(LATEST_REVISION, number, LATEST_REVISION_HASH, hash));
+					return true;
+				}));
+
+				if (written) {
+					reconstructedSources.put(cacheKey(contractId, number), soliditySource);
+					log.debug("Recorded Solidity revision {} ({}) of contract ID: {}", number, origin, contractId);
+					return;
+				}
+			}
+			log.warn("Gave up recording Solidity revision of contract ID: {} after {} concurrent changes", contractId, MAX_RECORD_ATTEMPTS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (Exception e) {
+			log.warn("Failed to record Solidity revision of contract ID: {}", contractId, e);
+		}
+	}
+
+	@Override
+	public List<SolidityRevision> list(String contractId) throws ContractReadException {
+		try {
+			return dependencyGuard.await(revisions(contractId).orderBy(NUMBER)::get).getDocuments().stream().map(revision -> new SolidityRevision(
+					revision.getLong(NUMBER).intValue(),
+					revision.getString(HASH),
+					RevisionOrigin.valueOf(revision.getString("origin")),
+					revision.getLong("createdAt"),
+					revision.getLong("lines").intValue(),
+					revision.contains(SOURCE)
+			)).toList();
+		} catch (InterruptedException | ExecutionException e) {
+			Thread.currentThread().interrupt();
+			log.error("Error retrieving Solidity revisions of contract {}", contractId, e);
+			throw new ContractReadException("Error retrieving Solidity revisions of contract: " + contractId);
+		}
+	}
+
+	@Override
+	public String getSource(String contractId, int number) throws ContractNotFoundException, ContractReadException {
+		String cached = reconstructedSources.getIfPresent(cacheKey(contractId, number));
+		if (cached != null) return cached;
+
+		try {
+			DocumentSnapshot revision = dependencyGuard.await(revisions(contractId).document(documentId(number))::get);
+			if (!revision.exists()) throw new ContractNotFoundException("Solidity revision " + number + " not found for contract: " + contractId);
+
+			String source = reconstruct(contractId, revision);
+			if (!HashUtil.sha256Hex(source).equals(revision.getString(HASH))) throw new ContractReadException("Solidity revision " + number + " of contract " + contractId + " is corrupted");
+
+			reconstructedSources.put(cacheKey(contractId, number), source);
+			return source;
+		} catch (InterruptedException | ExecutionException e) {
+			Thread.currentThread().interrupt();
+			log.error("Error retrieving Solidity revision {} of contract {}", number, contractId, e);
+			throw new ContractReadException("Error retrieving Solidity revision " + number + " of contract: " + contractId);
+		}
+	}
+
+	@Override
+	public String diff(String contractId, int from, int to) throws ContractNotFoundException, ContractReadException {
+		return LineDiff.unified("revision " + from, "revision " + to, LineDiff.lines(getSource(contractId, from)), LineDiff.lines(getSource(contractId, to)), 3);
+	}
+
+	@Override
+	public void deleteAll(String contractId) {
+		try {
+			List<DocumentReference> revisions = new ArrayList<>();
+			revisions(contractId).listDocuments().forEach(revisions::add);
+			for (int i = 0; i < revisions.size(); i += 500) { // Firestore limit of writes per batch
+				WriteBatch batch = firestore.batch();
+				revisions.subList(i, Math.min(revisions.size(), i + 500)).forEach(batch::delete);
+				dependencyGuard.await(batch::commit);
+			}
+			reconstructedSources.asMap().keySet().removeIf(key -> key.startsWith(contractId + ":"));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (Exception e) {
+			log.warn("Failed to delete Solidity revisions of contract ID: {}", contractId, e);
+		}
+	}
+
+	/**
+	 * Computes the delta of a new source against the latest revision.
+	 *
+	 * @return delta, or {@code null} if a snapshot should be stored instead
+	 */
+	private List<LineDelta> deltaAgainst(String contractId, int latest, String soliditySource) throws ContractNotFoundException, ContractReadException {
+		if (latest + 1 - snapshotNumber(contractId, latest) >= snapshotInterval) return null;
+
+		List<LineDelta> delta = LineDiff.diff(LineDiff.lines(getSource(contractId, latest)), LineDiff.lines(soliditySource));
+		// Regenerated sources barely share lines with their predecessor, storing them whole is smaller and cheaper to read
+		int deltaSize = delta.stream().mapToInt(change -> change.inserted().stream().mapToInt(line -> line.length() + 1).sum()).sum();
+		return deltaSize >= soliditySource.length() / 2 ? null : delta;
+	}
+
+	private int snapshotNumber(String contractId, int number) throws ContractNotFoundException, ContractReadException {
+		try {
+			DocumentSnapshot revision = dependencyGuard.await(revisions(contractId).document(documentId(number))::get);
+			if (!revision.exists()) throw new ContractNotFoundException("Solidity revision " + number + " not found for contract: " + contractId);
+			return revision.getLong(SNAPSHOT_NUMBER).intValue();
+		} catch (InterruptedException | ExecutionException e) {
+			Thread.currentThread().interrupt();
+			throw new ContractReadException("Error retrieving Solidity revision " + number + " of contract: " + contractId);
+		}
+	}
+
+	/**
+	 * Applies the deltas following the revision's snapshot, at most {@code snapshotInterval - 1} of them.
+	 */
+	@SuppressWarnings("unchecked")
+	private String reconstruct(String contractId, DocumentSnapshot revision) throws InterruptedException, ExecutionException {
+		if (revision.contains(SOURCE)) return revision.getString(SOURCE);
+
+		int number = revision.getLong(NUMBER).intValue();
+		List<QueryDocumentSnapshot> chain = dependencyGuard.await(revisions(contractId)
+				.whereGreaterThanOrEqualTo(NUMBER, revision.getLong(SNAPSHOT_NUMBER))
+				.whereLessThanOrEqualTo(NUMBER, number)
+				.orderBy(NUMBER)::get).getDocuments();
+
+		List<String> lines = LineDiff.lines(chain.getFirst().getString(SOURCE));
+		for (QueryDocumentSnapshot delta : chain.subList(1, chain.size())) {
+			lines = LineDiff.apply(lines, ((List<Map<String, Object>>) delta.get(DELTA)).stream().map(LineDelta::fromMap).toList());
+		}
+		return String.join("\n", lines);
+	}
+
+	private CollectionReference revisions(String contractId) {
+		return firestore.collection(CONTRACTS).document(contractId).collection(REVISIONS);
+	}
+
+	// Zero padded, so document IDs sort like revision numbers in the Firestore console
+	private static String documentId(int number) {
+		return String.format("%08d", number);
+	}
+
+	private static String cacheKey(String contractId, int number) {
+		return contractId + ":" + number;
+	}
+}
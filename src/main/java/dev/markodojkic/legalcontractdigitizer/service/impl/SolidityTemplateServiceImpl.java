@@ -0,0 +1,131 @@
+package dev.markodojkic.legalcontractdigitizer.service.impl;
+
+import dev.markodojkic.legalcontractdigitizer.exception.CompilationException;
+import dev.markodojkic.legalcontractdigitizer.model.ClausePattern;
+import dev.markodojkic.legalcontractdigitizer.model.ClauseRecord;
+import dev.markodojkic.legalcontractdigitizer.model.CompilationResult;
+import dev.markodojkic.legalcontractdigitizer.model.GeneratedSolidity;
+import dev.markodojkic.legalcontractdigitizer.service.IAIService;
+import dev.markodojkic.legalcontractdigitizer.service.ISolidityCompilerService;
+import dev.markodojkic.legalcontractdigitizer.service.ISolidityTemplateService;
+import dev.markodojkic.legalcontractdigitizer.util.ClauseClassifier;
+import dev.markodojkic.legalcontractdigitizer.util.SoliditySections;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SolidityTemplateServiceImpl implements ISolidityTemplateService {
+
+	private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\{\\{(\\w+)}}");
+	private static final Pattern UNRESOLVED_MARKER_PATTERN = Pattern.compile("(?m)^[ \\t]*// @clause \\{\\{\\w+}} (?:begin|end)[ \\t]*\\R");
+	private static final String CONFIRMER = "CONFIRMER", CLAUSE_SUFFIX = "_CLAUSE";
+
+	private final IAIService aiService;
+	private final ISolidityCompilerService solidityCompilerService;
+	private final ResourceLoader resourceLoader;
+	private final MeterRegistry meterRegistry;
+	private String template;
+
+	@Value("${solidity.templates.enabled:true}")
+	private boolean enabled;
+
+	@Value("${solidity.templates.freelancePayment:classpath:solidity-templates/freelance_payment.sol}")
+	private String templateLocation;
+
+	@PostConstruct
+	public void init() throws IOException {
+		try (InputStream inputStream = resourceLoader.getResource(templateLocation).getInputStream()) {
+			template = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	@Override
+	public GeneratedSolidity generate(List<ClauseRecord> clauses) {
+		if (!enabled) return null;
+
+		Map<ClausePattern, ClauseRecord> templateClauses = new EnumMap<>(ClausePattern.class);
+		Map<String, String> parameters = new HashMap<>();
+		List<ClauseRecord> coveredClauses = new ArrayList<>(), unfitClauses = new ArrayList<>();
+
+		for (ClauseRecord clause : clauses) {
+			ClauseClassifier.Classification classification = ClauseClassifier.classify(clause.text());
+			switch (classification.pattern()) {
+				case UPFRONT_PAYMENT, COMPLETION_PAYMENT, COMPLETION_CONFIRMATION, TERMINATION -> {
+					// The template implements each pattern once, further instances (e.g. staged milestone payments) are implemented by the model
+					if (templateClauses.putIfAbsent(classification.pattern(), clause) != null) unfitClauses.add(clause);
+					else if (classification.pattern() == ClausePattern.UPFRONT_PAYMENT || classification.pattern() == ClausePattern.COMPLETION_PAYMENT) parameters.put(classification.pattern().name(), classification.amount() + " ether");
+					else if (classification.confirmer() != null) parameters.put(CONFIRMER, classification.confirmer());
+				}
+				case NON_EXECUTABLE -> coveredClauses.add(clause);
+				case UNKNOWN -> unfitClauses.add(clause);
+			}
+		}
+
+		if (!templateClauses.containsKey(ClausePattern.UPFRONT_PAYMENT) || !templateClauses.containsKey(ClausePattern.COMPLETION_PAYMENT)) return null;
+
+		parameters.putIfAbsent(CONFIRMER, "onlyClient");
+		templateClauses.forEach((pattern, clause) -> parameters.put(pattern.name() + CLAUSE_SUFFIX, clause.id()));
+
+		// Comment-only sections keep every clause mapped to a section, so later edits regenerate incrementally
+		Map<String, String> coveredSections = new LinkedHashMap<>();
+		coveredClauses.forEach(clause -> coveredSections.put(clause.id(), "    // @clause " + clause.id() + " begin\n    // No dedicated on-chain logic required\n    // @clause " + clause.id() + " end\n"));
+		String source = SoliditySections.merge(render(parameters), coveredSections, List.of());
+
+		if (unfitClauses.isEmpty()) {
+			meterRegistry.counter("solidity.generation.path", "path", "template").increment();
+			log.debug("Generated Solidity from template for {} clauses", clauses.size());
+			return new GeneratedSolidity(source, compileTemplate(source));
+		}
+
+		Map<String, String> generatedSections;
+		try {
+			generatedSections = aiService.regenerateSoliditySections(SoliditySections.outline(source), unfitClauses, Map.of());
+		} catch (Exception e) {
+			log.warn("Failed to generate sections for clauses not fitting the template", e);
+			return null;
+		}
+		if (!generatedSections.keySet().containsAll(unfitClauses.stream().map(ClauseRecord::id).toList())) return null;
+
+		source = SoliditySections.merge(source, generatedSections, List.of());
+		meterRegistry.counter("solidity.generation.path", "path", "template_with_model").increment();
+		log.debug("Generated Solidity from template with {} of {} clauses implemented by the model", unfitClauses.size(), clauses.size());
+
+		try {
+			return new GeneratedSolidity(source, solidityCompilerService.compile(source));
+		} catch (CompilationException e) {
+			log.debug("Templated Solidity with generated sections does not compile: {}", e.getLocalizedMessage());
+			return new GeneratedSolidity(source, null);
+		}
+	}
+
+	private String render(Map<String, String> parameters) {
+		Matcher matcher = PLACEHOLDER_PATTERN.matcher(UNRESOLVED_MARKER_PATTERN.matcher(template).replaceAll(matchResult -> {
+			Matcher placeholder = PLACEHOLDER_PATTERN.matcher(matchResult.group());
+			return placeholder.find() && parameters.containsKey(placeholder.group(1)) ? Matcher.quoteReplacement(matchResult.group()) : "";
+		}));
+		return matcher.replaceAll(matchResult -> Matcher.quoteReplacement(parameters.getOrDefault(matchResult.group(1), matchResult.group())));
+	}
+
+	private CompilationResult compileTemplate(String source) {
+		try {
+			return solidityCompilerService.compile(source); // Served from the compilation cache for recurring parameters
+		} catch (CompilationException e) {
+			log.error("Solidity template does not compile", e);
+			return null;
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package dev.markodojkic.legalcontractdigitizer.util;
+
+import dev.markodojkic.legalcontractdigitizer.model.ClausePattern;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rule-based classifier mapping clause texts onto the patterns supported by Solidity templates.
+ * Clauses with conditions templates cannot express (deadlines, penalties, percentages or non-Ether amounts)
+ * are classified as {@link ClausePattern#UNKNOWN}, so they are implemented by the model instead.
+ */
+public final class ClauseClassifier {
+
+	private static final Pattern ETHER_AMOUNT = Pattern.compile("(?i)\\b(\\d{1,9}(?:\\.\\d{1,18})?)\\s*(?:ether|eth)\\b");
+	private static final Pattern OTHER_AMOUNT = Pattern.compile("(?i)(?:[$€£]\\s*\\d|\\b\\d[\\d,.]*\\s*(?:usd|eur|gbp|dollars?|euros?|wei|gwei)\\b)");
+	private static final Pattern UNSUPPORTED_CONDITION = Pattern.compile("(?i)(?:\\b\\d+\\s*(?:hours?|days?|weeks?|months?|years?)\\b|penalt|late fee|interest|%|percent|milestone|instal?lment)");
+	private static final Pattern UPFRONT = Pattern.compile("(?i)\\b(?:upfront|up-front|advance|deposit|initial payment)\\b");
+	private static final Pattern COMPLETION_PAYMENT = Pattern.compile("(?i)\\b(?:remaining|final|balance|completion payment|upon completion|after completion|after the \\w+ confirms)\\b");
+	private static final Pattern CONFIRMATION = Pattern.compile("(?i)\\bconfirm\\w*\\b.*\\bcomplet\\w*|\\bcomplet\\w*\\b.*\\bconfirm\\w*");
+	private static final Pattern TERMINATION = Pattern.compile("(?i)\\bterminat\\w*");
+	private static final Pattern NON_EXECUTABLE = Pattern.compile("(?i)\\b(?:governing law|governed by|jurisdiction|confidential\\w*|arbitration|dispute\\w*|notices?|entire agreement|severab\\w*|intellectual property|amend\\w*|force majeure|independent contractor|counterparts|definitions?|engages?)\\b");
+	private static final Pattern BY_FREELANCER = Pattern.compile("(?i)\\bby (?:the )?freelancer\\b");
+	private static final Pattern BY_ANY_PARTY = Pattern.compile("(?i)\\b(?:either party|both parties|by (?:the )?client or (?:the )?freelancer|by (?:the )?freelancer or (?:the )?client)\\b");
+
+	private ClauseClassifier() {}
+
+	/**
+	 * Classification of a single clause.
+	 *
+	 * @param pattern   recognized clause pattern
+	 * @param amount    Ether amount (e.g. {@code "1.5"}) for payment patterns, otherwise {@code null}
+	 * @param confirmer modifier restricting who confirms completion for confirmation clauses, otherwise {@code null}
+	 */
+	public record Classification(ClausePattern pattern, String amount, String confirmer) {}
+
+	/**
+	 * Classifies the given clause.
+	 *
+	 * @param clause clause text
+	 * @return classification, never {@code null}
+	 */
+	public static Classification classify(String clause) {
+		Matcher etherAmount = ETHER_AMOUNT.matcher(clause);
+		String amount = etherAmount.find() ? etherAmount.group(1) : null;
+		boolean singleAmount = amount != null && !etherAmount.find() && !OTHER_AMOUNT.matcher(clause).find();
+		boolean unsupportedCondition = UNSUPPORTED_CONDITION.matcher(clause).find();
+
+		if (singleAmount && !unsupportedCondition) {
+			if (UPFRONT.matcher(clause).find()) return new Classification(ClausePattern.UPFRONT_PAYMENT, amount, null);
+			if (COMPLETION_PAYMENT.matcher(clause).find()) return new Classification(ClausePattern.COMPLETION_PAYMENT, amount, null);
+		}
+
+		if (amount == null && !OTHER_AMOUNT.matcher(clause).find()) {
+			if (!unsupportedCondition && CONFIRMATION.matcher(clause).find()) {
+				String confirmer = BY_ANY_PARTY.matcher(clause).find() ? "onlyParty" : BY_FREELANCER.matcher(clause).find() ? "onlyFreelancer" : "onlyClient";
+				return new Classification(ClausePattern.COMPLETION_CONFIRMATION, null, confirmer);
+			}
+			if (TERMINATION.matcher(clause).find()) return new Classification(unsupportedCondition ? ClausePattern.UNKNOWN : ClausePattern.TERMINATION, null, null);
+			if (NON_EXECUTABLE.matcher(clause).find()) return new Classification(ClausePattern.NON_EXECUTABLE, null, null);
+		}
+
+		return new Classification(ClausePattern.UNKNOWN, null, null);
+	}
+}
@@ -0,0 +1,103 @@
+package dev.markodojkic.legalcontractdigitizer.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Deterministic, rule-based clause segmenter used ahead of LLM based clause extraction.
+ *
+ * <p>Splits documents on numbered headings ({@code "1. Payment"}, {@code "1.1 The Client"}) followed by capitalised
+ * text and {@code Article/Section/Clause} headings with arabic or roman numbers. Enumerations such as {@code "1) ..."}
+ * and wrapped lines starting with a number ({@code "10.5 ether ..."}) stay inside their clause. Each heading starts a clause
+ * which is kept locally, while short headings without sentence punctuation (titles, but also short clauses such as
+ * {@code "Governing law: Serbia"}) are prepended to the following segment, so their text is never lost.
+ * Text before the first heading, oversized clauses and documents with too few headings are marked
+ * as ambiguous, so only those regions need to be sent to the model.
+ */
+@Component
+public class ClauseSegmenter {
+
+	private static final Pattern HEADING_PATTERN = Pattern.compile(
+			"^\\s*(?:(?i:article|section|clause)\\s+(?:[IVXLCDM]+|\\d{1,3}(?:\\.\\d{1,3})*)\\b|\\d{1,3}\\.(?:\\d{1,3}\\.?)*\\s+\\p{Lu})");
+
+	@Value("${clauseSegmentation.enabled:true}")
+	private boolean enabled;
+
+	@Value("${clauseSegmentation.minHeadings:3}")
+	private int minHeadings;
+
+	@Value("${clauseSegmentation.maxTitleChars:80}")
+	private int maxTitleChars;
+
+	@Value("${clauseSegmentation.maxClauseChars:3000}")
+	private int maxClauseChars;
+
+	/**
+	 * Contiguous region of the document.
+	 *
+	 * @param text  region text
+	 * @param local whether the region is a clause split locally ({@code false} if it has to be sent to the model)
+	 */
+	public record Segment(String text, boolean local) {}
+
+	/**
+	 * Splits the given document into locally segmented clauses and ambiguous regions, preserving document order.
+	 * Adjacent ambiguous regions are merged.
+	 *
+	 * @param text document text
+	 * @return segments in document order, a single ambiguous segment if the document is not structured enough
+	 */
+	public List<Segment> segment(String text) {
+		if (text == null || text.isBlank()) return List.of();
+		if (!enabled) return List.of(new Segment(text, false));
+
+		String[] lines = text.split("\\R");
+		List<Segment> segments = new ArrayList<>();
+		StringBuilder current = new StringBuilder();
+		StringBuilder pendingTitles = new StringBuilder();
+		boolean currentHasHeading = false;
+		int headings = 0;
+
+		for (String line : lines) {
+			if (HEADING_PATTERN.matcher(line).find()) {
+				addSegment(segments, pendingTitles, current.toString(), currentHasHeading);
+				current.setLength(0);
+				currentHasHeading = true;
+				headings++;
+			}
+			current.append(line).append('\n');
+		}
+		addSegment(segments, pendingTitles, current.toString(), currentHasHeading);
+		if (!pendingTitles.isEmpty()) addSegment(segments, new StringBuilder(), pendingTitles.toString(), false); // Trailing titles are left to the model
+
+		return headings < minHeadings ? List.of(new Segment(text, false)) : segments;
+	}
+
+	private void addSegment(List<Segment> segments, StringBuilder pendingTitles, String segmentRawText, boolean hasHeading) {
+		String segmentText = segmentRawText.strip().replaceAll("\\s*\\R\\s*", " ");
+		if (segmentText.isEmpty()) return;
+
+		// Title only heading, e.g. "ARTICLE IV - PAYMENT TERMS", or a short unpunctuated clause, kept with the following segment
+		if (hasHeading && segmentText.length() <= maxTitleChars && !segmentText.matches(".*[.;]$")) {
+			pendingTitles.append(segmentRawText.strip()).append('\n');
+			return;
+		}
+
+		String rawText = pendingTitles + segmentRawText.strip();
+		if (!pendingTitles.isEmpty()) {
+			segmentText = rawText.replaceAll("\\s*\\R\\s*", " ");
+			pendingTitles.setLength(0);
+		}
+
+		boolean local = hasHeading && segmentText.length() <= maxClauseChars;
+		if (!local && !segments.isEmpty() && !segments.getLast().local()) {
+			segments.set(segments.size() - 1, new Segment(segments.getLast().text() + "\n" + rawText.strip(), false));
+			return;
+		}
+		segments.add(new Segment(local ? segmentText : rawText.strip(), local));
+	}
+}
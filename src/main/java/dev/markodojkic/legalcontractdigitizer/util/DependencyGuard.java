@@ -0,0 +1,213 @@
+package dev.markodojkic.legalcontractdigitizer.util;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.gax.rpc.ApiException;
+import com.google.cloud.firestore.FirestoreException;
+import dev.markodojkic.legalcontractdigitizer.exception.DependencyUnavailableException;
+import dev.markodojkic.legalcontractdigitizer.model.ExternalDependency;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.grpc.StatusRuntimeException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Isolates calls to external dependencies (OpenAI, Firestore, Ethereum RPC) with a circuit breaker and a bounded
+ * concurrency bulkhead per dependency, so a degraded dependency fails fast instead of piling up threads and
+ * starving unrelated endpoints. Instances are configured under {@code resilience4j} in {@code application.yaml}
+ * and exposed as {@code resilience4j.circuitbreaker.*} and {@code resilience4j.bulkhead.*} metrics.
+ *
+ * <p>Server errors, timeouts and I/O failures count as failures. Client errors (including rate limiting, which is
+ * handled by {@link OpenAiRateLimiter}, and Firestore errors such as {@code NOT_FOUND} or aborted transactions) say
+ * nothing about the health of the dependency and are not counted.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class DependencyGuard {
+
+	// gRPC status codes telling that Firestore itself is unavailable or failing, anything else (e.g. NOT_FOUND, FAILED_PRECONDITION, ABORTED) is caused by the request
+	private static final Set<String> FIRESTORE_FAILURE_CODES = Set.of("UNAVAILABLE", "DEADLINE_EXCEEDED", "INTERNAL", "UNKNOWN", "DATA_LOSS");
+
+	private final CircuitBreakerRegistry circuitBreakerRegistry;
+	private final BulkheadRegistry bulkheadRegistry;
+
+	@Value("${resilience.firestore.timeoutMillis:10000}")
+	private long firestoreTimeoutMillis;
+
+	/**
+	 * Permission to make one call, which must be completed exactly once.
+	 */
+	public static final class Permit {
+
+		private final CircuitBreaker circuitBreaker;
+		private final Bulkhead bulkhead;
+		private final long startTimestamp;
+		private final AtomicBoolean completed = new AtomicBoolean();
+
+		private Permit(CircuitBreaker circuitBreaker, Bulkhead bulkhead) {
+			this.circuitBreaker = circuitBreaker;
+			this.bulkhead = bulkhead;
+			this.startTimestamp = circuitBreaker.getCurrentTimestamp();
+		}
+
+		/** Records a call which reached a healthy dependency. */
+		public void success() {
+			if (completed.compareAndSet(false, true)) {
+				circuitBreaker.onSuccess(circuitBreaker.getCurrentTimestamp() - startTimestamp, circuitBreaker.getTimestampUnit());
+				bulkhead.onComplete();
+			}
+		}
+
+		/** Records a call which failed because of the dependency. */
+		public void failure(Throwable throwable) {
+			if (completed.compareAndSet(false, true)) {
+				circuitBreaker.onError(circuitBreaker.getCurrentTimestamp() - startTimestamp, circuitBreaker.getTimestampUnit(), throwable);
+				bulkhead.onComplete();
+			}
+		}
+
+		/** Releases a call whose outcome says nothing about the dependency, e.g. a cancelled request. */
+		public void release() {
+			if (completed.compareAndSet(false, true)) {
+				circuitBreaker.releasePermission();
+				bulkhead.onComplete();
+			}
+		}
+	}
+
+	/**
+	 * Acquires permission to call the given dependency, failing fast if its circuit breaker is open or its bulkhead stays full.
+	 *
+	 * @param dependency dependency to call
+	 * @return permit which must be completed once the call finished
+	 * @throws DependencyUnavailableException if the call is rejected
+	 */
+	public Permit acquire(ExternalDependency dependency) throws DependencyUnavailableException {
+		CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(dependency.getInstanceName());
+		Bulkhead bulkhead = bulkheadRegistry.bulkhead(dependency.getInstanceName());
+
+		try {
+			circuitBreaker.acquirePermission();
+		} catch (CallNotPermittedException _) {
+			log.debug("Rejected {} call, circuit breaker is {}", dependency.getDisplayName(), circuitBreaker.getState());
+			throw new DependencyUnavailableException(dependency.getDisplayName() + " is temporarily unavailable, please try again later");
+		}
+
+		try {
+			bulkhead.acquirePermission();
+		} catch (BulkheadFullException _) {
+			circuitBreaker.releasePermission();
+			log.debug("Rejected {} call, bulkhead is full", dependency.getDisplayName());
+			throw new DependencyUnavailableException(dependency.getDisplayName() + " is overloaded, please try again later");
+		}
+		return new Permit(circuitBreaker, bulkhead);
+	}
+
+	/**
+	 * Starts a Firestore operation and waits for its result for at most {@code resilience.firestore.timeoutMillis}.
+	 *
+	 * @param operation starts the operation, e.g. {@code () -> docRef.get()}
+	 * @param <T>       result type
+	 * @return operation result
+	 * @throws InterruptedException if interrupted while waiting
+	 * @throws ExecutionException if the operation failed or timed out
+	 * @throws DependencyUnavailableException if the call is rejected
+	 */
+	public <T> T await(Supplier<ApiFuture<T>> operation) throws InterruptedException, ExecutionException {
+		Permit permit = acquire(ExternalDependency.FIRESTORE);
+		ApiFuture<T> future = null;
+		try {
+			future = operation.get();
+			T result = future.get(firestoreTimeoutMillis, TimeUnit.MILLISECONDS);
+			permit.success();
+			return result;
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			permit.failure(e);
+			throw new ExecutionException("Firestore operation timed out after " + firestoreTimeoutMillis + " ms", e);
+		} catch (ExecutionException | RuntimeException e) {
+			if (isFirestoreFailure(e)) permit.failure(e);
+			else permit.success(); // Firestore answered, e.g. a missing document or a contended transaction
+			throw e;
+		} finally {
+			permit.release(); // No-op unless interrupted
+		}
+	}
+
+	private static boolean isFirestoreFailure(Throwable throwable) {
+		for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+			if (cause instanceof ApiException apiException) return FIRESTORE_FAILURE_CODES.contains(apiException.getStatusCode().getCode().name());
+			if (cause instanceof FirestoreException firestoreException && firestoreException.getStatus() != null) return FIRESTORE_FAILURE_CODES.contains(firestoreException.getStatus().getCode().name());
+			if (cause instanceof StatusRuntimeException statusException) return FIRESTORE_FAILURE_CODES.contains(statusException.getStatus().getCode().name());
+			if (cause instanceof IOException || cause instanceof TimeoutException) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Creates a {@code WebClient} filter guarding every exchange with the given dependency.
+	 *
+	 * @param dependency dependency called by the client
+	 * @return exchange filter
+	 */
+	public ExchangeFilterFunction webClientFilter(ExternalDependency dependency) {
+		return (request, next) -> Mono.defer(() -> {
+			Permit permit = acquire(dependency);
+			return next.exchange(request)
+					.doOnNext(response -> {
+						if (response.statusCode().is5xxServerError()) permit.failure(new IOException("HTTP " + response.statusCode().value()));
+						else permit.success();
+					})
+					.doOnError(permit::failure)
+					.doFinally(_ -> permit.release());
+		});
+	}
+
+	/**
+	 * Creates an OkHttp interceptor guarding every call to the given dependency.
+	 *
+	 * @param dependency dependency called by the client
+	 * @return interceptor, rejected calls fail with an {@link IOException}
+	 */
+	public Interceptor okHttpInterceptor(ExternalDependency dependency) {
+		return chain -> {
+			Permit permit;
+			try {
+				permit = acquire(dependency);
+			} catch (DependencyUnavailableException e) {
+				throw new IOException(e.getLocalizedMessage(), e);
+			}
+
+			try {
+				Response response = chain.proceed(chain.request());
+				if (response.code() >= 500) permit.failure(new IOException("HTTP " + response.code()));
+				else permit.success();
+				return response;
+			} catch (IOException | RuntimeException e) {
+				permit.failure(e);
+				throw e;
+			} finally {
+				permit.release();
+			}
+		};
+	}
+}
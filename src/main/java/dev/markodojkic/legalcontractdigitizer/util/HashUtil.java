@@ -0,0 +1,28 @@
+package dev.markodojkic.legalcontractdigitizer.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Utility class for content hashing.
+ */
+public final class HashUtil {
+
+	private HashUtil() {}
+
+	/**
+	 * Computes the SHA-256 hash of the given text.
+	 *
+	 * @param text text to hash (UTF-8 encoded)
+	 * @return lowercase hex encoded hash
+	 */
+	public static String sha256Hex(String text) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported by this JVM", e); // Mandatory algorithm for every Java platform
+		}
+	}
+}
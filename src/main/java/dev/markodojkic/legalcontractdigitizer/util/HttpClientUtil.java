@@ -207,7 +207,8 @@ public class HttpClientUtil {
 		String unauthorizedMessage = "Unauthorized access. Please login again.";
         return switch (responseType.getTypeName()) {
             case "dev.markodojkic.legalcontractdigitizer.util.Either<dev.markodojkic.legalcontractdigitizer.model.DigitalizedContract, java.lang.String>",
-                 "dev.markodojkic.legalcontractdigitizer.util.Either<java.util.List<dev.markodojkic.legalcontractdigitizer.model.DigitalizedContract>, java.lang.String>" ->
+                 "dev.markodojkic.legalcontractdigitizer.util.Either<java.util.List<dev.markodojkic.legalcontractdigitizer.model.DigitalizedContract>, java.lang.String>",
+                 "dev.markodojkic.legalcontractdigitizer.util.Either<java.util.List<dev.markodojkic.legalcontractdigitizer.model.CompilerDiagnostic>, java.lang.String>" ->
                     objectMapper.writeValueAsString(Either.right(unauthorizedMessage));
             case "dev.markodojkic.legalcontractdigitizer.model.GasEstimateResponseDTO" ->
                     objectMapper.writeValueAsString(new GasEstimateResponseDTO(unauthorizedMessage, null, null));
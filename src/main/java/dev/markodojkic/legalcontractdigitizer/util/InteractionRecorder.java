@@ -0,0 +1,171 @@
+package dev.markodojkic.legalcontractdigitizer.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.markodojkic.legalcontractdigitizer.model.RecordedExchange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Record/replay store for external API interactions (OpenAI and Ethereum JSON-RPC).
+ *
+ * <p>In {@code record} mode, every exchange is appended with its latency to {@code <channel>.jsonl} in the recordings
+ * directory. In {@code replay} mode, requests are matched by channel, method, endpoint and normalized body and answered
+ * from the recordings at the recorded latency multiplied by {@code recordReplay.latencyScale}, without network access.
+ * Identical requests are replayed in recorded order, repeating the last response once exhausted. JSON-RPC request IDs
+ * are ignored for matching and the replayed response carries the ID of the current request. Request headers
+ * (including credentials) are never recorded.
+ */
+@Component
+@Slf4j
+public class InteractionRecorder {
+
+	public enum Mode { OFF, RECORD, REPLAY }
+
+	private static final String JSON_RPC_ID = "id";
+
+	private final ObjectMapper objectMapper;
+	private final ObjectWriter lineWriter;
+	private final Mode mode;
+	private final Path directory;
+	private final double latencyScale;
+	private final Map<String, List<RecordedExchange>> recordingsByKey = new ConcurrentHashMap<>();
+	private final Map<String, Integer> replayPositions = new HashMap<>();
+	private final Set<String> loadedChannels = ConcurrentHashMap.newKeySet();
+
+	public InteractionRecorder(ObjectMapper objectMapper,
+	                           @Value("${recordReplay.mode:off}") String mode,
+	                           @Value("${recordReplay.directory:}") String directory,
+	                           @Value("${recordReplay.latencyScale:1.0}") double latencyScale) {
+		this.objectMapper = objectMapper;
+		this.lineWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+		this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+		this.directory = directory.isBlank() ? Paths.get(System.getProperty("user.home"), "dev.markodojkic", "legal_contract_digitizer", "1.0.0", "recordings") : Paths.get(directory);
+		this.latencyScale = Math.max(0, latencyScale);
+		if (this.mode != Mode.OFF) log.info("External API interactions are in {} mode using directory {}", this.mode, this.directory);
+	}
+
+	public Mode mode() {
+		return mode;
+	}
+
+	/**
+	 * Appends a live exchange to the recordings of its channel.
+	 *
+	 * @param channel         recorded client
+	 * @param method          HTTP method
+	 * @param endpoint        request path without host and credentials
+	 * @param requestBody     request body, may be empty
+	 * @param status          response status code
+	 * @param responseHeaders response headers
+	 * @param responseBody    response body
+	 * @param latency         time until the complete response was received
+	 */
+	public synchronized void record(String channel, String method, String endpoint, String requestBody, int status, Map<String, String> responseHeaders, String responseBody, Duration latency) {
+		RecordedExchange exchange = new RecordedExchange(channel, method, endpoint, hashRequest(requestBody), requestBody, status, responseHeaders, responseBody, latency.toMillis(), System.currentTimeMillis());
+		try (BufferedWriter writer = Files.newBufferedWriter(Files.createDirectories(directory).resolve(channel + ".jsonl"), StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+			writer.write(lineWriter.writeValueAsString(exchange));
+			writer.newLine();
+		} catch (IOException e) {
+			log.error("Failed to record {} {} exchange of channel {}", method, endpoint, channel, e);
+		}
+	}
+
+	/**
+	 * Finds the recorded response for the given request.
+	 *
+	 * @param channel     recorded client
+	 * @param method      HTTP method
+	 * @param endpoint    request path without host and credentials
+	 * @param requestBody request body, may be empty
+	 * @return recorded exchange, with the JSON-RPC ID of the response replaced by the one of the request
+	 * @throws IllegalStateException if no matching exchange was recorded
+	 */
+	public RecordedExchange replay(String channel, String method, String endpoint, String requestBody) {
+		loadChannel(channel);
+		String key = key(channel, method, endpoint, hashRequest(requestBody));
+		List<RecordedExchange> recordings = recordingsByKey.get(key);
+		if (recordings == null || recordings.isEmpty()) throw new IllegalStateException("No recorded " + channel + " interaction for " + method + " " + endpoint + " with the given request body");
+
+		RecordedExchange recorded;
+		synchronized (replayPositions) {
+			int position = replayPositions.merge(key, 1, Integer::sum) - 1;
+			recorded = recordings.get(Math.min(position, recordings.size() - 1));
+		}
+		return withJsonRpcId(recorded, requestBody);
+	}
+
+	/**
+	 * Computes how long a replayed response should be delayed.
+	 *
+	 * @param exchange replayed exchange
+	 * @return recorded latency multiplied by the configured latency scale
+	 */
+	public Duration replayDelay(RecordedExchange exchange) {
+		return Duration.ofMillis(Math.round(exchange.latencyMillis() * latencyScale));
+	}
+
+	private void loadChannel(String channel) {
+		if (!loadedChannels.add(channel)) return;
+
+		Path file = directory.resolve(channel + ".jsonl");
+		if (!Files.exists(file)) {
+			log.warn("No recordings found for channel {} at {}", channel, file);
+			return;
+		}
+		try {
+			for (String line : Files.readAllLines(file)) {
+				if (line.isBlank()) continue;
+				RecordedExchange exchange = objectMapper.readValue(line, RecordedExchange.class);
+				recordingsByKey.computeIfAbsent(key(exchange.channel(), exchange.method(), exchange.endpoint(), exchange.requestHash()), _ -> new ArrayList<>()).add(exchange);
+			}
+			log.debug("Loaded recordings of channel {} from {}", channel, file);
+		} catch (IOException e) {
+			throw new IllegalStateException("Failed to load recordings of channel " + channel, e);
+		}
+	}
+
+	private static String key(String channel, String method, String endpoint, String requestHash) {
+		return channel + " " + method + " " + endpoint + " " + requestHash;
+	}
+
+	private String hashRequest(String requestBody) {
+		if (requestBody == null || requestBody.isEmpty()) return "";
+		try {
+			// Re-serializing drops formatting differences, JSON-RPC IDs increase with every request and are ignored
+			JsonNode body = objectMapper.readTree(requestBody);
+			if (body instanceof ObjectNode object && object.has("jsonrpc")) object.remove(JSON_RPC_ID);
+			return HashUtil.sha256Hex(lineWriter.writeValueAsString(body));
+		} catch (IOException _) {
+			return HashUtil.sha256Hex(requestBody);
+		}
+	}
+
+	private RecordedExchange withJsonRpcId(RecordedExchange exchange, String requestBody) {
+		if (requestBody == null || requestBody.isEmpty() || exchange.responseBody() == null) return exchange;
+		try {
+			JsonNode request = objectMapper.readTree(requestBody);
+			JsonNode response = objectMapper.readTree(exchange.responseBody());
+			if (!request.has("jsonrpc") || !(response instanceof ObjectNode responseObject)) return exchange;
+
+			responseObject.set(JSON_RPC_ID, request.get(JSON_RPC_ID));
+			return new RecordedExchange(exchange.channel(), exchange.method(), exchange.endpoint(), exchange.requestHash(), exchange.requestBody(), exchange.status(), exchange.responseHeaders(), lineWriter.writeValueAsString(responseObject), exchange.latencyMillis(), exchange.recordedAt());
+		} catch (IOException _) {
+			return exchange;
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package dev.markodojkic.legalcontractdigitizer.util;
+
+import dev.markodojkic.legalcontractdigitizer.model.LineDelta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Utility class for line based diffs of source texts, used to store Solidity revisions as deltas and to compare them.
+ *
+ * <p>Common leading and trailing lines are skipped before the remaining lines are aligned by their longest common
+ * subsequence, so typical edits and section regenerations cost time proportional to the changed region only.
+ */
+public final class LineDiff {
+
+	// Upper bound of the alignment table, larger changed regions are stored as a single replacement
+	private static final long MAX_TABLE_CELLS = 4_000_000;
+
+	private LineDiff() {}
+
+	/**
+	 * Splits a text into lines. Joining the lines with {@code \n} restores the text exactly.
+	 *
+	 * @param text text to split
+	 * @return lines of the text
+	 */
+	public static List<String> lines(String text) {
+		return Arrays.asList(text.split("\n", -1));
+	}
+
+	/**
+	 * Computes the deltas turning {@code from} into {@code to}.
+	 *
+	 * @param from original lines
+	 * @param to   changed lines
+	 * @return non-overlapping deltas in ascending order of their start line
+	 */
+	public static List<LineDelta> diff(List<String> from, List<String> to) {
+		int prefix = 0;
+		while (prefix < from.size() && prefix < to.size() && from.get(prefix).equals(to.get(prefix))) prefix++;
+		int suffix = 0;
+		while (suffix < from.size() - prefix && suffix < to.size() - prefix && from.get(from.size() - 1 - suffix).equals(to.get(to.size() - 1 - suffix))) suffix++;
+
+		int n = from.size() - prefix - suffix, m = to.size() - prefix - suffix;
+		List<LineDelta> deltas = new ArrayList<>();
+		if (n == 0 && m == 0) return deltas;
+		if (n == 0 || m == 0 || (long) n * m > MAX_TABLE_CELLS) {
+			deltas.add(new LineDelta(prefix, n, List.copyOf(to.subList(prefix, prefix + m))));
+			return deltas;
+		}
+
+		// lcs[i][j] is the length of the longest common subsequence of the changed regions starting at i and j
+		int[][] lcs = new int[n + 1][m + 1];
+		for (int i = n - 1; i >= 0; i--) {
+			for (int j = m - 1; j >= 0; j--) {
+				lcs[i][j] = from.get(prefix + i).equals(to.get(prefix + j)) ? lcs[i + 1][j + 1] + 1 : Math.max(lcs[i + 1][j], lcs[i][j + 1]);
+			}
+		}
+
+		int i = 0, j = 0, start = -1, deleted = 0;
+		List<String> inserted = new ArrayList<>();
+		while (i < n || j < m) {
+			if (i < n && j < m && from.get(prefix + i).equals(to.get(prefix + j))) {
+				if (start >= 0) {
+					deltas.add(new LineDelta(start, deleted, List.copyOf(inserted)));
+					start = -1;
+					deleted = 0;
+					inserted.clear();
+				}
+				i++;
+				j++;
+				continue;
+			}
+
+			if (start < 0) start = prefix + i;
+			if (j < m && (i == n || lcs[i][j + 1] >= lcs[i + 1][j])) inserted.add(to.get(prefix + j++));
+			else {
+				deleted++;
+				i++;
+			}
+		}
+		if (start >= 0) deltas.add(new LineDelta(start, deleted, List.copyOf(inserted)));
+		return deltas;
+	}
+
+	/**
+	 * Applies deltas produced by {@link #diff(List, List)} to the original lines.
+	 *
+	 * @param from   original lines
+	 * @param deltas deltas in ascending order of their start line
+	 * @return changed lines
+	 */
+	public static List<String> apply(List<String> from, List<LineDelta> deltas) {
+		List<String> result = new ArrayList<>(from.size());
+		int position = 0;
+		for (LineDelta delta : deltas) {
+			if (delta.start() < position || delta.start() + delta.deleted() > from.size()) throw new IllegalArgumentException("Delta at line " + delta.start() + " does not fit the original text");
+			result.addAll(from.subList(position, delta.start()));
+			result.addAll(delta.inserted());
+			position = delta.start() + delta.deleted();
+		}
+		result.addAll(from.subList(position, from.size()));
+		return result;
+	}
+
+	/**
+	 * Formats the differences of two texts in unified diff format.
+	 *
+	 * @param fromName label of the original text
+	 * @param toName   label of the changed text
+	 * @param from     original lines
+	 * @param to       changed lines
+	 * @param context  number of unchanged lines shown around each change
+	 * @return unified diff, empty if the texts are equal
+	 */
+	public static String unified(String fromName, String toName, List<String> from, List<String> to, int context) {
+		List<LineDelta> deltas = diff(from, to);
+		if (deltas.isEmpty()) return "";
+
+		StringBuilder diff = new StringBuilder("--- ").append(fromName).append("\n+++ ").append(toName).append('\n');
+		int offset = 0; // Difference of line numbers in the changed text caused by preceding hunks
+		for (int first = 0; first < deltas.size(); ) {
+			// Changes closer than twice the context share one hunk
+			int last = first;
+			while (last + 1 < deltas.size() && deltas.get(last + 1).start() - end(deltas.get(last)) <= 2 * context) last++;
+
+			int fromStart = Math.max(0, deltas.get(first).start() - context), fromEnd = Math.min(from.size(), end(deltas.get(last)) + context);
+			int hunkOffset = deltas.subList(first, last + 1).stream().mapToInt(delta -> delta.inserted().size() - delta.deleted()).sum();
+			int fromLength = fromEnd - fromStart, toLength = fromLength + hunkOffset;
+			diff.append("@@ -").append(range(fromStart, fromLength)).append(" +").append(range(fromStart + offset, toLength)).append(" @@\n");
+
+			int line = fromStart;
+			for (LineDelta delta : deltas.subList(first, last + 1)) {
+				while (line < delta.start()) diff.append(' ').append(from.get(line++)).append('\n');
+				for (int deletedLine = delta.start(); deletedLine < end(delta); deletedLine++) diff.append('-').append(from.get(deletedLine)).append('\n');
+				delta.inserted().forEach(insertedLine -> diff.append('+').append(insertedLine).append('\n'));
+				line = end(delta);
+			}
+			while (line < fromEnd) diff.append(' ').append(from.get(line++)).append('\n');
+
+			offset += hunkOffset;
+			first = last + 1;
+		}
+		return diff.toString();
+	}
+
+	private static int end(LineDelta delta) {
+		return delta.start() + delta.deleted();
+	}
+
+	// Empty ranges refer to the line before them, as in GNU diff
+	private static String range(int start, int length) {
+		return (length == 0 ? start : start + 1) + "," + length;
+	}
+}
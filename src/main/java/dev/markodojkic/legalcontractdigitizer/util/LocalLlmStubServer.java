@@ -0,0 +1,169 @@
+package dev.markodojkic.legalcontractdigitizer.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedded, deterministic stand-in for an OpenAI compatible {@code /v1/chat/completions} endpoint.
+ *
+ * <p>Replays canned completions (selected by the first configured substring found in the request messages)
+ * with a configurable latency distribution and error rate, so the whole pipeline can be load- and soak-tested
+ * on an isolated machine. Enable with {@code llm.stub.enabled=true} and point {@code openai.baseUrl} to
+ * {@code http://localhost:<llm.stub.port>/v1}. A fixed seed makes every run reproducible.
+ */
+@Component
+@ConditionalOnProperty(name = "llm.stub.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class LocalLlmStubServer {
+
+	private final ObjectMapper objectMapper;
+	private final ResourceLoader resourceLoader;
+	private final List<CannedCompletion> cannedCompletions = new ArrayList<>();
+	private HttpServer server;
+	private Random random;
+
+	@Value("${llm.stub.port:18472}")
+	private int port;
+
+	@Value("${llm.stub.completions:classpath:llm-stub/completions.json}")
+	private String completionsIndex;
+
+	@Value("${llm.stub.latency.distribution:lognormal}")
+	private String latencyDistribution;
+
+	@Value("${llm.stub.latency.meanMillis:1500}")
+	private double latencyMeanMillis;
+
+	@Value("${llm.stub.latency.stdDevMillis:500}")
+	private double latencyStdDevMillis;
+
+	@Value("${llm.stub.errorRate:0.0}")
+	private double errorRate;
+
+	@Value("${llm.stub.rateLimitErrorShare:0.7}")
+	private double rateLimitErrorShare;
+
+	@Value("${llm.stub.seed:42}")
+	private long seed;
+
+	private record CannedCompletion(String match, String content) {}
+
+	@PostConstruct
+	public void start() throws IOException {
+		random = new Random(seed);
+		loadCannedCompletions();
+
+		server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+		server.createContext("/v1/chat/completions", this::handleChatCompletion);
+		server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+		server.start();
+
+		log.info("LLM stub server listening on http://localhost:{}/v1 ({} canned completions, {} latency ~{} ms, error rate {})", port, cannedCompletions.size(), latencyDistribution, latencyMeanMillis, errorRate);
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (server != null) server.stop(0);
+	}
+
+	private void loadCannedCompletions() throws IOException {
+		try (InputStream index = resourceLoader.getResource(completionsIndex).getInputStream()) {
+			for (JsonNode entry : objectMapper.readTree(index)) {
+				try (InputStream content = resourceLoader.getResource(entry.path("resource").asText()).getInputStream()) {
+					cannedCompletions.add(new CannedCompletion(entry.path("match").asText(""), new String(content.readAllBytes(), StandardCharsets.UTF_8)));
+				}
+			}
+		}
+	}
+
+	private void handleChatCompletion(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+				respond(exchange, 405, Map.of("error", Map.of("message", "Method not allowed")));
+				return;
+			}
+
+			JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+			long latency;
+			double roll;
+			synchronized (this) { // Keeps the random sequence deterministic regardless of concurrency
+				latency = sampleLatencyMillis();
+				roll = random.nextDouble();
+			}
+
+			Thread.sleep(latency);
+
+			if (roll < errorRate) {
+				boolean rateLimited = roll < errorRate * rateLimitErrorShare;
+				if (rateLimited) exchange.getResponseHeaders().add("retry-after-ms", "1000");
+				respond(exchange, rateLimited ? 429 : 500, Map.of("error", Map.of("message", rateLimited ? "Rate limit reached (stub)" : "Internal server error (stub)")));
+				return;
+			}
+
+			StringBuilder messages = new StringBuilder();
+			request.path("messages").forEach(message -> messages.append(message.path("content").asText()).append('\n'));
+			String content = cannedCompletions.stream()
+					.filter(completion -> messages.indexOf(completion.match()) >= 0)
+					.map(CannedCompletion::content)
+					.findFirst()
+					.orElse("");
+
+			long promptTokens = OpenAiRateLimiter.estimateTokens(messages.toString()), completionTokens = OpenAiRateLimiter.estimateTokens(content);
+			respond(exchange, 200, Map.of(
+					"id", "chatcmpl-stub",
+					"object", "chat.completion",
+					"model", request.path("model").asText("stub"),
+					"choices", List.of(Map.of("index", 0, "finish_reason", "stop", "message", Map.of("role", "assistant", "content", content))),
+					"usage", Map.of("prompt_tokens", promptTokens, "completion_tokens", completionTokens, "total_tokens", promptTokens + completionTokens)
+			));
+		} catch (InterruptedException _) {
+			Thread.currentThread().interrupt();
+		} catch (Exception e) {
+			log.error("LLM stub server failed to handle request", e);
+		}
+	}
+
+	private long sampleLatencyMillis() {
+		double sample = switch (latencyDistribution) {
+			case "fixed" -> latencyMeanMillis;
+			case "uniform" -> latencyMeanMillis - latencyStdDevMillis * Math.sqrt(3) + random.nextDouble() * 2 * latencyStdDevMillis * Math.sqrt(3);
+			case "normal" -> latencyMeanMillis + random.nextGaussian() * latencyStdDevMillis;
+			default -> { // Log-normal with the configured mean and standard deviation, typical for LLM response times
+				double sigmaSquared = Math.log(1 + Math.pow(latencyStdDevMillis / latencyMeanMillis, 2));
+				yield Math.exp(Math.log(latencyMeanMillis) - sigmaSquared / 2 + Math.sqrt(sigmaSquared) * random.nextGaussian());
+			}
+		};
+		return Math.max(0, Math.round(sample));
+	}
+
+	private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+		byte[] bytes = objectMapper.writeValueAsBytes(body);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream outputStream = exchange.getResponseBody()) {
+			outputStream.write(bytes);
+		}
+	}
+}
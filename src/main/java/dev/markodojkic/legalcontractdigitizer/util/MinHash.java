@@ -0,0 +1,110 @@
+package dev.markodojkic.legalcontractdigitizer.util;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class for MinHash signatures and locality sensitive hashing (LSH) over normalized contract text.
+ *
+ * <p>Text is lowercased, numbers (amounts, dates, percentages) are replaced by a single placeholder and punctuation
+ * is dropped, so contracts differing only in parties, dates and amounts share most of their word shingles.
+ * The share of equal signature positions estimates the Jaccard similarity of the shingle sets.
+ */
+public final class MinHash {
+
+	private static final Pattern NUMBER_PATTERN = Pattern.compile("\\d[\\d.,:/-]*");
+	private static final Pattern NON_WORD_PATTERN = Pattern.compile("[^\\p{L}0#]+");
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	private MinHash() {}
+
+	/**
+	 * Normalizes the given text for near-duplicate comparison.
+	 *
+	 * @param text raw contract text
+	 * @return normalized text, words separated by single spaces
+	 */
+	public static String normalize(String text) {
+		if (text == null) return "";
+		String normalized = NUMBER_PATTERN.matcher(text.toLowerCase(Locale.ROOT)).replaceAll("#");
+		return NON_WORD_PATTERN.matcher(normalized).replaceAll(" ").strip();
+	}
+
+	/**
+	 * Computes the MinHash signature of the word shingles of the given text.
+	 *
+	 * @param text         raw contract text
+	 * @param numHashes    signature length
+	 * @param shingleWords number of consecutive words per shingle
+	 * @return signature, empty positions ({@link Long#MAX_VALUE}) only for empty text
+	 */
+	public static long[] signature(String text, int numHashes, int shingleWords) {
+		long[] signature = new long[numHashes];
+		Arrays.fill(signature, Long.MAX_VALUE);
+
+		for (long shingle : shingles(normalize(text), shingleWords)) {
+			for (int i = 0; i < numHashes; i++) {
+				long hash = mix(shingle ^ mix((i + 1) * GOLDEN_GAMMA));
+				if (hash < signature[i]) signature[i] = hash;
+			}
+		}
+		return signature;
+	}
+
+	/**
+	 * Estimates the Jaccard similarity of two texts from their signatures.
+	 *
+	 * @param first  first signature
+	 * @param second second signature of the same length
+	 * @return share of equal signature positions, between 0 and 1
+	 */
+	public static double similarity(long[] first, long[] second) {
+		if (first.length != second.length || first.length == 0) return 0;
+		int equal = 0;
+		for (int i = 0; i < first.length; i++) if (first[i] == second[i] && first[i] != Long.MAX_VALUE) equal++;
+		return (double) equal / first.length;
+	}
+
+	/**
+	 * Computes the LSH bucket keys of the given signature. Two signatures share a bucket if all rows of
+	 * at least one band are equal, which becomes likely above a similarity of about {@code (1 / bands) ^ (1 / rows)}.
+	 *
+	 * @param signature MinHash signature
+	 * @param bands     number of bands, the signature length should be divisible by it
+	 * @return one bucket key per band
+	 */
+	public static long[] bandKeys(long[] signature, int bands) {
+		int rows = signature.length / bands;
+		long[] keys = new long[bands];
+		for (int band = 0; band < bands; band++) {
+			long key = mix(band + 1L);
+			for (int row = band * rows; row < (band + 1) * rows; row++) key = mix(key ^ signature[row]);
+			keys[band] = key;
+		}
+		return keys;
+	}
+
+	private static Set<Long> shingles(String normalized, int shingleWords) {
+		Set<Long> shingles = new HashSet<>();
+		if (normalized.isEmpty()) return shingles;
+
+		String[] words = normalized.split(" ");
+		int size = Math.min(Math.max(1, shingleWords), words.length);
+		for (int start = 0; start + size <= words.length; start++) {
+			long hash = 0;
+			for (int i = start; i < start + size; i++) hash = mix(hash ^ words[i].hashCode()) + GOLDEN_GAMMA;
+			shingles.add(hash);
+		}
+		return shingles;
+	}
+
+	// SplitMix64 finalizer, a fast 64 bit mixing function
+	private static long mix(long value) {
+		value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+		value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+		return value ^ (value >>> 31);
+	}
+}
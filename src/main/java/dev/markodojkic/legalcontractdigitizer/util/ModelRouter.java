@@ -0,0 +1,129 @@
+package dev.markodojkic.legalcontractdigitizer.util;
+
+import dev.markodojkic.legalcontractdigitizer.model.AITask;
+import dev.markodojkic.legalcontractdigitizer.model.ChatCompletionResponse;
+import dev.markodojkic.legalcontractdigitizer.model.ModelTier;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size based routing policy choosing a model tier per request.
+ *
+ * <p>Requests whose estimated prompt size is below the task specific threshold go to the economy model,
+ * everything else to the standard model. Callers escalate to the next tier when the output of a cheaper tier
+ * fails validation. Latency, token usage and estimated cost are recorded per tier and task, so thresholds
+ * can be tuned on real traffic.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ModelRouter {
+
+	private static final double TOKENS_PER_PRICE_UNIT = 1_000_000d;
+
+	private final MeterRegistry meterRegistry;
+
+	@Value("${openai.routing.enabled:false}")
+	private boolean enabled;
+
+	@Value("${openai.model:gpt-4o}")
+	private String standardModel;
+
+	@Value("${openai.routing.economyModel:gpt-4o-mini}")
+	private String economyModel;
+
+	@Value("${openai.routing.economyMaxPromptTokens.clauseExtraction:6000}")
+	private long economyMaxExtractionTokens;
+
+	@Value("${openai.routing.economyMaxPromptTokens.solidityGeneration:1500}")
+	private long economyMaxGenerationTokens;
+
+	@Value("${openai.routing.economyMaxPromptTokens.solidityRepair:0}")
+	private long economyMaxRepairTokens;
+
+	@Value("${openai.routing.pricing.economy.promptPerMillion:0.15}")
+	private double economyPromptPrice;
+
+	@Value("${openai.routing.pricing.economy.completionPerMillion:0.6}")
+	private double economyCompletionPrice;
+
+	@Value("${openai.routing.pricing.standard.promptPerMillion:2.5}")
+	private double standardPromptPrice;
+
+	@Value("${openai.routing.pricing.standard.completionPerMillion:10}")
+	private double standardCompletionPrice;
+
+	/**
+	 * Chooses the model tier for a request.
+	 *
+	 * @param task         kind of request
+	 * @param promptTokens estimated prompt tokens
+	 * @return tier to start with
+	 */
+	public ModelTier route(AITask task, long promptTokens) {
+		if (!enabled) return ModelTier.STANDARD;
+
+		long economyMaxTokens = switch (task) {
+			case CLAUSE_EXTRACTION -> economyMaxExtractionTokens;
+			case SOLIDITY_GENERATION, SOLIDITY_SECTION_REGENERATION -> economyMaxGenerationTokens;
+			case SOLIDITY_REPAIR -> economyMaxRepairTokens;
+		};
+		return promptTokens <= economyMaxTokens ? ModelTier.ECONOMY : ModelTier.STANDARD;
+	}
+
+	/**
+	 * Returns the next more capable tier.
+	 *
+	 * @param tier current tier
+	 * @return next tier, or {@code null} if the given tier is already the most capable one
+	 */
+	public ModelTier escalate(ModelTier tier) {
+		return tier.ordinal() + 1 < ModelTier.values().length ? ModelTier.values()[tier.ordinal() + 1] : null;
+	}
+
+	/**
+	 * Resolves the configured model of a tier.
+	 *
+	 * @param tier model tier
+	 * @return model identifier
+	 */
+	public String modelFor(ModelTier tier) {
+		return tier == ModelTier.ECONOMY ? economyModel : standardModel;
+	}
+
+	/**
+	 * Records latency, token usage and estimated cost of a completed request.
+	 *
+	 * @param tier         tier used
+	 * @param task         kind of request
+	 * @param latencyNanos request latency
+	 * @param response     provider response
+	 */
+	public void record(ModelTier tier, AITask task, long latencyNanos, ChatCompletionResponse response) {
+		String tierTag = tier.name().toLowerCase(), taskTag = task.name().toLowerCase();
+		double cost = tier == ModelTier.ECONOMY ?
+				(response.promptTokens() * economyPromptPrice + response.completionTokens() * economyCompletionPrice) / TOKENS_PER_PRICE_UNIT :
+				(response.promptTokens() * standardPromptPrice + response.completionTokens() * standardCompletionPrice) / TOKENS_PER_PRICE_UNIT;
+
+		meterRegistry.timer("ai.request.latency", "tier", tierTag, "task", taskTag).record(latencyNanos, TimeUnit.NANOSECONDS);
+		meterRegistry.counter("ai.request.tokens", "tier", tierTag, "task", taskTag, "type", "prompt").increment(response.promptTokens());
+		meterRegistry.counter("ai.request.tokens", "tier", tierTag, "task", taskTag, "type", "completion").increment(response.completionTokens());
+		meterRegistry.counter("ai.request.cost", "tier", tierTag, "task", taskTag).increment(cost);
+	}
+
+	/**
+	 * Records an escalation caused by output failing validation.
+	 *
+	 * @param from tier whose output failed validation
+	 * @param task kind of request
+	 */
+	public void recordEscalation(ModelTier from, AITask task) {
+		meterRegistry.counter("ai.routing.escalations", "from", from.name().toLowerCase(), "task", task.name().toLowerCase()).increment();
+		log.debug("Escalating {} request from {} tier after failed output validation", task, from);
+	}
+}
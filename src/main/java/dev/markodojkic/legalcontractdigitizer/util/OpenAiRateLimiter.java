@@ -0,0 +1,259 @@
+package dev.markodojkic.legalcontractdigitizer.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Process-wide client side rate limiter for OpenAI API calls.
+ *
+ * <p>Keeps two token buckets (requests per minute and tokens per minute) filled at a configurable
+ * fraction of the organisation limits, so bursty load settles just below the server side limits.
+ * Waiting callers are served round-robin per user, so a single user submitting many requests
+ * cannot starve everyone else. Background (batch) callers are only served while no interactive caller
+ * is waiting and a configurable share of both buckets stays in reserve for interactive traffic.
+ * Bucket levels are additionally reconciled with the {@code x-ratelimit-*} headers returned by OpenAI
+ * and can be paused entirely when the server answers with {@code Retry-After}.
+ */
+@Component
+@Slf4j
+public class OpenAiRateLimiter {
+
+	private static final String ANONYMOUS_USER = "anonymous";
+	private static final double NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+	private static final Pattern RESET_DURATION_PATTERN = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+	private final double requestCapacity, tokenCapacity, interactiveReserve;
+	private final ReentrantLock lock = new ReentrantLock(true);
+	private final Condition stateChanged = lock.newCondition();
+	private final Map<String, Deque<Permit>> waitingByUser = new HashMap<>();
+	private final Deque<String> userRotation = new ArrayDeque<>();
+	private final Deque<Permit> backgroundQueue = new ArrayDeque<>();
+
+	private double availableRequests, availableTokens;
+	private long lastRefillNanos, pausedUntilNanos;
+
+	/**
+	 * Represents a granted slot in both buckets.
+	 *
+	 * @param userKey user on whose behalf the request is made
+	 * @param tokens  number of tokens reserved from the token bucket
+	 */
+	public record Permit(String userKey, long tokens) {}
+
+	public OpenAiRateLimiter(@Value("${openai.rateLimit.requestsPerMinute:500}") long requestsPerMinute,
+	                         @Value("${openai.rateLimit.tokensPerMinute:30000}") long tokensPerMinute,
+	                         @Value("${openai.rateLimit.utilization:0.9}") double utilization,
+	                         @Value("${openai.rateLimit.interactiveReserve:0.2}") double interactiveReserve) {
+		this.requestCapacity = Math.max(1, requestsPerMinute * utilization);
+		this.tokenCapacity = Math.max(1, tokensPerMinute * utilization);
+		this.interactiveReserve = interactiveReserve;
+		this.availableRequests = requestCapacity;
+		this.availableTokens = tokenCapacity;
+		this.lastRefillNanos = System.nanoTime();
+		this.pausedUntilNanos = lastRefillNanos;
+	}
+
+	/**
+	 * Roughly estimates the number of tokens in the given text (about four characters per token).
+	 *
+	 * @param text text to estimate
+	 * @return estimated token count
+	 */
+	public static long estimateTokens(String text) {
+		return text == null ? 0 : (text.length() + 3) / 4;
+	}
+
+	/**
+	 * Blocks until both buckets can accommodate one interactive request with the given token cost and it is the
+	 * caller's turn in the per-user round-robin order.
+	 *
+	 * @param userKey         user on whose behalf the request is made, {@code null} for anonymous work
+	 * @param estimatedTokens estimated prompt plus completion tokens
+	 * @return permit which must be settled once actual token usage is known
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public Permit acquire(String userKey, long estimatedTokens) throws InterruptedException {
+		return acquire(userKey, estimatedTokens, false);
+	}
+
+	/**
+	 * Blocks until both buckets can accommodate one request with the given token cost and it is the caller's turn.
+	 * Background requests are served in FIFO order and only while no interactive request is waiting.
+	 *
+	 * @param userKey         user on whose behalf the request is made, {@code null} for anonymous/background work
+	 * @param estimatedTokens estimated prompt plus completion tokens
+	 * @param background      whether the request is background (batch) work with lower priority
+	 * @return permit which must be settled once actual token usage is known
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public Permit acquire(String userKey, long estimatedTokens, boolean background) throws InterruptedException {
+		Permit permit = new Permit(userKey == null ? ANONYMOUS_USER : userKey, (long) Math.min(Math.max(estimatedTokens, 1), tokenCapacity));
+
+		lock.lock();
+		try {
+			if (background) backgroundQueue.addLast(permit);
+			else {
+				waitingByUser.computeIfAbsent(permit.userKey(), _ -> new ArrayDeque<>()).addLast(permit);
+				if (!userRotation.contains(permit.userKey())) userRotation.addLast(permit.userKey());
+			}
+
+			try {
+				while (true) {
+					refill();
+					boolean isTurn = background ? waitingByUser.isEmpty() && backgroundQueue.peekFirst() == permit :
+							permit.userKey().equals(userRotation.peekFirst()) && waitingByUser.get(permit.userKey()).peekFirst() == permit;
+					long waitNanos = isTurn ? nanosUntilAvailable(permit.tokens(), background ? interactiveReserve : 0) : TimeUnit.MILLISECONDS.toNanos(100);
+
+					if (isTurn && waitNanos <= 0) {
+						availableRequests -= 1;
+						availableTokens -= permit.tokens();
+						dequeue(permit, background);
+						stateChanged.signalAll();
+						return permit;
+					}
+
+					stateChanged.awaitNanos(waitNanos);
+				}
+			} catch (InterruptedException e) {
+				dequeue(permit, background);
+				stateChanged.signalAll();
+				throw e;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Reconciles reserved tokens with the actual usage reported by the API, refunding or charging the difference.
+	 *
+	 * @param permit     previously acquired permit
+	 * @param usedTokens tokens actually consumed by the request
+	 */
+	public void settle(Permit permit, long usedTokens) {
+		lock.lock();
+		try {
+			refill();
+			availableTokens = Math.min(tokenCapacity, availableTokens + permit.tokens() - usedTokens);
+			stateChanged.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Stops granting permits to all callers for the given duration, e.g. when OpenAI answered with {@code Retry-After}.
+	 *
+	 * @param duration pause duration
+	 */
+	public void pauseFor(Duration duration) {
+		if (duration == null || duration.isNegative() || duration.isZero()) return;
+		lock.lock();
+		try {
+			pausedUntilNanos = Math.max(pausedUntilNanos, System.nanoTime() + duration.toNanos());
+			log.debug("OpenAI rate limiter paused for {} ms", duration.toMillis());
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Lowers local bucket levels to what OpenAI reports as remaining via {@code x-ratelimit-*} response headers.
+	 * If one of the limits is exhausted, all callers are paused until the reported reset time.
+	 *
+	 * @param headers response headers of an OpenAI API call
+	 */
+	public void updateFromHeaders(HttpHeaders headers) {
+		if (headers == null) return;
+		Long remainingRequests = parseLong(headers.getFirst("x-ratelimit-remaining-requests"));
+		Long remainingTokens = parseLong(headers.getFirst("x-ratelimit-remaining-tokens"));
+
+		lock.lock();
+		try {
+			refill();
+			if (remainingRequests != null) availableRequests = Math.min(availableRequests, remainingRequests);
+			if (remainingTokens != null) availableTokens = Math.min(availableTokens, remainingTokens);
+		} finally {
+			lock.unlock();
+		}
+
+		if (remainingRequests != null && remainingRequests <= 0) pauseFor(parseResetDuration(headers.getFirst("x-ratelimit-reset-requests")));
+		if (remainingTokens != null && remainingTokens <= 0) pauseFor(parseResetDuration(headers.getFirst("x-ratelimit-reset-tokens")));
+	}
+
+	/**
+	 * Parses OpenAI reset durations such as {@code "1s"}, {@code "6m0s"} or {@code "250ms"}.
+	 *
+	 * @param value header value
+	 * @return parsed duration or {@code null} if the value cannot be parsed
+	 */
+	static Duration parseResetDuration(String value) {
+		if (value == null || value.isBlank()) return null;
+		Matcher matcher = RESET_DURATION_PATTERN.matcher(value.trim());
+		double millis = 0;
+		boolean matched = false;
+		while (matcher.find()) {
+			matched = true;
+			double amount = Double.parseDouble(matcher.group(1));
+			millis += switch (matcher.group(2)) {
+				case "ms" -> amount;
+				case "s" -> amount * 1_000;
+				case "m" -> amount * 60_000;
+				default -> amount * 3_600_000;
+			};
+		}
+		return matched ? Duration.ofMillis((long) Math.ceil(millis)) : null;
+	}
+
+	private static Long parseLong(String value) {
+		try {
+			return value == null ? null : Long.parseLong(value.trim());
+		} catch (NumberFormatException _) {
+			return null;
+		}
+	}
+
+	private void refill() {
+		long now = System.nanoTime();
+		long elapsed = now - lastRefillNanos;
+		if (elapsed <= 0) return;
+		availableRequests = Math.min(requestCapacity, availableRequests + elapsed * requestCapacity / NANOS_PER_MINUTE);
+		availableTokens = Math.min(tokenCapacity, availableTokens + elapsed * tokenCapacity / NANOS_PER_MINUTE);
+		lastRefillNanos = now;
+	}
+
+	private long nanosUntilAvailable(long tokens, double reserve) {
+		long pausedNanos = pausedUntilNanos - System.nanoTime();
+		double requiredRequests = Math.min(requestCapacity, 1 + reserve * requestCapacity), requiredTokens = Math.min(tokenCapacity, tokens + reserve * tokenCapacity);
+		double requestDeficit = Math.max(0, requiredRequests - availableRequests), tokenDeficit = Math.max(0, requiredTokens - availableTokens);
+		long refillNanos = (long) Math.ceil(Math.max(requestDeficit * NANOS_PER_MINUTE / requestCapacity, tokenDeficit * NANOS_PER_MINUTE / tokenCapacity));
+		return Math.max(pausedNanos, refillNanos);
+	}
+
+	private void dequeue(Permit permit, boolean background) {
+		if (background) {
+			backgroundQueue.removeIf(waiting -> waiting == permit);
+			return;
+		}
+
+		Deque<Permit> queue = waitingByUser.get(permit.userKey());
+		if (queue == null) return;
+		queue.removeIf(waiting -> waiting == permit); // Identity match, equal permits of the same user are distinct waiters
+		userRotation.remove(permit.userKey());
+		if (queue.isEmpty()) waitingByUser.remove(permit.userKey());
+		else userRotation.addLast(permit.userKey()); // Move user to the back so others get their turn
+	}
+}
@@ -0,0 +1,189 @@
+package dev.markodojkic.legalcontractdigitizer.util;
+
+import dev.markodojkic.legalcontractdigitizer.model.RecordedExchange;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.client.reactive.AbstractClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
+import org.springframework.http.client.reactive.ClientHttpResponse;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * {@link ClientHttpConnector} decorator recording or replaying exchanges via {@link InteractionRecorder}, used for the OpenAI {@code WebClient}.
+ * Only the request path is recorded, so recordings can be replayed against any base URL.
+ */
+public class RecordReplayClientHttpConnector implements ClientHttpConnector {
+
+	private final ClientHttpConnector delegate;
+	private final InteractionRecorder interactionRecorder;
+	private final String channel;
+
+	public RecordReplayClientHttpConnector(ClientHttpConnector delegate, InteractionRecorder interactionRecorder, String channel) {
+		this.delegate = delegate;
+		this.interactionRecorder = interactionRecorder;
+		this.channel = channel;
+	}
+
+	@Override
+	public Mono<ClientHttpResponse> connect(HttpMethod method, URI uri, Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
+		if (interactionRecorder.mode() == InteractionRecorder.Mode.OFF) return delegate.connect(method, uri, requestCallback);
+		String endpoint = uri.getRawPath() + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+
+		if (interactionRecorder.mode() == InteractionRecorder.Mode.REPLAY) {
+			CapturingRequest request = new CapturingRequest(method, uri);
+			return requestCallback.apply(request)
+					.then(Mono.fromCallable(() -> interactionRecorder.replay(channel, method.name(), endpoint, request.body)))
+					.flatMap(exchange -> {
+						HttpHeaders headers = new HttpHeaders();
+						exchange.responseHeaders().forEach(headers::add);
+						return Mono.delay(interactionRecorder.replayDelay(exchange)).thenReturn(new BufferedResponse(HttpStatusCode.valueOf(exchange.status()), headers, exchange.responseBody()));
+					});
+		}
+
+		AtomicReference<String> requestBody = new AtomicReference<>("");
+		long startNanos = System.nanoTime();
+		return delegate.connect(method, uri, request -> requestCallback.apply(new ClientHttpRequestDecorator(request) {
+					@Override
+					public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+						return DataBufferUtils.join(body).flatMap(buffer -> {
+							requestBody.set(buffer.toString(StandardCharsets.UTF_8));
+							return super.writeWith(Mono.just(buffer));
+						});
+					}
+				}))
+				.flatMap(response -> DataBufferUtils.join(response.getBody())
+						.map(buffer -> {
+							String body = buffer.toString(StandardCharsets.UTF_8);
+							DataBufferUtils.release(buffer);
+							return body;
+						})
+						.defaultIfEmpty("")
+						.map(responseBody -> {
+							Map<String, String> headers = new HashMap<>();
+							response.getHeaders().forEach((name, values) -> headers.put(name.toLowerCase(Locale.ROOT), values.getFirst()));
+							headers.remove("set-cookie");
+							interactionRecorder.record(channel, method.name(), endpoint, requestBody.get(), response.getStatusCode().value(), headers, responseBody, Duration.ofNanos(System.nanoTime() - startNanos));
+							return new BufferedResponse(response.getStatusCode(), response.getHeaders(), responseBody);
+						}));
+	}
+
+	/**
+	 * Request which is never sent, only captures the body for matching against recordings.
+	 */
+	private static final class CapturingRequest extends AbstractClientHttpRequest {
+
+		private final HttpMethod method;
+		private final URI uri;
+		private String body = "";
+
+		private CapturingRequest(HttpMethod method, URI uri) {
+			this.method = method;
+			this.uri = uri;
+		}
+
+		@Override
+		public HttpMethod getMethod() {
+			return method;
+		}
+
+		@Override
+		public URI getURI() {
+			return uri;
+		}
+
+		@Override
+		public DataBufferFactory bufferFactory() {
+			return DefaultDataBufferFactory.sharedInstance;
+		}
+
+		@Override
+		public <T> T getNativeRequest() {
+			throw new UnsupportedOperationException("Replayed requests have no native request");
+		}
+
+		@Override
+		public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+			return DataBufferUtils.join(body).doOnNext(buffer -> {
+				this.body = buffer.toString(StandardCharsets.UTF_8);
+				DataBufferUtils.release(buffer);
+			}).then();
+		}
+
+		@Override
+		public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+			return writeWith(Flux.from(body).flatMap(Function.identity()));
+		}
+
+		@Override
+		public Mono<Void> setComplete() {
+			return Mono.empty();
+		}
+
+		@Override
+		protected void applyHeaders() {
+			// Nothing is sent
+		}
+
+		@Override
+		protected void applyCookies() {
+			// Nothing is sent
+		}
+	}
+
+	/**
+	 * Response with a fully buffered body, which can be consumed independently of the underlying connection.
+	 */
+	private static final class BufferedResponse implements ClientHttpResponse {
+
+		private final HttpStatusCode statusCode;
+		private final HttpHeaders headers;
+		private final String body;
+
+		private BufferedResponse(HttpStatusCode statusCode, HttpHeaders headers, String body) {
+			this.statusCode = statusCode;
+			this.headers = headers;
+			this.body = body;
+		}
+
+		@Override
+		public HttpStatusCode getStatusCode() {
+			return statusCode;
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return headers;
+		}
+
+		@Override
+		public MultiValueMap<String, ResponseCookie> getCookies() {
+			return new LinkedMultiValueMap<>();
+		}
+
+		@Override
+		public Flux<DataBuffer> getBody() {
+			return Flux.defer(() -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body.getBytes(StandardCharsets.UTF_8))));
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package dev.markodojkic.legalcontractdigitizer.util;
+
+import dev.markodojkic.legalcontractdigitizer.model.RecordedExchange;
+import okhttp3.*;
+import okio.Buffer;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * OkHttp interceptor recording or replaying exchanges via {@link InteractionRecorder}, used for the web3j {@code HttpService}.
+ * The request URL is not recorded, since RPC provider URLs usually contain API keys.
+ */
+public class RecordReplayInterceptor implements Interceptor {
+
+	private final InteractionRecorder interactionRecorder;
+	private final String channel;
+
+	public RecordReplayInterceptor(InteractionRecorder interactionRecorder, String channel) {
+		this.interactionRecorder = interactionRecorder;
+		this.channel = channel;
+	}
+
+	@NotNull
+	@Override
+	public Response intercept(@NotNull Chain chain) throws IOException {
+		Request request = chain.request();
+		if (interactionRecorder.mode() == InteractionRecorder.Mode.OFF) return chain.proceed(request);
+
+		String requestBody = "";
+		if (request.body() != null) {
+			Buffer buffer = new Buffer();
+			request.body().writeTo(buffer);
+			requestBody = buffer.readUtf8();
+		}
+
+		if (interactionRecorder.mode() == InteractionRecorder.Mode.REPLAY) {
+			RecordedExchange exchange;
+			try {
+				exchange = interactionRecorder.replay(channel, request.method(), "", requestBody);
+				Thread.sleep(interactionRecorder.replayDelay(exchange));
+			} catch (IllegalStateException e) {
+				throw new IOException(e.getLocalizedMessage(), e); // Surfaces to web3j like a failed connection
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while replaying recorded response");
+			}
+
+			Response.Builder response = new Response.Builder()
+					.request(request)
+					.protocol(Protocol.HTTP_1_1)
+					.code(exchange.status())
+					.message("Replayed")
+					.body(ResponseBody.create(exchange.responseBody(), MediaType.parse(exchange.responseHeaders().getOrDefault("content-type", "application/json"))));
+			exchange.responseHeaders().forEach(response::header);
+			return response.build();
+		}
+
+		long startNanos = System.nanoTime();
+		Response response = chain.proceed(request);
+		String responseBody = response.peekBody(Long.MAX_VALUE).string();
+		Duration latency = Duration.ofNanos(System.nanoTime() - startNanos);
+
+		Map<String, String> headers = new HashMap<>();
+		response.headers().names().forEach(name -> headers.put(name.toLowerCase(), response.header(name)));
+		headers.remove("set-cookie");
+		interactionRecorder.record(channel, request.method(), "", requestBody, response.code(), headers, responseBody, latency);
+		return response;
+	}
+}
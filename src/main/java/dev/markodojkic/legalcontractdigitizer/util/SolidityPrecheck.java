@@ -0,0 +1,248 @@
+package dev.markodojkic.legalcontractdigitizer.util;
+
+import dev.markodojkic.legalcontractdigitizer.model.CompilerDiagnostic;
+import dev.markodojkic.legalcontractdigitizer.model.ContractDeclaration;
+import dev.markodojkic.legalcontractdigitizer.model.SolidityStructure;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Utility class for a fast structural check of Solidity sources before they are passed to the compiler.
+ *
+ * <p>Sources are tokenized (comments, string literals, identifiers, numbers and punctuation) and checked for problems
+ * which always fail compilation, such as leftover markdown fences, unterminated comments or strings and unbalanced
+ * delimiters. Top-level declarations, the pragma version and constructor parameters are extracted on the way.
+ */
+public final class SolidityPrecheck {
+
+	private static final String SOURCE_NAME = "contract.sol", PUNCTUATION = "{}()[];,.=<>!+-*/%&|^~?:";
+	private static final Set<String> CONTRACT_KINDS = Set.of("contract", "interface", "library");
+	private static final int MAX_PROBLEMS = 20;
+
+	private enum TokenType { IDENTIFIER, NUMBER, STRING, PUNCTUATION }
+
+	private record Token(TokenType type, String text, int start, int end) {
+		boolean is(String value) {
+			return (type == TokenType.IDENTIFIER || type == TokenType.PUNCTUATION) && text.equals(value);
+		}
+	}
+
+	private SolidityPrecheck() {}
+
+	/**
+	 * Analyzes the structure of the given source.
+	 *
+	 * @param source Solidity source
+	 * @return pragma version, top-level declarations and structural problems of the source
+	 */
+	public static SolidityStructure analyze(String source) {
+		List<CompilerDiagnostic> problems = new ArrayList<>();
+		if (source == null || source.isBlank()) {
+			problems.add(diagnostic("", 0, 0, "error", "Source is empty"));
+			return new SolidityStructure(null, List.of(), problems);
+		}
+
+		List<Token> tokens = tokenize(source, problems);
+		checkDelimiters(source, tokens, problems);
+
+		String pragmaVersion = null;
+		List<ContractDeclaration> contracts = new ArrayList<>();
+		int depth = 0;
+
+		for (int t = 0; t < tokens.size(); t++) {
+			Token token = tokens.get(t);
+			if (token.is("{")) depth++;
+			else if (token.is("}")) depth = Math.max(0, depth - 1);
+			else if (depth == 0 && token.is("pragma") && t + 1 < tokens.size() && tokens.get(t + 1).is("solidity")) {
+				int end = indexOf(tokens, ";", t + 2);
+				if (end < 0) continue;
+				pragmaVersion = source.substring(tokens.get(t + 1).end(), tokens.get(end).start()).strip().replaceAll("\\s+", " ");
+				t = end;
+			} else if (depth == 0 && token.type() == TokenType.IDENTIFIER && CONTRACT_KINDS.contains(token.text()) && t + 1 < tokens.size() && tokens.get(t + 1).type() == TokenType.IDENTIFIER) {
+				String kind = t > 0 && tokens.get(t - 1).is("abstract") ? "abstract " + token.text() : token.text();
+				String name = tokens.get(t + 1).text();
+				List<String> bases = new ArrayList<>();
+				t = parseBases(tokens, t + 2, bases) - 1; // Continues at the opening brace of the body
+				contracts.add(new ContractDeclaration(name, kind, List.copyOf(bases), null));
+			} else if (depth == 1 && !contracts.isEmpty() && token.is("constructor") && t + 1 < tokens.size() && tokens.get(t + 1).is("(")) {
+				int close = matchingParenthesis(tokens, t + 1);
+				if (close < 0) continue;
+				ContractDeclaration contract = contracts.getLast();
+				String parameters = source.substring(tokens.get(t + 1).end(), tokens.get(close).start()).strip().replaceAll("\\s+", " ");
+				contracts.set(contracts.size() - 1, new ContractDeclaration(contract.name(), contract.kind(), contract.bases(), parameters));
+				t = close;
+			}
+		}
+
+		if (pragmaVersion == null) problems.add(diagnostic(source, 0, 0, "warning", "Source file does not specify required compiler version"));
+		if (contracts.isEmpty() && problems.stream().noneMatch(CompilerDiagnostic::isError)) problems.add(diagnostic(source, 0, 0, "error", "No contract, interface or library is declared"));
+		return new SolidityStructure(pragmaVersion, List.copyOf(contracts), problems);
+	}
+
+	private static List<Token> tokenize(String source, List<CompilerDiagnostic> problems) {
+		List<Token> tokens = new ArrayList<>();
+		int length = source.length(), i = 0;
+
+		while (i < length && problems.size() < MAX_PROBLEMS) {
+			char c = source.charAt(i);
+			char next = i + 1 < length ? source.charAt(i + 1) : '\0';
+
+			if (Character.isWhitespace(c)) i++;
+			else if (c == '/' && next == '/') i = lineEnd(source, i);
+			else if (c == '/' && next == '*') {
+				int end = source.indexOf("*/", i + 2);
+				if (end < 0) {
+					problems.add(diagnostic(source, i, length, "error", "Unterminated block comment"));
+					break;
+				}
+				i = end + 2;
+			} else if (c == '"' || c == '\'') {
+				int end = stringEnd(source, i);
+				if (end < 0) {
+					problems.add(diagnostic(source, i, lineEnd(source, i), "error", "Unterminated string literal"));
+					i = lineEnd(source, i);
+				} else {
+					tokens.add(new Token(TokenType.STRING, source.substring(i, end), i, end));
+					i = end;
+				}
+			} else if (isIdentifierStart(c)) {
+				int end = i + 1;
+				while (end < length && (isIdentifierStart(source.charAt(end)) || isAsciiDigit(source.charAt(end)))) end++;
+				tokens.add(new Token(TokenType.IDENTIFIER, source.substring(i, end), i, end));
+				i = end;
+			} else if (isAsciiDigit(c)) {
+				int end = i + 1;
+				while (end < length && (isIdentifierStart(source.charAt(end)) || isAsciiDigit(source.charAt(end)) || source.charAt(end) == '.')) end++;
+				tokens.add(new Token(TokenType.NUMBER, source.substring(i, end), i, end));
+				i = end;
+			} else if (PUNCTUATION.indexOf(c) >= 0) {
+				tokens.add(new Token(TokenType.PUNCTUATION, String.valueOf(c), i, i + 1));
+				i++;
+			} else if (c == '`') { // Leftover markdown fence, skip the rest of the fence line
+				problems.add(diagnostic(source, i, lineEnd(source, i), "error", "Unexpected markdown code fence"));
+				i = lineEnd(source, i);
+			} else {
+				int end = i + Character.charCount(source.codePointAt(i));
+				problems.add(diagnostic(source, i, end, "error", "Unexpected character '" + source.substring(i, end) + "'"));
+				i = end;
+			}
+		}
+		return tokens;
+	}
+
+	private static void checkDelimiters(String source, List<Token> tokens, List<CompilerDiagnostic> problems) {
+		Deque<Token> open = new ArrayDeque<>();
+		for (Token token : tokens) {
+			if (token.type() != TokenType.PUNCTUATION) continue;
+
+			char c = token.text().charAt(0);
+			if (c == '{' || c == '(' || c == '[') open.push(token);
+			else if (c == '}' || c == ')' || c == ']') {
+				if (open.isEmpty() || closing(open.peek().text().charAt(0)) != c) {
+					// Further delimiter errors would only be consequences of this one
+					problems.add(diagnostic(source, token.start(), token.end(), "error", open.isEmpty() ? "Unexpected '" + c + "' without matching opening delimiter" : "Expected '" + closing(open.peek().text().charAt(0)) + "' but got '" + c + "'"));
+					return;
+				}
+				open.pop();
+			}
+		}
+		if (!open.isEmpty()) problems.add(diagnostic(source, open.peek().start(), open.peek().end(), "error", "'" + open.peek().text() + "' is never closed"));
+	}
+
+	/**
+	 * Collects inherited contract names following {@code is}, skipping base constructor arguments.
+	 *
+	 * @return index of the token following the name and inheritance list
+	 */
+	private static int parseBases(List<Token> tokens, int index, List<String> bases) {
+		if (index >= tokens.size() || !tokens.get(index).is("is")) return index;
+
+		int t = index + 1;
+		while (t < tokens.size() && tokens.get(t).type() == TokenType.IDENTIFIER) {
+			StringBuilder name = new StringBuilder(tokens.get(t++).text());
+			while (t + 1 < tokens.size() && tokens.get(t).is(".") && tokens.get(t + 1).type() == TokenType.IDENTIFIER) {
+				name.append('.').append(tokens.get(t + 1).text());
+				t += 2;
+			}
+			bases.add(name.toString());
+			if (t < tokens.size() && tokens.get(t).is("(")) {
+				int close = matchingParenthesis(tokens, t);
+				if (close < 0) return tokens.size();
+				t = close + 1;
+			}
+			if (t >= tokens.size() || !tokens.get(t).is(",")) break;
+			t++;
+		}
+		return t;
+	}
+
+	private static int matchingParenthesis(List<Token> tokens, int open) {
+		int depth = 0;
+		for (int t = open; t < tokens.size(); t++) {
+			if (tokens.get(t).is("(")) depth++;
+			else if (tokens.get(t).is(")") && --depth == 0) return t;
+		}
+		return -1;
+	}
+
+	private static int indexOf(List<Token> tokens, String value, int from) {
+		for (int t = from; t < tokens.size(); t++) if (tokens.get(t).is(value)) return t;
+		return -1;
+	}
+
+	private static int stringEnd(String source, int start) {
+		char quote = source.charAt(start);
+		for (int i = start + 1; i < source.length(); i++) {
+			char c = source.charAt(i);
+			if (c == '\\') i++;
+			else if (c == quote) return i + 1;
+			else if (c == '\n') return -1;
+		}
+		return -1;
+	}
+
+	private static int lineEnd(String source, int from) {
+		int end = source.indexOf('\n', from);
+		return end < 0 ? source.length() : end;
+	}
+
+	private static char closing(char opening) {
+		return switch (opening) {
+			case '{' -> '}';
+			case '(' -> ')';
+			default -> ']';
+		};
+	}
+
+	private static boolean isIdentifierStart(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == '$';
+	}
+
+	private static boolean isAsciiDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * Creates a diagnostic in the compiler's format, with UTF-8 byte offsets and a {@code file:line:column} location.
+	 */
+	private static CompilerDiagnostic diagnostic(String source, int start, int end, String severity, String message) {
+		String type = "error".equals(severity) ? "PrecheckError" : "Warning";
+		int line = 1, lineStart = 0;
+		for (int i = 0; i < start; i++) {
+			if (source.charAt(i) == '\n') {
+				line++;
+				lineStart = i + 1;
+			}
+		}
+
+		String location = " --> " + SOURCE_NAME + ":" + line + ":" + (start - lineStart + 1) + ":";
+		int byteStart = source.substring(0, start).getBytes(StandardCharsets.UTF_8).length;
+		int byteEnd = byteStart + source.substring(start, end).getBytes(StandardCharsets.UTF_8).length;
+		return new CompilerDiagnostic(severity, type, message, type + ": " + message + "\n" + location, byteStart, byteEnd);
+	}
+}
@@ -0,0 +1,104 @@
+package dev.markodojkic.legalcontractdigitizer.util;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class for clause sections of generated Solidity sources.
+ *
+ * <p>Code implementing a clause is wrapped in {@code // @clause <id> begin} and {@code // @clause <id> end}
+ * comment lines, which allows replacing, removing or adding the code of single clauses without
+ * regenerating the whole contract.
+ */
+public final class SoliditySections {
+
+	private static final Pattern SECTION_PATTERN = Pattern.compile("(?ms)^[ \\t]*// @clause (\\S+) begin[ \\t]*\\R.*?^[ \\t]*// @clause \\1 end[ \\t]*(?:\\R|\\z)");
+
+	private SoliditySections() {}
+
+	/**
+	 * Finds all clause sections in the given source.
+	 *
+	 * @param source Solidity source
+	 * @return sections (including marker lines) by clause ID, in source order
+	 */
+	public static Map<String, String> parse(String source) {
+		Map<String, String> sections = new LinkedHashMap<>();
+		if (source == null) return sections;
+
+		Matcher matcher = SECTION_PATTERN.matcher(source);
+		while (matcher.find()) sections.putIfAbsent(matcher.group(1), matcher.group());
+		return sections;
+	}
+
+	/**
+	 * Merges updated clause sections into the given source. Existing sections are replaced in place,
+	 * new ones are appended to the end of the last contract in the source.
+	 *
+	 * @param source     Solidity source
+	 * @param sections   updated sections (including marker lines) by clause ID
+	 * @param removedIds IDs of clauses whose sections should be removed
+	 * @return merged source
+	 */
+	public static String merge(String source, Map<String, String> sections, Collection<String> removedIds) {
+		StringBuilder merged = new StringBuilder();
+		Map<String, String> pending = new LinkedHashMap<>(sections);
+		Matcher matcher = SECTION_PATTERN.matcher(source);
+		int position = 0;
+
+		while (matcher.find()) {
+			merged.append(source, position, matcher.start());
+			String id = matcher.group(1);
+			if (pending.containsKey(id)) merged.append(withTrailingNewline(pending.remove(id)));
+			else if (!removedIds.contains(id)) merged.append(matcher.group());
+			position = matcher.end();
+		}
+		merged.append(source.substring(position));
+
+		if (!pending.isEmpty()) {
+			int insertAt = merged.lastIndexOf("}");
+			if (insertAt < 0) throw new IllegalArgumentException("Solidity source contains no contract body to insert sections into");
+
+			StringBuilder inserted = new StringBuilder();
+			pending.values().forEach(section -> inserted.append('\n').append(withTrailingNewline(section)));
+			merged.insert(insertAt, inserted);
+		}
+		return merged.toString();
+	}
+
+	/**
+	 * Builds a compact outline of the given source, keeping only declarations at file and contract level
+	 * (contracts, state variables, events, modifiers and function signatures) and clause section markers.
+	 * Used as context when regenerating single sections, so prompt size does not grow with function bodies.
+	 *
+	 * @param source Solidity source
+	 * @return outline of the source
+	 */
+	public static String outline(String source) {
+		StringBuilder outline = new StringBuilder();
+		int depth = 0;
+
+		for (String line : source.split("\\R")) {
+			String trimmed = line.strip();
+			boolean marker = trimmed.startsWith("// @clause ");
+			boolean comment = trimmed.startsWith("//") || trimmed.startsWith("/*") || trimmed.startsWith("*");
+
+			if (marker || (depth <= 1 && !trimmed.isEmpty() && !comment && !trimmed.equals("}"))) outline.append(line).append('\n');
+			if (!comment) depth = Math.max(0, depth + count(trimmed, '{') - count(trimmed, '}'));
+		}
+		return outline.toString();
+	}
+
+	private static int count(String text, char character) {
+		int count = 0;
+		for (int i = 0; i < text.length(); i++) if (text.charAt(i) == character) count++;
+		return count;
+	}
+
+	private static String withTrailingNewline(String section) {
+		return section.endsWith("\n") ? section : section + "\n";
+	}
+}
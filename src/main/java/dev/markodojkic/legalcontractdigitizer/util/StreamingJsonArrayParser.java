@@ -0,0 +1,103 @@
+package dev.markodojkic.legalcontractdigitizer.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lenient, incremental parser for arrays of strings returned by language models.
+ *
+ * <p>Tokens are validated one by one with Jackson's streaming {@link JsonParser}, so every complete string
+ * read before an error is kept. Leading prose or code fences are skipped, the array may either be top-level
+ * or a property of a top-level object, and output truncated mid-array (e.g. by the token limit) yields the
+ * elements completed so far instead of nothing.
+ */
+public final class StreamingJsonArrayParser {
+
+	private static final JsonFactory JSON_FACTORY = JsonFactory.builder().build();
+
+	private StreamingJsonArrayParser() {}
+
+	/**
+	 * Parse outcome, ordered from best to worst.
+	 */
+	public enum Outcome {
+		/** Content was exactly the expected JSON. */
+		VALID,
+		/** Surrounding prose, code fences or non-string elements were skipped. */
+		RECOVERED,
+		/** Content ended before the array was closed, only completed elements were kept. */
+		TRUNCATED,
+		/** No array could be read. */
+		FAILED
+	}
+
+	/**
+	 * Result of a lenient parse.
+	 *
+	 * @param values  parsed string elements (possibly partial)
+	 * @param outcome parse outcome
+	 */
+	public record Result(List<String> values, Outcome outcome) {}
+
+	/**
+	 * Parses an array of strings from the given content.
+	 *
+	 * @param content   raw model output
+	 * @param fieldName name of the property holding the array when the content is a JSON object
+	 * @return parse result, never {@code null}
+	 */
+	public static Result parseStringArray(String content, String fieldName) {
+		List<String> values = new ArrayList<>();
+		if (content == null) return new Result(values, Outcome.FAILED);
+
+		int start = indexOfJsonStart(content);
+		if (start < 0) return new Result(values, Outcome.FAILED);
+		boolean skipped = !content.substring(0, start).isBlank();
+
+		try (JsonParser parser = JSON_FACTORY.createParser(content.substring(start))) {
+			JsonToken token = parser.nextToken();
+			if (token == JsonToken.START_OBJECT && !moveToArrayField(parser, fieldName)) return new Result(values, Outcome.FAILED);
+
+			while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+				if (token == null) return new Result(values, Outcome.TRUNCATED);
+
+				if (token == JsonToken.VALUE_STRING) {
+					values.add(parser.getText());
+				} else {
+					skipped = true;
+					parser.skipChildren();
+				}
+			}
+			return new Result(values, skipped ? Outcome.RECOVERED : Outcome.VALID);
+		} catch (JsonProcessingException _) {
+			// Incomplete token at the end of the content, keep what was fully read
+			return new Result(values, values.isEmpty() ? Outcome.FAILED : Outcome.TRUNCATED);
+		} catch (IOException _) {
+			return new Result(values, Outcome.FAILED);
+		}
+	}
+
+	private static int indexOfJsonStart(String content) {
+		int objectStart = content.indexOf('{'), arrayStart = content.indexOf('[');
+		if (objectStart < 0) return arrayStart;
+		if (arrayStart < 0) return objectStart;
+		return Math.min(objectStart, arrayStart);
+	}
+
+	private static boolean moveToArrayField(JsonParser parser, String fieldName) throws IOException {
+		JsonToken token;
+		while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+			boolean matches = parser.currentName().equals(fieldName);
+			token = parser.nextToken();
+			if (matches && token == JsonToken.START_ARRAY) return true;
+			parser.skipChildren();
+		}
+		return false;
+	}
+}
@@ -0,0 +1,138 @@
+// SPDX-License-Identifier: MIT
+pragma solidity ^0.8.20;
+
+abstract contract Ownable {
+    address private _owner;
+
+    event OwnershipTransferred(address indexed previousOwner, address indexed newOwner);
+
+    constructor(address initialOwner) {
+        _owner = initialOwner;
+        emit OwnershipTransferred(address(0), initialOwner);
+    }
+
+    modifier onlyOwner() {
+        require(msg.sender == _owner, "Ownable: caller is not the owner");
+        _;
+    }
+
+    function owner() public view returns (address) {
+        return _owner;
+    }
+}
+
+abstract contract ReentrancyGuard {
+    uint256 private _status = 1;
+
+    modifier nonReentrant() {
+        require(_status == 1, "ReentrancyGuard: reentrant call");
+        _status = 2;
+        _;
+        _status = 1;
+    }
+}
+
+abstract contract UUPSUpgradeable {
+    bytes32 internal constant IMPLEMENTATION_SLOT = 0x360894a13ba1a3210667c828492db98dca3e2076cc3735a920a3ca505d382bbc;
+
+    event Upgraded(address indexed implementation);
+
+    function _authorizeUpgrade(address newImplementation) internal virtual;
+
+    function upgradeTo(address newImplementation) external {
+        _authorizeUpgrade(newImplementation);
+        require(newImplementation.code.length > 0, "UUPS: implementation is not a contract");
+        assembly {
+            sstore(IMPLEMENTATION_SLOT, newImplementation)
+        }
+        emit Upgraded(newImplementation);
+    }
+}
+
+contract FreelanceServiceAgreement is Ownable, ReentrancyGuard, UUPSUpgradeable {
+    address public client;
+    address public freelancer;
+    uint256 public constant UPFRONT_PAYMENT = 1 ether;
+    uint256 public constant COMPLETION_PAYMENT = 2 ether;
+
+    bool public destroyed;
+    bool public upfrontPaid;
+    bool public completionConfirmed;
+    bool public completionPaid;
+
+    event UpfrontPaymentMade(address indexed from, address indexed to, uint256 amount);
+    event CompletionConfirmed(address indexed by);
+    event CompletionPaymentMade(address indexed from, address indexed to, uint256 amount);
+    event ContractTerminated(address indexed by, uint256 refundedBalance);
+    event EmergencyWithdrawal(address indexed to, uint256 amount);
+
+    modifier notDestroyed() {
+        require(!destroyed, "Contract is disabled");
+        _;
+    }
+
+    modifier onlyClient() {
+        require(msg.sender == client, "Only client");
+        _;
+    }
+
+    constructor(address _client, address _freelancer) Ownable(msg.sender) {
+        require(_client != address(0) && _freelancer != address(0), "Invalid party address");
+        client = _client;
+        freelancer = _freelancer;
+    }
+
+    function payUpfront() external payable onlyClient notDestroyed nonReentrant {
+        require(!upfrontPaid, "Upfront payment already made");
+        require(msg.value == UPFRONT_PAYMENT, "Incorrect upfront amount");
+        upfrontPaid = true;
+        (bool sent, ) = payable(freelancer).call{value: msg.value}("");
+        require(sent, "Transfer failed");
+        emit UpfrontPaymentMade(msg.sender, freelancer, msg.value);
+    }
+
+    function confirmCompletion() external onlyClient notDestroyed {
+        require(upfrontPaid, "Upfront payment missing");
+        require(!completionConfirmed, "Completion already confirmed");
+        completionConfirmed = true;
+        emit CompletionConfirmed(msg.sender);
+    }
+
+    function payCompletion() external payable onlyClient notDestroyed nonReentrant {
+        require(completionConfirmed, "Completion not confirmed");
+        require(!completionPaid, "Completion payment already made");
+        require(msg.value == COMPLETION_PAYMENT, "Incorrect completion amount");
+        completionPaid = true;
+        (bool sent, ) = payable(freelancer).call{value: msg.value}("");
+        require(sent, "Transfer failed");
+        emit CompletionPaymentMade(msg.sender, freelancer, msg.value);
+    }
+
+    function terminateContract() external onlyOwner notDestroyed nonReentrant {
+        destroyed = true;
+        uint256 balance = address(this).balance;
+        if (balance > 0) {
+            (bool sent, ) = payable(owner()).call{value: balance}("");
+            require(sent, "Transfer failed");
+        }
+        emit ContractTerminated(msg.sender, balance);
+    }
+
+    function emergencyWithdraw() external onlyOwner nonReentrant {
+        require(destroyed, "Contract is still active");
+        uint256 balance = address(this).balance;
+        (bool sent, ) = payable(owner()).call{value: balance}("");
+        require(sent, "Transfer failed");
+        emit EmergencyWithdrawal(owner(), balance);
+    }
+
+    function _authorizeUpgrade(address) internal override onlyOwner {}
+
+    receive() external payable {
+        revert("Direct payments not accepted");
+    }
+
+    fallback() external payable {
+        revert("Direct payments not accepted");
+    }
+}